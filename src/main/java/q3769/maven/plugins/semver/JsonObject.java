@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+
+/**
+ * Minimal single-line JSON object writer, suitable for emitting JSON lines without pulling in a
+ * JSON library
+ *
+ * @author Qingtian Wang
+ */
+public final class JsonObject {
+  private final StringBuilder json = new StringBuilder("{");
+
+  /**
+   * @param text to quote
+   * @return JSON string literal of the text, or <code>null</code> literal if the text is null
+   */
+  public static String quote(String text) {
+    if (text == null) {
+      return "null";
+    }
+    StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"':
+          quoted.append("\\\"");
+          break;
+        case '\\':
+          quoted.append("\\\\");
+          break;
+        case '\n':
+          quoted.append("\\n");
+          break;
+        case '\r':
+          quoted.append("\\r");
+          break;
+        case '\t':
+          quoted.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+          } else {
+            quoted.append(c);
+          }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * @param elements already rendered JSON values
+   * @return JSON array of the elements
+   */
+  public static String array(@NonNull Collection<String> elements) {
+    return elements.stream().collect(Collectors.joining(",", "[", "]"));
+  }
+
+  /**
+   * @param name of the member
+   * @param value string value of the member
+   * @return this object
+   */
+  public JsonObject put(String name, String value) {
+    return putRaw(name, quote(value));
+  }
+
+  /**
+   * @param name of the member
+   * @param value boolean value of the member
+   * @return this object
+   */
+  public JsonObject put(String name, boolean value) {
+    return putRaw(name, String.valueOf(value));
+  }
+
+  /**
+   * @param name of the member
+   * @param value numeric value of the member
+   * @return this object
+   */
+  public JsonObject put(String name, long value) {
+    return putRaw(name, String.valueOf(value));
+  }
+
+  /**
+   * @param name of the member
+   * @param json already rendered JSON value of the member
+   * @return this object
+   */
+  public JsonObject putRaw(String name, String json) {
+    if (this.json.length() > 1) {
+      this.json.append(',');
+    }
+    this.json.append(quote(name)).append(':').append(json);
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return json + "}";
+  }
+}
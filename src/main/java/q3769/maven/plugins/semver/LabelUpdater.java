@@ -46,6 +46,15 @@ public abstract class LabelUpdater extends Updater {
   @Parameter(property = "set")
   protected String set;
 
+  /**
+   * For use outside Maven's parameter injection, e.g. when the goal's update is applied in a batch
+   *
+   * @param set the label to set, or blank to increment the label
+   */
+  public void setSet(String set) {
+    this.set = set;
+  }
+
   /**
    * Increments the label of the given semantic version.
    *
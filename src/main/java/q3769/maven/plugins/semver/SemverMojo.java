@@ -24,6 +24,9 @@
 package q3769.maven.plugins.semver;
 
 import com.github.zafarkhaja.semver.Version;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import lombok.NonNull;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
@@ -32,6 +35,8 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import q3769.maven.plugins.semver.pom.RevisionProperty;
+import q3769.maven.plugins.semver.state.LocalRepositoryIndex;
 
 /**
  * Updates the POM file with a new SemVer version
@@ -39,6 +44,12 @@ import org.apache.maven.project.MavenProject;
  * @author Qingtian Wang
  */
 public abstract class SemverMojo extends AbstractMojo {
+  /**
+   * Value of a SemVer parameter standing for the highest version of the project released to the
+   * local repository
+   */
+  public static final String LOCAL_RELEASE = "@local";
+
   private static final String FALSE = "false";
 
   /** */
@@ -63,7 +74,7 @@ public abstract class SemverMojo extends AbstractMojo {
    */
   public static @NonNull Version requireValidSemVer(String version) {
     try {
-      return Version.parse(version);
+      return VersionCache.parse(version);
     } catch (Exception ex) {
       throw new IllegalArgumentException("Error parsing '" + version + "' as a SemVer", ex);
     }
@@ -98,7 +109,7 @@ public abstract class SemverMojo extends AbstractMojo {
             projectName);
         return;
       }
-      if (pomVersion == null) {
+      if (project.getOriginalModel().getVersion() == null) {
         logWarn(
             "Version of module '%s' is inherited to be the same as parent '%s', thus will not be processed independently",
             projectName, project.getParent().getName());
@@ -108,11 +119,85 @@ public abstract class SemverMojo extends AbstractMojo {
     doExecute();
   }
 
+  /**
+   * For use outside Maven's parameter injection, e.g. when the goal's update is applied by the core
+   * extension while the reactor is being read
+   *
+   * @param project the goal applies to
+   * @param session the project is built in
+   */
+  public void setExecutionContext(MavenProject project, MavenSession session) {
+    this.project = project;
+    this.session = session;
+  }
+
+  /**
+   * @param version text that is supposed to be valid per SemVer spec, or {@link #LOCAL_RELEASE}
+   * @return A valid SemVer, the highest released to the local repository if so requested
+   * @throws MojoFailureException if the local release is requested but cannot be resolved
+   */
+  protected Version resolveSemVer(String version) throws MojoFailureException {
+    return LOCAL_RELEASE.equals(version) ? latestLocalRelease() : requireValidSemVer(version);
+  }
+
+  /**
+   * @return highest non-SNAPSHOT SemVer of the project in the local repository, looked up through
+   *     the project's {@link LocalRepositoryIndex}
+   * @throws MojoFailureException if there is no such version or the repository cannot be read
+   */
+  protected Version latestLocalRelease() throws MojoFailureException {
+    return localReleases()
+        .highest()
+        .orElseThrow(() -> new MojoFailureException(String.format(
+            "No released SemVer of %s:%s in local repository",
+            project.getGroupId(), project.getArtifactId())));
+  }
+
+  /**
+   * @return index of all non-SNAPSHOT SemVers of the project in the local repository, looked up
+   *     through the project's {@link LocalRepositoryIndex}
+   * @throws MojoFailureException if the repository cannot be read
+   */
+  protected VersionIndex localReleases() throws MojoFailureException {
+    if (project == null || session == null) {
+      throw new MojoFailureException(LOCAL_RELEASE + " requires a Maven project to look up");
+    }
+    Path repository =
+        session.getRepositorySession().getLocalRepository().getBasedir().toPath();
+    try {
+      LocalRepositoryIndex index =
+          LocalRepositoryIndex.load(project.getBasedir().toPath(), repository);
+      VersionIndex releases = index.releases(project.getGroupId(), project.getArtifactId());
+      index.save();
+      return releases;
+    } catch (IOException e) {
+      logError(e, "Failed to look up versions in local repository %s", repository);
+      throw new MojoFailureException(e);
+    }
+  }
+
   /** @return original version in pom.xml */
   protected String originalPomVersion() {
     return project.getModel().getVersion();
   }
 
+  /**
+   * @return true if the version element in pom.xml is Maven's CI-friendly <code>${revision}</code>
+   *     placeholder, rather than a literal version
+   */
+  protected boolean isCiFriendlyVersion() {
+    return RevisionProperty.PLACEHOLDER.equals(project.getOriginalModel().getVersion());
+  }
+
+  /** @return root directory of the multi-module project, where the .mvn directory resides */
+  protected Path multiModuleProjectDirectory() {
+    File directory = session.getRequest().getMultiModuleProjectDirectory();
+    if (directory == null) {
+      directory = session.getTopLevelProject().getBasedir();
+    }
+    return directory.toPath().toAbsolutePath().normalize();
+  }
+
   protected void logError(String message, Object... args) {
     getLog().error(String.format(message, args));
   }
@@ -26,12 +26,35 @@ package q3769.maven.plugins.semver;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.*;
 
 import com.github.zafarkhaja.semver.Version;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.NonNull;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.pom.ReactorGraph;
+import q3769.maven.plugins.semver.pom.RevisionProperty;
+import q3769.maven.plugins.semver.state.CompareAndSet;
+import q3769.maven.plugins.semver.state.ResultCache;
+import q3769.maven.plugins.semver.state.SourceIndex;
+import q3769.maven.plugins.semver.state.VersionHistory;
+import q3769.maven.plugins.semver.state.VersionState;
 
 /**
  * Updates POM version, based on current value
@@ -41,6 +64,14 @@ import org.apache.maven.plugins.annotations.Parameter;
 public abstract class Updater extends SemverMojo {
   private static final String SNAPSHOT = "SNAPSHOT";
 
+  /**
+   * The versions plugin delegated to, built once per class loader; its resolved descriptor is
+   * cached by Maven itself, so that in a long-lived class loader, such as the Maven Daemon's,
+   * delegation after the first build resolves nothing
+   */
+  private static final Plugin VERSIONS_PLUGIN =
+      plugin(groupId("org.codehaus.mojo"), artifactId("versions-maven-plugin"), version("2.17.1"));
+
   /**
    * Flag to append SNAPSHOT as the pre-release label in the target version. Expected to be passed
    * in as a -D parameter from CLI.
@@ -48,10 +79,91 @@ public abstract class Updater extends SemverMojo {
   @Parameter(property = "snapshot", defaultValue = "false")
   protected boolean addingSnapshotLabel;
 
+  /**
+   * Flag to update the version by optimistic compare-and-set under a cross-process file lock,
+   * writing only the project's own version element in place, rather than delegating to the versions
+   * plugin. Guards against concurrent updates by other processes on the same workspace. On a
+   * project with modules, requires <code>propagate</code>, to keep the modules' parent references
+   * current.
+   */
+  @Parameter(property = "cas", defaultValue = "false")
+  protected boolean compareAndSet;
+
+  /** Maximum number of compare-and-set attempts before giving up, in compare-and-set mode */
+  @Parameter(property = "casAttempts", defaultValue = "10")
+  protected int compareAndSetAttempts;
+
+  /**
+   * Flag to write the new version in place and propagate it to every explicit reference to this
+   * project from the reactor's POM files - parent, dependency, managed dependency, plugin and
+   * extension declarations - with one batched write per affected file, rather than delegating to
+   * the versions plugin.
+   */
+  @Parameter(property = "propagate", defaultValue = "false")
+  protected boolean propagatingVersion;
+
+  /**
+   * Durability of the in-place writes of propagated versions: <code>none</code> leaves syncing to
+   * the OS, <code>batch</code> syncs all affected files of an update together and then each
+   * directory once, <code>strict</code> syncs each file and its directory one at a time.
+   */
+  @Parameter(property = "durability", defaultValue = "none")
+  protected String durability;
+
+  /**
+   * Flag to update the version only if the project's source and resource files changed since its
+   * last version update, as detected by the content hash index in <code>.semver/sources</code>.
+   * Useful with <code>-DprocessModule</code>, to only update the modules that actually changed.
+   */
+  @Parameter(property = "changedOnly", defaultValue = "false")
+  protected boolean changedOnly;
+
+  /**
+   * Flag to memoize the POM resulting from an idempotent goal - <code>pick-newer</code>, <code>
+   * merge
+   * </code>, <code>set-current</code>, <code>finalize-current</code> - keyed by the goal, its
+   * parameters and the content hash of the POM, so that re-running the goal with identical inputs
+   * skips its computation and the delegated POM rewrite. Only applies to a project built on its own
+   * - without modules, without a parent in the reactor or source tree - updated by the versions
+   * plugin.
+   */
+  @Parameter(property = "memoize", defaultValue = "false")
+  protected boolean memoizing;
+
+  /** Directory of the memoized goal results, shareable by all projects and workspaces of a host */
+  @Parameter(property = "memoDirectory", defaultValue = "${user.home}/.semver/results")
+  protected File memoDirectory;
+
+  /** Total size in bytes of the memoized results above which the least recently used are evicted */
+  @Parameter(property = "memoMaxBytes", defaultValue = "16777216")
+  protected long memoMaxBytes;
+
   /** */
   @Inject
   protected BuildPluginManager pluginManager;
 
+  /** Source of the current instant for calendar style updates */
+  protected Clock clock = Clock.systemUTC();
+
+  /**
+   * For use outside Maven's parameter injection, e.g. when the goal's update is applied in a batch
+   *
+   * @param addingSnapshotLabel whether to append SNAPSHOT as the pre-release label
+   */
+  public void setAddingSnapshotLabel(boolean addingSnapshotLabel) {
+    this.addingSnapshotLabel = addingSnapshotLabel;
+  }
+
+  /**
+   * For use outside Maven's parameter injection, e.g. when several goals' updates are evaluated
+   * against one shared clock snapshot
+   *
+   * @param clock source of the current instant for calendar style updates
+   */
+  public void setClock(@NonNull Clock clock) {
+    this.clock = clock;
+  }
+
   private static boolean hasPreReleaseVersionOrBuildMetadata(@NonNull Version version) {
     return version.preReleaseVersion().isPresent() || version.buildMetadata().isPresent();
   }
@@ -67,17 +179,98 @@ public abstract class Updater extends SemverMojo {
    */
   protected abstract Version update(Version original) throws MojoFailureException;
 
+  /**
+   * @return rendering of the goal's parameters to key its memoized results by, if the goal is
+   *     idempotent - its result depending on nothing but its parameters and the POM; otherwise
+   *     empty, so the goal's results are never memoized
+   */
+  protected Optional<String> memoizedParameters() {
+    return Optional.empty();
+  }
+
   @Override
   protected void doExecute() throws MojoExecutionException, MojoFailureException {
-    updatePomFile(getUpdatedVersion().toString());
+    Path rootDirectory = multiModuleProjectDirectory();
+    if (isCiFriendlyVersion()
+        && !project.getBasedir().toPath().toAbsolutePath().normalize().equals(rootDirectory)) {
+      logInfo(
+          "Version of project '%s' is the CI-friendly %s, which is only updated once in root directory %s",
+          project.getName(), RevisionProperty.PLACEHOLDER, rootDirectory);
+      return;
+    }
+    SourceIndex sourceIndex = null;
+    String contentHash = null;
+    if (changedOnly) {
+      sourceIndex = loadSourceIndex();
+      contentHash = refreshSourceIndex(sourceIndex);
+      if (sourceIndex.getBaseline().filter(contentHash::equals).isPresent()) {
+        logInfo(
+            "Content of project '%s' unchanged since its last version update, version not updated",
+            project.getName());
+        saveSourceIndex(sourceIndex);
+        return;
+      }
+    }
+    Version original = requireValidSemVer(project.getVersion());
+    if (compareAndSet) {
+      updateByCompareAndSet(original);
+    } else {
+      Optional<String> memoKey = memoKey();
+      if (!memoKey.isPresent() || !updateFromMemo(memoKey.get())) {
+        updatePomFile(getUpdatedVersion(original).toString());
+        memoKey.ifPresent(this::memoizeResult);
+      }
+    }
+    if (sourceIndex != null) {
+      sourceIndex.setBaseline(contentHash);
+      saveSourceIndex(sourceIndex);
+    }
+  }
+
+  private SourceIndex loadSourceIndex() throws MojoExecutionException {
+    try {
+      return SourceIndex.load(project.getBasedir().toPath());
+    } catch (IOException e) {
+      logError(e, "Failed to load source index of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  /** @return the project's compile source roots and resource directories */
+  protected List<Path> sourceRoots() {
+    List<Path> roots = new ArrayList<>();
+    project.getCompileSourceRoots().forEach(root -> roots.add(Paths.get(root)));
+    project.getResources().forEach(resource -> roots.add(Paths.get(resource.getDirectory())));
+    return roots;
+  }
+
+  /** @return content hash over the project's source roots */
+  private String refreshSourceIndex(SourceIndex sourceIndex) throws MojoExecutionException {
+    try {
+      return sourceIndex.refresh(sourceRoots());
+    } catch (IOException e) {
+      logError(e, "Failed to hash content of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  private void saveSourceIndex(SourceIndex sourceIndex) {
+    try {
+      sourceIndex.save();
+    } catch (IOException e) {
+      logWarn("Failed to save source index of project '%s': %s", project.getName(), e);
+    }
   }
 
   /**
+   * Computes the version this goal updates the original to, including the SNAPSHOT labeling if
+   * requested, without writing anything
+   *
+   * @param original SemVer to be updated
    * @return The incremented SemVer
-   * @throws MojoFailureException if original version in POM is malformed
+   * @throws MojoFailureException if the update fails
    */
-  private Version getUpdatedVersion() throws MojoFailureException {
-    Version original = requireValidSemVer(project.getVersion());
+  public Version getUpdatedVersion(Version original) throws MojoFailureException {
     Version updatedVersion = update(original);
     if (!addingSnapshotLabel) {
       return updatedVersion;
@@ -93,6 +286,102 @@ public abstract class Updater extends SemverMojo {
     return addSnapshotLabel(updatedVersion);
   }
 
+  /**
+   * @return the key of this goal's memoized result for the current POM, empty if not to memoize
+   * @throws MojoExecutionException if the POM cannot be read
+   */
+  private Optional<String> memoKey() throws MojoExecutionException {
+    Optional<String> parameters = memoizedParameters();
+    if (!memoizing
+        || !parameters.isPresent()
+        || propagatingVersion
+        || isCiFriendlyVersion()
+        || !project.getModules().isEmpty()
+        || isInMultiModuleTree()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(ResultCache.key(
+          mojo.getMojoDescriptor().getPluginDescriptor().getId(),
+          mojo.getGoal(),
+          parameters.get() + " snapshot=" + addingSnapshotLabel,
+          Files.readAllBytes(project.getFile().toPath())));
+    } catch (IOException e) {
+      logError(e, "Failed to read POM of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  /**
+   * @return true if the project is not built on its own: the versions plugin, run from the
+   *     aggregation root, then also rewrites references to it from sibling POMs, which a memoized
+   *     result of this POM alone would not
+   */
+  private boolean isInMultiModuleTree() {
+    return (session != null
+            && session.getProjects() != null
+            && session.getProjects().size() > 1)
+        || (project.getParent() != null && project.getParent().getFile() != null);
+  }
+
+  private ResultCache resultCache() throws IOException {
+    return ResultCache.open(memoDirectory.toPath(), memoMaxBytes);
+  }
+
+  /**
+   * @param key of this goal's memoized result for the current POM
+   * @return true if the memoized result was found and applied
+   * @throws MojoExecutionException if the memoized result cannot be written to the POM
+   */
+  private boolean updateFromMemo(String key) throws MojoExecutionException {
+    Optional<byte[]> memoized;
+    try {
+      memoized = resultCache().get(key);
+    } catch (IOException | RuntimeException e) {
+      logWarn("Failed to look up memoized result of goal %s: %s", mojo.getGoal(), e);
+      return false;
+    }
+    if (!memoized.isPresent()) {
+      return false;
+    }
+    String originalVersion = project.getVersion();
+    String newVersion = PomDocument.projectVersionOf(
+            new String(memoized.get(), StandardCharsets.UTF_8))
+        .orElse(originalVersion);
+    if (newVersion.equals(originalVersion)) {
+      logInfo(
+          "Original POM version: %s remains unchanged after executing goal: %s (memoized)",
+          originalVersion, mojo.getGoal());
+      return true;
+    }
+    try {
+      PomWriter.write(project.getFile().toPath(), memoized.get());
+    } catch (IOException e) {
+      logError(e, "Failed to write memoized POM of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+    logInfo(
+        "Updated original POM version: %s into: %s after executing goal: %s (memoized)",
+        originalVersion, newVersion, mojo.getGoal());
+    recordVersionState();
+    recordHistory(mojo.getGoal(), originalVersion, newVersion);
+    return true;
+  }
+
+  /**
+   * Memoizes the POM as updated by this goal; failing to do so does not fail the already completed
+   * update.
+   *
+   * @param key of this goal's result for the POM as it was before the update
+   */
+  private void memoizeResult(String key) {
+    try {
+      resultCache().put(key, Files.readAllBytes(project.getFile().toPath()));
+    } catch (IOException | RuntimeException e) {
+      logWarn("Failed to memoize result of goal %s: %s", mojo.getGoal(), e);
+    }
+  }
+
   /**
    * @param newVersion New version to be set in the POM file
    * @throws MojoExecutionException if unexpected error occurred while updating the POM file
@@ -106,15 +395,166 @@ public abstract class Updater extends SemverMojo {
           originalVersion, executedGoal);
       return;
     }
-    executeMojo(
-        plugin(
-            groupId("org.codehaus.mojo"), artifactId("versions-maven-plugin"), version("2.17.1")),
-        goal("set"),
-        configuration(
-            element(name("generateBackupPoms"), "false"), element(name("newVersion"), newVersion)),
-        executionEnvironment(project, session, pluginManager));
+    if (isCiFriendlyVersion()) {
+      updateRevisionProperty(newVersion);
+    } else if (propagatingVersion) {
+      propagateVersion(originalVersion, newVersion, true);
+    } else {
+      executeMojo(
+          VERSIONS_PLUGIN,
+          goal("set"),
+          configuration(
+              element(name("generateBackupPoms"), "false"),
+              element(name("newVersion"), newVersion)),
+          executionEnvironment(project, session, pluginManager));
+    }
     logInfo(
         "Updated original POM version: %s into: %s after executing goal: %s",
         originalVersion, newVersion, executedGoal);
+    recordVersionState();
+    recordHistory(executedGoal, originalVersion, newVersion);
+  }
+
+  /**
+   * @param original SemVer as read at startup, from which the first update attempt is computed
+   * @throws MojoExecutionException if unexpected error occurred while updating the POM file
+   * @throws MojoFailureException if the update fails, or keeps losing to concurrent updates
+   */
+  private void updateByCompareAndSet(Version original)
+      throws MojoExecutionException, MojoFailureException {
+    if (!project.getModules().isEmpty() && !propagatingVersion) {
+      throw new MojoFailureException(String.format(
+          "Compare-and-set only writes the version of project '%s' itself, leaving the parent references of its modules stale; use -Dcas together with -Dpropagate on projects with modules",
+          project.getName()));
+    }
+    String executedGoal = mojo.getGoal();
+    CompareAndSet.Result result;
+    try {
+      result = CompareAndSet.update(
+          project.getBasedir().toPath(), original, this::getUpdatedVersion, compareAndSetAttempts);
+    } catch (IOException e) {
+      logError(e, "Failed to compare-and-set version of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException(e);
+    }
+    if (!result.isApplied()) {
+      throw new MojoFailureException(String.format(
+          "Version of project '%s' kept being changed concurrently, gave up after %s attempts, last seen version: %s",
+          project.getName(), result.getAttempts(), result.getOriginal()));
+    }
+    logInfo(
+        "Compare-and-set POM version: %s into: %s after executing goal: %s, in %s attempt(s)",
+        result.getOriginal(), result.getUpdated(), executedGoal, result.getAttempts());
+    if (!result.getUpdated().equals(result.getOriginal())) {
+      recordHistory(
+          executedGoal, result.getOriginal().toString(), result.getUpdated().toString());
+    }
+    if (propagatingVersion
+        && !isCiFriendlyVersion()
+        && !result.getUpdated().equals(result.getOriginal())) {
+      propagateVersion(result.getOriginal().toString(), result.getUpdated().toString(), false);
+    }
+  }
+
+  /**
+   * @param oldVersion of this project before the update
+   * @param newVersion of this project after the update
+   * @param includingProjectVersion whether to write the project's own version element, too
+   * @throws MojoExecutionException if the reactor POM files cannot be scanned or rewritten
+   */
+  private void propagateVersion(
+      String oldVersion, String newVersion, boolean includingProjectVersion)
+      throws MojoExecutionException {
+    String coordinates = project.getGroupId() + ':' + project.getArtifactId();
+    try {
+      int rewritten = reactorGraph()
+          .updateVersion(
+              coordinates, oldVersion, newVersion, includingProjectVersion, durability());
+      logInfo(
+          "Rewrote %s version text(s) of %s from %s to %s in the reactor",
+          rewritten, coordinates, oldVersion, newVersion);
+    } catch (IOException e) {
+      logError(e, "Failed to propagate version %s of %s in the reactor", newVersion, coordinates);
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  private PomWriter.Durability durability() throws MojoExecutionException {
+    try {
+      return PomWriter.Durability.of(durability == null ? "none" : durability);
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @return the reactor graph, scanned once per session and shared by all module executions
+   * @throws IOException if any reactor POM file cannot be scanned
+   */
+  private ReactorGraph reactorGraph() throws IOException {
+    try {
+      return (ReactorGraph)
+          session.getRepositorySession().getData().computeIfAbsent(ReactorGraph.class, () -> {
+            try {
+              return ReactorGraph.scan(session.getProjects().stream()
+                  .map(p -> p.getFile().toPath())
+                  .collect(Collectors.toList()));
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Keeps the <code>.semver/state</code> file current, so that read-only tools can answer the
+   * version without Maven; failing to do so does not fail the already completed update.
+   */
+  private void recordVersionState() {
+    try {
+      VersionState.record(project.getBasedir().toPath());
+    } catch (IOException | RuntimeException e) {
+      logWarn("Failed to record version state of project '%s': %s", project.getName(), e);
+    }
+  }
+
+  /**
+   * Appends the update to the project's <code>.semver/history</code>; failing to do so does not
+   * fail the already completed update.
+   */
+  private void recordHistory(String goal, String oldVersion, String newVersion) {
+    try {
+      VersionHistory.append(
+          project.getBasedir().toPath(),
+          new VersionHistory.Record(Instant.now(), goal, oldVersion, newVersion));
+    } catch (IOException | RuntimeException e) {
+      logWarn("Failed to record version history of project '%s': %s", project.getName(), e);
+    }
+  }
+
+  /**
+   * Sets the new version as the value of the CI-friendly revision property, so that all modules
+   * inheriting the value are updated by one small file write, without rewriting any module POM
+   *
+   * @param newVersion New version to be set as the revision property value
+   * @throws MojoExecutionException if the revision property cannot be located or updated
+   */
+  private void updateRevisionProperty(@NonNull String newVersion) throws MojoExecutionException {
+    Path rootDirectory = multiModuleProjectDirectory();
+    try {
+      RevisionProperty revision = RevisionProperty.locate(rootDirectory)
+          .orElseThrow(() -> new MojoExecutionException(String.format(
+              "POM version is %s but no revision property is defined in %s/.mvn/maven.config or %s/pom.xml",
+              RevisionProperty.PLACEHOLDER, rootDirectory, rootDirectory)));
+      revision.write(newVersion);
+      logInfo("Updated %s to %s", revision, newVersion);
+    } catch (IOException e) {
+      logError(e, "Failed to update revision property in %s", rootDirectory);
+      throw new MojoExecutionException(e);
+    }
   }
 }
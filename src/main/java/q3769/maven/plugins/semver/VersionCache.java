@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+
+/**
+ * Parsed SemVers by their text, kept for the life of the plugin's class loader, so that a
+ * long-lived class loader, such as the Maven Daemon's, answers repeated parses of the same version
+ * text across builds from memory. Versions are immutable, so a cached version never goes stale; the
+ * cache is simply emptied when it reaches its capacity.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionCache {
+  private static final int CAPACITY = 4096;
+  private static final Map<String, Version> PARSED = new ConcurrentHashMap<>();
+
+  private VersionCache() {}
+
+  /**
+   * @param version text to parse
+   * @return the parsed SemVer
+   * @throws com.github.zafarkhaja.semver.ParseException if the text is not a valid SemVer, in which
+   *     case nothing is cached
+   */
+  public static Version parse(@NonNull String version) {
+    Version parsed = PARSED.get(version);
+    if (parsed != null) {
+      return parsed;
+    }
+    parsed = Version.parse(version);
+    if (PARSED.size() >= CAPACITY) {
+      PARSED.clear();
+    }
+    PARSED.put(version, parsed);
+    return parsed;
+  }
+}
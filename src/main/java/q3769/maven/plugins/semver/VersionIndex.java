@@ -0,0 +1,334 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Immutable set of SemVers sorted by precedence, the same order as {@link Version#isHigherThan},
+ * held as primitive arrays: the major, minor and patch numbers of each version, and the ordinal of
+ * its pre-release among all distinct pre-releases of the set. It is built with one bulk sort, and
+ * answers "highest version in a range" and "next version after" with binary searches.
+ *
+ * <p>As precedence ignores build metadata, so does the index: versions differing only in build
+ * metadata are kept once, without it.
+ *
+ * <p>The index serializes to a compact file whose arrays are memory-mapped, rather than read, when
+ * loaded.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionIndex {
+  private static final int MAGIC = 0x53564958;
+  private static final int FORMAT = 1;
+  /** Ascending precedence; {@link Version#PRECEDENCE_ORDER} itself sorts highest first */
+  private static final Comparator<Version> ASCENDING = Version.PRECEDENCE_ORDER.reversed();
+
+  private final int size;
+  private final LongBuffer majors;
+  private final LongBuffer minors;
+  private final LongBuffer patches;
+  /** Per version: index into {@link #preReleases}, or its length for a normal version */
+  private final IntBuffer ordinals;
+  /** Distinct pre-releases of all versions, in ascending precedence */
+  private final String[] preReleases;
+
+  private VersionIndex(
+      int size,
+      LongBuffer majors,
+      LongBuffer minors,
+      LongBuffer patches,
+      IntBuffer ordinals,
+      String[] preReleases) {
+    this.size = size;
+    this.majors = majors;
+    this.minors = minors;
+    this.patches = patches;
+    this.ordinals = ordinals;
+    this.preReleases = preReleases;
+  }
+
+  /**
+   * @param versions to index, in any order, duplicates allowed
+   * @return index of the versions
+   */
+  public static VersionIndex of(@NonNull Collection<Version> versions) {
+    Version[] sorted = versions.toArray(new Version[0]);
+    Arrays.sort(sorted, ASCENDING);
+    TreeSet<String> distinctPreReleases = new TreeSet<>(VersionRange::comparePreReleases);
+    List<Version> distinct = new ArrayList<>(sorted.length);
+    for (Version version : sorted) {
+      if (distinct.isEmpty()
+          || ASCENDING.compare(distinct.get(distinct.size() - 1), version) != 0) {
+        distinct.add(version);
+        version.preReleaseVersion().ifPresent(distinctPreReleases::add);
+      }
+    }
+    String[] preReleases = distinctPreReleases.toArray(new String[0]);
+    int size = distinct.size();
+    long[] majors = new long[size];
+    long[] minors = new long[size];
+    long[] patches = new long[size];
+    int[] ordinals = new int[size];
+    for (int i = 0; i < size; i++) {
+      Version version = distinct.get(i);
+      majors[i] = version.majorVersion();
+      minors[i] = version.minorVersion();
+      patches[i] = version.patchVersion();
+      ordinals[i] = version
+          .preReleaseVersion()
+          .map(p -> Arrays.binarySearch(preReleases, p, VersionRange::comparePreReleases))
+          .orElse(preReleases.length);
+    }
+    return new VersionIndex(
+        size,
+        LongBuffer.wrap(majors),
+        LongBuffer.wrap(minors),
+        LongBuffer.wrap(patches),
+        IntBuffer.wrap(ordinals),
+        preReleases);
+  }
+
+  /**
+   * @param file written by {@link #write(Path)}
+   * @return index backed by the memory-mapped file
+   * @throws IOException if the file cannot be mapped or is not a version index
+   */
+  public static VersionIndex map(@NonNull Path file) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+        throw new IOException("Not a version index: " + file);
+      }
+      int size = buffer.getInt();
+      int preReleaseCount = buffer.getInt();
+      if (preReleaseCount > buffer.remaining() / Integer.BYTES) {
+        throw new BufferUnderflowException();
+      }
+      String[] preReleases = new String[preReleaseCount];
+      for (int i = 0; i < preReleases.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        preReleases[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+      buffer.position(align(buffer.position()));
+      LongBuffer majors = slice(buffer, size * Long.BYTES).asLongBuffer();
+      LongBuffer minors = slice(buffer, size * Long.BYTES).asLongBuffer();
+      LongBuffer patches = slice(buffer, size * Long.BYTES).asLongBuffer();
+      IntBuffer ordinals = slice(buffer, size * Integer.BYTES).asIntBuffer();
+      return new VersionIndex(size, majors, minors, patches, ordinals, preReleases);
+    } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt version index: " + file, e);
+    }
+  }
+
+  private static int align(int position) {
+    return (position + Long.BYTES - 1) & -Long.BYTES;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int length) {
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    ByteBuffer slice = buffer.slice();
+    slice.limit(length);
+    buffer.position(buffer.position() + length);
+    return slice;
+  }
+
+  /**
+   * @param file to write the index into, atomically replacing any existing file
+   * @throws IOException if the file cannot be written
+   */
+  public void write(@NonNull Path file) throws IOException {
+    byte[][] preReleaseBytes = new byte[preReleases.length][];
+    int headerLength = 4 * Integer.BYTES;
+    for (int i = 0; i < preReleases.length; i++) {
+      preReleaseBytes[i] = preReleases[i].getBytes(StandardCharsets.UTF_8);
+      headerLength += Integer.BYTES + preReleaseBytes[i].length;
+    }
+    ByteBuffer buffer =
+        ByteBuffer.allocate(align(headerLength) + size * (3 * Long.BYTES + Integer.BYTES));
+    buffer.putInt(MAGIC).putInt(FORMAT).putInt(size).putInt(preReleases.length);
+    for (byte[] bytes : preReleaseBytes) {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+    buffer.position(align(buffer.position()));
+    for (LongBuffer numbers : Arrays.asList(majors, minors, patches)) {
+      for (int i = 0; i < size; i++) {
+        buffer.putLong(numbers.get(i));
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.putInt(ordinals.get(i));
+    }
+    PomWriter.write(file, buffer.array());
+  }
+
+  /** @return number of distinct versions in the index */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param i position of the version, in ascending precedence
+   * @return the version at the position
+   */
+  public Version get(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+    }
+    String preRelease = preRelease(i);
+    return preRelease == null
+        ? Version.of(majors.get(i), minors.get(i), patches.get(i))
+        : Version.of(majors.get(i), minors.get(i), patches.get(i), preRelease);
+  }
+
+  /** @return the highest version of the index, if any */
+  public Optional<Version> highest() {
+    return size == 0 ? Optional.empty() : Optional.of(get(size - 1));
+  }
+
+  /**
+   * @param range to search
+   * @return the highest version of the index in the range, if any
+   */
+  public Optional<Version> highest(@NonNull VersionRange range) {
+    int highest = -1;
+    int setStart = 0;
+    for (int setEnd : range.setEnds()) {
+      int low = 0;
+      int high = size;
+      for (int comparator = setStart; comparator < setEnd; comparator++) {
+        switch (range.operator(comparator)) {
+          case VersionRange.LT:
+            high = Math.min(high, search(range, comparator, false));
+            break;
+          case VersionRange.LE:
+            high = Math.min(high, search(range, comparator, true));
+            break;
+          case VersionRange.GT:
+            low = Math.max(low, search(range, comparator, true));
+            break;
+          case VersionRange.GE:
+            low = Math.max(low, search(range, comparator, false));
+            break;
+          default:
+            low = Math.max(low, search(range, comparator, false));
+            high = Math.min(high, search(range, comparator, true));
+        }
+      }
+      if (low < high) {
+        highest = Math.max(highest, high - 1);
+      }
+      setStart = setEnd;
+    }
+    return highest < 0 ? Optional.empty() : Optional.of(get(highest));
+  }
+
+  /**
+   * @param version to search after, need not be in the index
+   * @return the lowest version of the index that is higher than the given version, if any
+   */
+  public Optional<Version> next(@NonNull Version version) {
+    long major = version.majorVersion();
+    long minor = version.minorVersion();
+    long patch = version.patchVersion();
+    String preRelease = version.preReleaseVersion().orElse(null);
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int c = Long.compare(majors.get(middle), major);
+      if (c == 0) {
+        c = Long.compare(minors.get(middle), minor);
+        if (c == 0) {
+          c = Long.compare(patches.get(middle), patch);
+          if (c == 0) {
+            c = VersionRange.comparePreReleases(preRelease(middle), preRelease);
+          }
+        }
+      }
+      if (c > 0) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low < size ? Optional.of(get(low)) : Optional.empty();
+  }
+
+  /**
+   * @param range containing the comparator
+   * @param comparator index in the range
+   * @param after true to find the first version above the comparator's bound, false to find the
+   *     first version at or above it
+   * @return position of the first such version, or the index size if none
+   */
+  private int search(VersionRange range, int comparator, boolean after) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int c = range.compareToBound(
+          comparator,
+          majors.get(middle),
+          minors.get(middle),
+          patches.get(middle),
+          preRelease(middle));
+      if (after ? c > 0 : c >= 0) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  private String preRelease(int i) {
+    int ordinal = ordinals.get(i);
+    return ordinal == preReleases.length ? null : preReleases[ordinal];
+  }
+}
@@ -0,0 +1,426 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+
+/**
+ * SemVer range expression, compiled once into flat arrays of primitive bound comparisons, so that
+ * evaluating a version against it allocates nothing. Compiled ranges are cached by expression for
+ * the life of the plugin's class loader.
+ *
+ * <p>An expression is one or more comparator sets separated by <code>||</code>; a version is in the
+ * range if it satisfies every comparator of any one set. Comparators within a set are separated by
+ * whitespace, and each is one of:
+ *
+ * <ul>
+ *   <li><code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>, <code>&gt;=</code> or <code>=
+ *       </code> followed by a version, e.g. <code>&gt;=1.4.0</code>
+ *   <li><code>^</code> followed by a version, allowing changes that do not modify the left-most
+ *       non-zero number, e.g. <code>^3.1</code> is <code>&gt;=3.1.0 &lt;4.0.0-0</code>
+ *   <li><code>~</code> followed by a version, allowing patch changes if the minor number is given,
+ *       e.g. <code>~1.2</code> is <code>&gt;=1.2.0 &lt;1.3.0-0</code>
+ *   <li>a bare version, meaning exactly that version, or, if partial, any version starting with it,
+ *       e.g. <code>1.2</code> is <code>&gt;=1.2.0 &lt;1.3.0-0</code>
+ *   <li><code>*</code>, meaning any version
+ * </ul>
+ *
+ * Versions may be partial, omitting the minor and patch numbers. Versions compare by SemVer
+ * precedence, so a pre-release is below its normal version, and <code>&lt;2.0.0-0</code> excludes
+ * all 2.0.0 pre-releases.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionRange {
+  private static final int CAPACITY = 1024;
+  private static final Map<String, VersionRange> COMPILED = new ConcurrentHashMap<>();
+
+  static final int LT = 0;
+  static final int LE = 1;
+  static final int GT = 2;
+  static final int GE = 3;
+  static final int EQ = 4;
+  private static final int STRIDE = 4;
+
+  private final String expression;
+  /** Per comparator: operator, major, minor, patch */
+  private final long[] bounds;
+  /** Per comparator: pre-release of the bound version, or null if none */
+  private final String[] preReleases;
+  /** Per comparator set: index of the comparator after its last */
+  private final int[] setEnds;
+
+  private VersionRange(String expression, long[] bounds, String[] preReleases, int[] setEnds) {
+    this.expression = expression;
+    this.bounds = bounds;
+    this.preReleases = preReleases;
+    this.setEnds = setEnds;
+  }
+
+  /**
+   * @param expression range expression to compile
+   * @return the compiled range, from cache if the same expression has been compiled before
+   * @throws IllegalArgumentException if the expression is malformed, in which case nothing is
+   *     cached
+   */
+  public static VersionRange compile(@NonNull String expression) {
+    VersionRange compiled = COMPILED.get(expression);
+    if (compiled != null) {
+      return compiled;
+    }
+    compiled = new Compiler(expression).compile();
+    if (COMPILED.size() >= CAPACITY) {
+      COMPILED.clear();
+    }
+    COMPILED.put(expression, compiled);
+    return compiled;
+  }
+
+  /**
+   * @param version to evaluate; its build metadata is ignored
+   * @return true if the version is in this range
+   */
+  public boolean contains(@NonNull Version version) {
+    return contains(
+        version.majorVersion(),
+        version.minorVersion(),
+        version.patchVersion(),
+        version.preReleaseVersion().orElse(null));
+  }
+
+  /**
+   * @param major number of the version to evaluate
+   * @param minor number of the version to evaluate
+   * @param patch number of the version to evaluate
+   * @param preRelease of the version to evaluate, or null if it is not a pre-release
+   * @return true if the version is in this range
+   */
+  public boolean contains(long major, long minor, long patch, String preRelease) {
+    int setStart = 0;
+    for (int setEnd : setEnds) {
+      boolean satisfied = true;
+      for (int comparator = setStart; satisfied && comparator < setEnd; comparator++) {
+        satisfied = satisfies(comparator, major, minor, patch, preRelease);
+      }
+      if (satisfied) {
+        return true;
+      }
+      setStart = setEnd;
+    }
+    return false;
+  }
+
+  private boolean satisfies(int comparator, long major, long minor, long patch, String preRelease) {
+    int c = compareToBound(comparator, major, minor, patch, preRelease);
+    switch (operator(comparator)) {
+      case LT:
+        return c < 0;
+      case LE:
+        return c <= 0;
+      case GT:
+        return c > 0;
+      case GE:
+        return c >= 0;
+      default:
+        return c == 0;
+    }
+  }
+
+  /** @return index of the comparator after the last of each comparator set; not to be modified */
+  int[] setEnds() {
+    return setEnds;
+  }
+
+  /**
+   * @param comparator index
+   * @return operator of the comparator, one of {@link #LT}, {@link #LE}, {@link #GT}, {@link #GE}
+   *     and {@link #EQ}
+   */
+  int operator(int comparator) {
+    return (int) bounds[comparator * STRIDE];
+  }
+
+  /**
+   * @param comparator index
+   * @param major number of the version to compare
+   * @param minor number of the version to compare
+   * @param patch number of the version to compare
+   * @param preRelease of the version to compare, or null if none
+   * @return negative, zero, or positive as the version is lower than, equal to, or higher than the
+   *     comparator's bound version
+   */
+  int compareToBound(int comparator, long major, long minor, long patch, String preRelease) {
+    int offset = comparator * STRIDE;
+    int c = Long.compare(major, bounds[offset + 1]);
+    if (c == 0) {
+      c = Long.compare(minor, bounds[offset + 2]);
+      if (c == 0) {
+        c = Long.compare(patch, bounds[offset + 3]);
+        if (c == 0) {
+          c = comparePreReleases(preRelease, preReleases[comparator]);
+        }
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Compares two pre-releases by SemVer precedence, identifier by identifier, in place
+   *
+   * @param p1 first pre-release, or null if none
+   * @param p2 second pre-release, or null if none
+   * @return negative, zero, or positive as the first is lower than, equal to, or higher than the
+   *     second
+   */
+  static int comparePreReleases(String p1, String p2) {
+    if (p1 == null || p2 == null) {
+      return p1 == null ? (p2 == null ? 0 : 1) : -1;
+    }
+    int i1 = 0;
+    int i2 = 0;
+    while (i1 < p1.length() && i2 < p2.length()) {
+      int end1 = identifierEnd(p1, i1);
+      int end2 = identifierEnd(p2, i2);
+      boolean numeric1 = isNumeric(p1, i1, end1);
+      boolean numeric2 = isNumeric(p2, i2, end2);
+      int c;
+      if (numeric1 && numeric2) {
+        c = Integer.compare(end1 - i1, end2 - i2);
+        if (c == 0) {
+          c = compareChars(p1, i1, p2, i2, end1 - i1);
+        }
+      } else if (numeric1 != numeric2) {
+        c = numeric1 ? -1 : 1;
+      } else {
+        int length = Math.min(end1 - i1, end2 - i2);
+        c = compareChars(p1, i1, p2, i2, length);
+        if (c == 0) {
+          c = Integer.compare(end1 - i1, end2 - i2);
+        }
+      }
+      if (c != 0) {
+        return c;
+      }
+      i1 = end1 + 1;
+      i2 = end2 + 1;
+    }
+    return Boolean.compare(i1 < p1.length(), i2 < p2.length());
+  }
+
+  private static int identifierEnd(String preRelease, int from) {
+    int end = preRelease.indexOf('.', from);
+    return end < 0 ? preRelease.length() : end;
+  }
+
+  private static boolean isNumeric(String text, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return to > from;
+  }
+
+  private static int compareChars(String s1, int from1, String s2, int from2, int length) {
+    for (int i = 0; i < length; i++) {
+      int c = Character.compare(s1.charAt(from1 + i), s2.charAt(from2 + i));
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  private static final class Compiler {
+    private final String expression;
+    private final List<long[]> bounds = new ArrayList<>();
+    private final List<String> preReleases = new ArrayList<>();
+    private final List<Integer> setEnds = new ArrayList<>();
+
+    Compiler(String expression) {
+      this.expression = expression;
+    }
+
+    VersionRange compile() {
+      for (String set : expression.split("\\|\\|", -1)) {
+        String trimmed = set.trim();
+        if (trimmed.isEmpty()) {
+          throw malformed("empty comparator set");
+        }
+        for (String comparator : trimmed.split("\\s+")) {
+          compileComparator(comparator);
+        }
+        setEnds.add(bounds.size());
+      }
+      long[] flatBounds = new long[bounds.size() * STRIDE];
+      for (int i = 0; i < bounds.size(); i++) {
+        System.arraycopy(bounds.get(i), 0, flatBounds, i * STRIDE, STRIDE);
+      }
+      return new VersionRange(
+          expression,
+          flatBounds,
+          preReleases.toArray(new String[0]),
+          setEnds.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private void compileComparator(String comparator) {
+      if (comparator.equals("*")) {
+        add(GE, 0, 0, 0, null);
+        return;
+      }
+      String operator = comparator.replaceFirst("^([<>]=?|=|\\^|~)?.*$", "$1");
+      Partial version = parse(comparator.substring(operator.length()), comparator);
+      switch (operator) {
+        case "<":
+          add(LT, version.major, version.minor, version.patch, version.preRelease);
+          break;
+        case ">=":
+          add(GE, version.major, version.minor, version.patch, version.preRelease);
+          break;
+        case ">":
+          if (version.given == 3) {
+            add(GT, version.major, version.minor, version.patch, version.preRelease);
+          } else {
+            addNextAsLowerBound(version);
+          }
+          break;
+        case "<=":
+          if (version.given == 3) {
+            add(LE, version.major, version.minor, version.patch, version.preRelease);
+          } else {
+            addNextAsUpperBound(version, version.given);
+          }
+          break;
+        case "^":
+          add(GE, version.major, version.minor, version.patch, version.preRelease);
+          int significant = version.major != 0 || version.given == 1
+              ? 1
+              : version.minor != 0 || version.given == 2 ? 2 : 3;
+          addNextAsUpperBound(version, significant);
+          break;
+        case "~":
+          add(GE, version.major, version.minor, version.patch, version.preRelease);
+          addNextAsUpperBound(version, version.given == 1 ? 1 : 2);
+          break;
+        default:
+          if (version.given == 3) {
+            add(EQ, version.major, version.minor, version.patch, version.preRelease);
+          } else {
+            add(GE, version.major, version.minor, version.patch, null);
+            addNextAsUpperBound(version, version.given);
+          }
+      }
+    }
+
+    /** Adds an exclusive upper bound just below the next version at the given position */
+    private void addNextAsUpperBound(Partial version, int position) {
+      if (position == 1) {
+        add(LT, version.major + 1, 0, 0, "0");
+      } else if (position == 2) {
+        add(LT, version.major, version.minor + 1, 0, "0");
+      } else {
+        add(LT, version.major, version.minor, version.patch + 1, "0");
+      }
+    }
+
+    /** Adds an inclusive lower bound at the next version after the given partial version */
+    private void addNextAsLowerBound(Partial version) {
+      if (version.given == 1) {
+        add(GE, version.major + 1, 0, 0, null);
+      } else {
+        add(GE, version.major, version.minor + 1, 0, null);
+      }
+    }
+
+    private void add(int operator, long major, long minor, long patch, String preRelease) {
+      bounds.add(new long[] {operator, major, minor, patch});
+      preReleases.add(preRelease);
+    }
+
+    private Partial parse(String version, String comparator) {
+      String normal = version;
+      String preRelease = null;
+      int plus = normal.indexOf('+');
+      if (plus >= 0) {
+        normal = normal.substring(0, plus);
+      }
+      int dash = normal.indexOf('-');
+      if (dash >= 0) {
+        preRelease = normal.substring(dash + 1);
+        normal = normal.substring(0, dash);
+        if (!preRelease.matches("[0-9A-Za-z-]+(\\.[0-9A-Za-z-]+)*")) {
+          throw malformed("invalid pre-release in '" + comparator + "'");
+        }
+      }
+      String[] numbers = normal.split("\\.", -1);
+      if (numbers.length > 3) {
+        throw malformed("invalid version in '" + comparator + "'");
+      }
+      long[] parsed = new long[3];
+      for (int i = 0; i < numbers.length; i++) {
+        if (!numbers[i].matches("0|[1-9][0-9]*")) {
+          throw malformed("invalid version in '" + comparator + "'");
+        }
+        parsed[i] = Long.parseLong(numbers[i]);
+      }
+      if (preRelease != null && numbers.length < 3) {
+        throw malformed("pre-release on partial version in '" + comparator + "'");
+      }
+      return new Partial(parsed[0], parsed[1], parsed[2], preRelease, numbers.length);
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+      return new IllegalArgumentException(
+          String.format("Malformed version range '%s': %s", expression, reason));
+    }
+  }
+
+  private static final class Partial {
+    final long major;
+    final long minor;
+    final long patch;
+    final String preRelease;
+    /** Number of the major, minor and patch numbers actually given */
+    final int given;
+
+    Partial(long major, long minor, long patch, String preRelease, int given) {
+      this.major = major;
+      this.minor = minor;
+      this.patch = patch;
+      this.preRelease = preRelease;
+      this.given = given;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.api;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.NormalVersion;
+
+/**
+ * Difference between the API signature lines of a baseline and a current build. As every signature
+ * line captures a class's or member's modifiers and erased types, a changed signature shows up as a
+ * removed line plus an added one.
+ *
+ * @author Qingtian Wang
+ */
+public final class ApiDiff {
+  private final SortedSet<String> removed;
+  private final SortedSet<String> added;
+
+  private ApiDiff(SortedSet<String> removed, SortedSet<String> added) {
+    this.removed = Collections.unmodifiableSortedSet(removed);
+    this.added = Collections.unmodifiableSortedSet(added);
+  }
+
+  /**
+   * @param baseline API signature lines of the baseline
+   * @param current API signature lines of the current build
+   * @return difference from the baseline to the current build
+   */
+  public static ApiDiff between(@NonNull Set<String> baseline, @NonNull Set<String> current) {
+    SortedSet<String> removed = new TreeSet<>(baseline);
+    removed.removeAll(current);
+    SortedSet<String> added = new TreeSet<>(current);
+    added.removeAll(baseline);
+    return new ApiDiff(removed, added);
+  }
+
+  /** @return signature lines in the baseline but not in the current build */
+  public SortedSet<String> getRemoved() {
+    return removed;
+  }
+
+  /** @return signature lines in the current build but not in the baseline */
+  public SortedSet<String> getAdded() {
+    return added;
+  }
+
+  /**
+   * @return MAJOR if any signature was removed or changed, MINOR if signatures were only added,
+   *     otherwise PATCH
+   */
+  public NormalVersion requiredIncrement() {
+    if (!removed.isEmpty()) {
+      return NormalVersion.MAJOR;
+    }
+    return added.isEmpty() ? NormalVersion.PATCH : NormalVersion.MINOR;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.state.ContentHasher;
+import q3769.maven.plugins.semver.state.Hashes;
+import q3769.maven.plugins.semver.state.StateDirectory;
+
+/**
+ * Collects the public API signature lines of all classes in a compiled classes directory or a jar.
+ * Class files are parsed in parallel. Since a released jar never changes, the signatures of a jar
+ * can be cached in a project's <code>.semver</code> directory, keyed by the SHA-256 of the jar.
+ *
+ * @author Qingtian Wang
+ */
+public final class ApiSignatures {
+  private static final String CLASS_SUFFIX = ".class";
+  private static final String CACHE_DIRECTORY = "api";
+
+  private ApiSignatures() {}
+
+  /**
+   * @param classesDirectory compiled classes directory, e.g. <code>target/classes</code>
+   * @return sorted API signature lines of all classes in the directory
+   * @throws IOException if any class file cannot be read
+   */
+  public static SortedSet<String> ofClasses(@NonNull Path classesDirectory) throws IOException {
+    List<Path> classFiles;
+    try (Stream<Path> walk = Files.walk(classesDirectory)) {
+      classFiles = walk.filter(p -> p.toString().endsWith(CLASS_SUFFIX))
+          .filter(Files::isRegularFile)
+          .collect(Collectors.toList());
+    }
+    try {
+      return classFiles.parallelStream()
+          .flatMap(file -> ClassFileApi.read(readAllBytes(file)).stream())
+          .collect(Collectors.toCollection(TreeSet::new));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @param jar to read
+   * @return sorted API signature lines of all classes in the jar
+   * @throws IOException if the jar cannot be read
+   */
+  public static SortedSet<String> ofJar(@NonNull Path jar) throws IOException {
+    try (ZipFile zip = new ZipFile(jar.toFile())) {
+      List<ZipEntry> classEntries = zip.stream()
+          .filter(e -> !e.isDirectory() && e.getName().endsWith(CLASS_SUFFIX))
+          .filter(e -> !e.getName().startsWith("META-INF/"))
+          .collect(Collectors.toList());
+      return classEntries.parallelStream()
+          .flatMap(entry -> ClassFileApi.read(readAllBytes(zip, entry)).stream())
+          .collect(Collectors.toCollection(TreeSet::new));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @param jar to read
+   * @param projectDirectory whose <code>.semver</code> directory holds the cache
+   * @return sorted API signature lines of all classes in the jar, from the cache if the same jar
+   *     content has been read before
+   * @throws IOException if the jar or the cache cannot be read or written
+   */
+  public static SortedSet<String> ofJar(@NonNull Path jar, @NonNull Path projectDirectory)
+      throws IOException {
+    String jarHash = Hashes.hex(ContentHasher.hashFile(jar));
+    Path cached = StateDirectory.resolve(projectDirectory, CACHE_DIRECTORY).resolve(jarHash);
+    if (Files.isRegularFile(cached)) {
+      return new TreeSet<>(Files.readAllLines(cached, StandardCharsets.UTF_8));
+    }
+    SortedSet<String> signatures = ofJar(jar);
+    StringBuilder content = new StringBuilder();
+    signatures.forEach(signature -> content.append(signature).append('\n'));
+    Files.createDirectories(cached.getParent());
+    PomWriter.write(cached, content.toString());
+    return signatures;
+  }
+
+  private static byte[] readAllBytes(Path file) {
+    try {
+      return Files.readAllBytes(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] readAllBytes(ZipFile zip, ZipEntry entry) {
+    try (InputStream in = zip.getInputStream(entry)) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
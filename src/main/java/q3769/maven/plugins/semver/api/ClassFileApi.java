@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.api;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.NonNull;
+
+/**
+ * Reads the public API of a compiled class straight from its class file bytes, without loading the
+ * class or pulling in a bytecode library. Only the constant pool entries and the class, field and
+ * method headers are decoded; attributes such as code are skipped over.
+ *
+ * <p>The API is rendered as signature lines: one for the class itself with its kind and modifiers,
+ * one for its superclass, one per implemented interface, and one per accessible field or method
+ * with its modifiers and erased descriptor. A change to any of these shows up as one line removed
+ * and another added.
+ *
+ * @author Qingtian Wang
+ */
+final class ClassFileApi {
+  private static final int MAGIC = 0xCAFEBABE;
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PROTECTED = 0x0004;
+  private static final int ACC_STATIC = 0x0008;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_BRIDGE_OR_VOLATILE = 0x0040;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ABSTRACT = 0x0400;
+  private static final int ACC_SYNTHETIC = 0x1000;
+  private static final int ACC_ANNOTATION = 0x2000;
+  private static final int ACC_ENUM = 0x4000;
+  private static final int ACC_MODULE = 0x8000;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private ClassFileApi() {}
+
+  /**
+   * @param classFile bytes of the class file
+   * @return API signature lines of the class, empty if the class is not part of the public API
+   * @throws IllegalArgumentException if the bytes are not a well-formed class file
+   */
+  static List<String> read(@NonNull byte[] classFile) {
+    try {
+      return read(ByteBuffer.wrap(classFile));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Malformed class file", e);
+    }
+  }
+
+  private static List<String> read(ByteBuffer in) {
+    if (in.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a class file");
+    }
+    in.getShort();
+    in.getShort();
+    String[] utf8 = new String[in.getShort() & 0xFFFF];
+    int[] classNames = new int[utf8.length];
+    for (int i = 1; i < utf8.length; i++) {
+      int tag = in.get() & 0xFF;
+      switch (tag) {
+        case CONSTANT_UTF8:
+          utf8[i] = readUtf8(in);
+          break;
+        case CONSTANT_CLASS:
+          classNames[i] = in.getShort() & 0xFFFF;
+          break;
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          skip(in, 2);
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          skip(in, 3);
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+        case CONSTANT_FIELDREF:
+        case CONSTANT_METHODREF:
+        case CONSTANT_INTERFACE_METHODREF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          skip(in, 4);
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          skip(in, 8);
+          i++;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+      }
+    }
+    int access = in.getShort() & 0xFFFF;
+    String name = utf8[classNames[in.getShort() & 0xFFFF]];
+    int superIndex = in.getShort() & 0xFFFF;
+    List<String> api = new ArrayList<>();
+    if ((access & ACC_PUBLIC) == 0
+        || (access & (ACC_SYNTHETIC | ACC_MODULE)) != 0
+        || name.endsWith("/package-info")) {
+      return api;
+    }
+    api.add(name + " class " + classModifiers(access));
+    if (superIndex != 0) {
+      api.add(name + " extends " + utf8[classNames[superIndex]]);
+    }
+    int interfaces = in.getShort() & 0xFFFF;
+    for (int i = 0; i < interfaces; i++) {
+      api.add(name + " implements " + utf8[classNames[in.getShort() & 0xFFFF]]);
+    }
+    boolean extensible = (access & ACC_FINAL) == 0;
+    readMembers(in, utf8, name + " field ", extensible, false, api);
+    readMembers(in, utf8, name + " method ", extensible, true, api);
+    return api;
+  }
+
+  private static void readMembers(
+      ByteBuffer in,
+      String[] utf8,
+      String prefix,
+      boolean extensible,
+      boolean methods,
+      List<String> api) {
+    int count = in.getShort() & 0xFFFF;
+    for (int i = 0; i < count; i++) {
+      int access = in.getShort() & 0xFFFF;
+      String name = utf8[in.getShort() & 0xFFFF];
+      String descriptor = utf8[in.getShort() & 0xFFFF];
+      skipAttributes(in);
+      boolean accessible =
+          (access & ACC_PUBLIC) != 0 || (extensible && (access & ACC_PROTECTED) != 0);
+      boolean synthetic =
+          (access & ACC_SYNTHETIC) != 0 || (methods && (access & ACC_BRIDGE_OR_VOLATILE) != 0);
+      if (accessible && !synthetic && !"<clinit>".equals(name)) {
+        api.add(prefix + memberModifiers(access, methods) + name + descriptor);
+      }
+    }
+  }
+
+  private static String classModifiers(int access) {
+    StringBuilder modifiers = new StringBuilder();
+    if ((access & ACC_ANNOTATION) != 0) {
+      modifiers.append("@interface");
+    } else if ((access & ACC_INTERFACE) != 0) {
+      modifiers.append("interface");
+    } else if ((access & ACC_ENUM) != 0) {
+      modifiers.append("enum");
+    } else {
+      modifiers.append((access & ACC_ABSTRACT) != 0 ? "abstract class" : "class");
+    }
+    if ((access & ACC_FINAL) != 0) {
+      modifiers.append(" final");
+    }
+    return modifiers.toString();
+  }
+
+  private static String memberModifiers(int access, boolean method) {
+    StringBuilder modifiers = new StringBuilder();
+    modifiers.append((access & ACC_PUBLIC) != 0 ? "public " : "protected ");
+    if ((access & ACC_STATIC) != 0) {
+      modifiers.append("static ");
+    }
+    if ((access & ACC_FINAL) != 0) {
+      modifiers.append("final ");
+    }
+    if (method && (access & ACC_ABSTRACT) != 0) {
+      modifiers.append("abstract ");
+    }
+    return modifiers.toString();
+  }
+
+  private static void skipAttributes(ByteBuffer in) {
+    int count = in.getShort() & 0xFFFF;
+    for (int i = 0; i < count; i++) {
+      in.getShort();
+      skip(in, in.getInt());
+    }
+  }
+
+  private static void skip(ByteBuffer in, int bytes) {
+    in.position(in.position() + bytes);
+  }
+
+  /** Decodes the modified UTF-8 of class files, which needs no more than 3 bytes per char */
+  private static String readUtf8(ByteBuffer in) {
+    int length = in.getShort() & 0xFFFF;
+    StringBuilder decoded = new StringBuilder(length);
+    int end = in.position() + length;
+    while (in.position() < end) {
+      int b = in.get() & 0xFF;
+      if (b < 0x80) {
+        decoded.append((char) b);
+      } else if ((b & 0xE0) == 0xC0) {
+        decoded.append((char) (((b & 0x1F) << 6) | (in.get() & 0x3F)));
+      } else {
+        decoded.append((char) (((b & 0x0F) << 12) | ((in.get() & 0x3F) << 6) | (in.get() & 0x3F)));
+      }
+    }
+    return decoded.toString();
+  }
+}
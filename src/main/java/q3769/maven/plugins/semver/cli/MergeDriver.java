@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.cli;
+
+import com.github.zafarkhaja.semver.ParseException;
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.mojos.MergeRules;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomElement;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Git merge driver for POM files, resolving the conflict of a project version bumped on both sides
+ * of a merge. When both sides changed the version differently, the merged version is decided by the
+ * rules of the <code>merge</code> goal (or <code>merge-calendar</code> with <code>--calendar</code>
+ * ), taking "ours" as the current version and "theirs" as the other, and the project version
+ * element of all three POMs is set to it. The rest of the file is handed back to <code>
+ * git merge-file</code>, so any other conflict is left to be resolved as usual; if the version was
+ * the only difference, Git is not invoked at all. Nothing but the POM files is read, so a run takes
+ * tens of milliseconds.
+ *
+ * <p>Usage, in <code>.git/config</code> and <code>.gitattributes</code> respectively:
+ *
+ * <pre>
+ * [merge "semver"]
+ *     driver = java -cp semver-maven-plugin.jar:java-semver.jar q3769.maven.plugins.semver.cli.MergeDriver %O %A %B %L %P
+ *
+ * pom.xml merge=semver
+ * </pre>
+ *
+ * @author Qingtian Wang
+ */
+public final class MergeDriver {
+  static final int CLEAN = 0;
+  static final int CONFLICTED = 1;
+  static final int FAILED = 2;
+  private static final String CALENDAR = "--calendar";
+  private static final String USAGE = "Usage: java -cp <classpath> "
+      + MergeDriver.class.getName()
+      + " [--calendar] <base> <ours> <theirs> [marker-size [path]]";
+
+  private MergeDriver() {}
+
+  /**
+   * @param args optional <code>--calendar</code>, then the base, ours and theirs files as in Git's
+   *     <code>%O %A %B</code>, and optionally the conflict marker size and the path of the merged
+   *     file as in <code>%L %P</code>. The merge result is written to the ours file.
+   */
+  public static void main(String[] args) {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    boolean calendar = arguments.remove(CALENDAR);
+    if (arguments.size() < 3 || arguments.size() > 5) {
+      System.err.println(USAGE);
+      System.exit(FAILED);
+    }
+    int status;
+    try {
+      status = merge(
+          Paths.get(arguments.get(0)),
+          Paths.get(arguments.get(1)),
+          Paths.get(arguments.get(2)),
+          arguments.size() > 3 ? Integer.parseInt(arguments.get(3)) : 7,
+          arguments.size() > 4 ? arguments.get(4) : null,
+          calendar ? Instant.now() : null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = FAILED;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to merge " + arguments + ": " + e);
+      status = FAILED;
+    }
+    System.exit(status);
+  }
+
+  /**
+   * @param base common ancestor version of the POM
+   * @param ours current branch's version of the POM, overwritten with the merge result
+   * @param theirs other branch's version of the POM
+   * @param markerSize length of the conflict markers left for unresolved conflicts
+   * @param path of the merged file in the repository, to label conflicts with, if known
+   * @param calendarNow the instant to merge versions in calendar style against, or null to merge by
+   *     the rules of the <code>merge</code> goal
+   * @return {@link #CLEAN} if merged without conflicts, {@link #CONFLICTED} if conflicts are left
+   *     in the ours file, or {@link #FAILED}
+   * @throws IOException if any file cannot be read or written, or Git cannot be run
+   * @throws InterruptedException if interrupted while waiting for Git
+   */
+  static int merge(
+      @NonNull Path base,
+      @NonNull Path ours,
+      @NonNull Path theirs,
+      int markerSize,
+      String path,
+      Instant calendarNow)
+      throws IOException, InterruptedException {
+    PomDocument baseDocument = PomDocument.read(base);
+    PomDocument oursDocument = PomDocument.read(ours);
+    PomDocument theirsDocument = PomDocument.read(theirs);
+    Optional<String> merged = mergedVersion(
+        baseDocument.findProjectVersion().map(baseDocument::valueOf).orElse(null),
+        oursDocument.findProjectVersion().map(oursDocument::valueOf).orElse(null),
+        theirsDocument.findProjectVersion().map(theirsDocument::valueOf).orElse(null),
+        calendarNow);
+    if (!merged.isPresent()) {
+      return mergeFile(ours, base, theirs, markerSize, path);
+    }
+    String baseText = withProjectVersion(baseDocument, merged.get());
+    String oursText = withProjectVersion(oursDocument, merged.get());
+    String theirsText = withProjectVersion(theirsDocument, merged.get());
+    if (theirsText.equals(baseText) || theirsText.equals(oursText)) {
+      PomWriter.write(ours, oursText);
+      return CLEAN;
+    }
+    if (oursText.equals(baseText)) {
+      PomWriter.write(ours, theirsText);
+      return CLEAN;
+    }
+    Path baseCopy = Files.createTempFile("semver-merge-base", ".xml");
+    Path theirsCopy = Files.createTempFile("semver-merge-theirs", ".xml");
+    try {
+      Files.write(baseCopy, baseText.getBytes(StandardCharsets.UTF_8));
+      Files.write(theirsCopy, theirsText.getBytes(StandardCharsets.UTF_8));
+      PomWriter.write(ours, oursText);
+      return mergeFile(ours, baseCopy, theirsCopy, markerSize, path);
+    } finally {
+      Files.deleteIfExists(baseCopy);
+      Files.deleteIfExists(theirsCopy);
+    }
+  }
+
+  /**
+   * @param base project version of the common ancestor, if any
+   * @param ours project version of the current branch, if any
+   * @param theirs project version of the other branch, if any
+   * @param calendarNow the instant to merge in calendar style against, or null
+   * @return the merged version, if both branches changed the version to different SemVers that the
+   *     merge rules can resolve, otherwise empty to leave the version to Git
+   */
+  static Optional<String> mergedVersion(
+      String base, String ours, String theirs, Instant calendarNow) {
+    if (ours == null || theirs == null || ours.equals(theirs)) {
+      return Optional.empty();
+    }
+    if (ours.equals(base) || theirs.equals(base)) {
+      return Optional.empty();
+    }
+    try {
+      Version current = Version.parse(ours.trim());
+      Version other = Version.parse(theirs.trim());
+      return Optional.of((calendarNow == null
+              ? MergeRules.merge(current, other)
+              : MergeRules.mergeCalendar(current, other, calendarNow))
+          .toString());
+    } catch (ParseException | IllegalArgumentException | UnsupportedOperationException e) {
+      System.err.println("Version conflict left to Git: " + e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private static String withProjectVersion(PomDocument document, String version) {
+    Optional<PomElement> element = document.findProjectVersion();
+    return element.isPresent() ? document.withValue(element.get(), version) : document.getContent();
+  }
+
+  private static int mergeFile(Path ours, Path base, Path theirs, int markerSize, String path)
+      throws IOException, InterruptedException {
+    String suffix = path == null ? "" : ":" + path;
+    Process git = new ProcessBuilder(
+            "git",
+            "merge-file",
+            "--marker-size=" + markerSize,
+            "-L",
+            "ours" + suffix,
+            "-L",
+            "base" + suffix,
+            "-L",
+            "theirs" + suffix,
+            ours.toString(),
+            base.toString(),
+            theirs.toString())
+        .inheritIO()
+        .start();
+    int conflicts = git.waitFor();
+    if (conflicts == 0) {
+      return CLEAN;
+    }
+    return conflicts < 128 ? CONFLICTED : FAILED;
+  }
+}
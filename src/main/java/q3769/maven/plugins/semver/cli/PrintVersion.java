@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import q3769.maven.plugins.semver.state.VersionState;
+
+/**
+ * Standalone fast path to print a project's current version, without starting Maven: the version is
+ * answered from the <code>.semver/state</code> file kept by the update goals, after a stat check of
+ * the POM, falling back to a streaming read of the POM if the state is stale or absent.
+ *
+ * <p>Usage: <code>java -jar semver-maven-plugin.jar [project-directory]</code>
+ *
+ * @author Qingtian Wang
+ */
+public final class PrintVersion {
+
+  private PrintVersion() {}
+
+  /** @param args optional project directory, defaulting to the current working directory */
+  public static void main(String[] args) {
+    if (args.length > 1) {
+      System.err.println("Usage: java -jar semver-maven-plugin.jar [project-directory]");
+      System.exit(2);
+    }
+    Path projectDirectory = Paths.get(args.length == 1 ? args[0] : ".").toAbsolutePath();
+    try {
+      System.out.println(VersionState.currentVersion(projectDirectory));
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to read version of project in " + projectDirectory + ": " + e);
+      System.exit(1);
+    }
+  }
+}
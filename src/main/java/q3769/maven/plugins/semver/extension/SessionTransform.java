@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.extension;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import q3769.maven.plugins.semver.Updater;
+import q3769.maven.plugins.semver.VersionCache;
+import q3769.maven.plugins.semver.mojos.Updaters;
+
+/**
+ * Version transform of one Maven session, computed once from the top-level project's version and
+ * shared by the {@link VersionTransformModelProcessor}, which applies it to the raw models as they
+ * are read, and the {@link VersionTransformExtension}, which completes it once the reactor is read.
+ * Kept in the session's repository session data, so a long-lived class loader, such as the Maven
+ * Daemon's, computes it anew for each build.
+ *
+ * @author Qingtian Wang
+ */
+final class SessionTransform {
+  private static final Logger LOG = LoggerFactory.getLogger(SessionTransform.class);
+
+  private final String transform;
+  private final String oldVersion;
+  private final String newVersion;
+  private final Set<Path> rewrittenPoms = ConcurrentHashMap.newKeySet();
+  private final List<Path> consumerPoms = new ArrayList<>();
+
+  private SessionTransform(String transform, String oldVersion, String newVersion) {
+    this.transform = transform;
+    this.oldVersion = oldVersion;
+    this.newVersion = newVersion;
+  }
+
+  /**
+   * @param session the build
+   * @return all properties of the session, user properties overriding system properties
+   */
+  static Properties propertiesOf(MavenSession session) {
+    Properties properties = new Properties();
+    properties.putAll(session.getSystemProperties());
+    properties.putAll(session.getUserProperties());
+    return properties;
+  }
+
+  /**
+   * @param session the build
+   * @return the session's transform if already computed
+   */
+  static Optional<SessionTransform> computed(MavenSession session) {
+    return Optional.ofNullable(
+        (SessionTransform) session.getRepositorySession().getData().get(SessionTransform.class));
+  }
+
+  /**
+   * @param session the build
+   * @param topLevelProject supplying the project whose version to transform, only called if the
+   *     transform is not yet computed
+   * @return the session's transform, computed on first call; empty if no transform is requested
+   * @throws MavenExecutionException if the transform fails
+   */
+  static synchronized Optional<SessionTransform> of(
+      MavenSession session, Supplier<MavenProject> topLevelProject) throws MavenExecutionException {
+    Properties properties = propertiesOf(session);
+    String transform = properties.getProperty(VersionTransformExtension.TRANSFORM);
+    if (StringUtils.isBlank(transform)) {
+      return Optional.empty();
+    }
+    Optional<SessionTransform> computed = computed(session);
+    if (computed.isPresent()) {
+      return computed;
+    }
+    MavenProject project = topLevelProject.get();
+    String oldVersion = project.getVersion();
+    SessionTransform sessionTransform = new SessionTransform(
+        transform, oldVersion, transform(transform, properties, project, session));
+    session.getRepositorySession().getData().set(SessionTransform.class, sessionTransform);
+    return Optional.of(sessionTransform);
+  }
+
+  private static String transform(
+      String transform, Properties properties, MavenProject project, MavenSession session)
+      throws MavenExecutionException {
+    try {
+      Updater updater = Updaters.create(transform, properties);
+      updater.setLog(new Slf4jLog(LOG));
+      updater.setExecutionContext(project, session);
+      return updater.getUpdatedVersion(VersionCache.parse(project.getVersion())).toString();
+    } catch (MojoFailureException | RuntimeException e) {
+      throw new MavenExecutionException(
+          String.format(
+              "Failed to apply %s=%s to version %s: %s",
+              VersionTransformExtension.TRANSFORM, transform, project.getVersion(), e.getMessage()),
+          e);
+    }
+  }
+
+  /** @return name of the update goal whose transform is applied */
+  String getTransform() {
+    return transform;
+  }
+
+  /** @return version of the top-level project before the transform */
+  String getOldVersion() {
+    return oldVersion;
+  }
+
+  /** @return version of the top-level project after the transform */
+  String getNewVersion() {
+    return newVersion;
+  }
+
+  /** @return true if the transform leaves the version as is */
+  boolean isIdentity() {
+    return oldVersion.equals(newVersion);
+  }
+
+  /** @param pom file whose raw model got the new version before interpolation */
+  void recordRewritten(Path pom) {
+    rewrittenPoms.add(pom.toAbsolutePath().normalize());
+  }
+
+  /**
+   * @param pom file of a reactor project
+   * @return true if the project's raw model got the new version before interpolation
+   */
+  boolean isRewritten(File pom) {
+    return pom != null && rewrittenPoms.contains(pom.toPath().toAbsolutePath().normalize());
+  }
+
+  /** @param consumerPom written for this session, to be deleted once the session ends */
+  synchronized void recordConsumerPom(Path consumerPom) {
+    consumerPoms.add(consumerPom);
+  }
+
+  /** @return consumer POMs written for this session */
+  synchronized List<Path> getConsumerPoms() {
+    return new ArrayList<>(consumerPoms);
+  }
+}
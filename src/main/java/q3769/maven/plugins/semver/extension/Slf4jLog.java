@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.extension;
+
+import org.apache.maven.plugin.logging.Log;
+import org.slf4j.Logger;
+
+/**
+ * Mojo log writing to the SLF4J logger of Maven core, for goals' updates applied outside of a mojo
+ * execution
+ *
+ * @author Qingtian Wang
+ */
+final class Slf4jLog implements Log {
+  private final Logger logger;
+
+  Slf4jLog(Logger logger) {
+    this.logger = logger;
+  }
+
+  private static String toString(CharSequence content) {
+    return content == null ? null : content.toString();
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    return logger.isDebugEnabled();
+  }
+
+  @Override
+  public void debug(CharSequence content) {
+    logger.debug(toString(content));
+  }
+
+  @Override
+  public void debug(CharSequence content, Throwable error) {
+    logger.debug(toString(content), error);
+  }
+
+  @Override
+  public void debug(Throwable error) {
+    logger.debug("", error);
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    return logger.isInfoEnabled();
+  }
+
+  @Override
+  public void info(CharSequence content) {
+    logger.info(toString(content));
+  }
+
+  @Override
+  public void info(CharSequence content, Throwable error) {
+    logger.info(toString(content), error);
+  }
+
+  @Override
+  public void info(Throwable error) {
+    logger.info("", error);
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    return logger.isWarnEnabled();
+  }
+
+  @Override
+  public void warn(CharSequence content) {
+    logger.warn(toString(content));
+  }
+
+  @Override
+  public void warn(CharSequence content, Throwable error) {
+    logger.warn(toString(content), error);
+  }
+
+  @Override
+  public void warn(Throwable error) {
+    logger.warn("", error);
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    return logger.isErrorEnabled();
+  }
+
+  @Override
+  public void error(CharSequence content) {
+    logger.error(toString(content));
+  }
+
+  @Override
+  public void error(CharSequence content, Throwable error) {
+    logger.error(toString(content), error);
+  }
+
+  @Override
+  public void error(Throwable error) {
+    logger.error("", error);
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.extension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomElement;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.pom.VersionReference;
+
+/**
+ * Maven core extension, loaded through <code>.mvn/extensions.xml</code>, that applies the version
+ * transform of an update goal to the whole reactor in memory, so that the build produces artifacts
+ * of the computed version without any POM being rewritten or a second Maven invocation. The goal is
+ * named by the <code>semver.transform</code> property, e.g. <code>
+ * -Dsemver.transform=calendar-minor</code>, and takes its other parameters from the same properties
+ * as on the CLI, e.g. <code>-Dsemver=1.2.3</code> for <code>merge</code>. Without the property, the
+ * extension does nothing.
+ *
+ * <p>The new version is computed once per session from the top-level project's version. The
+ * {@link VersionTransformModelProcessor} sets it on the raw models of the reactor's POM files as
+ * they are read, before interpolation, so that <code>${project.version}</code> resolves to it
+ * everywhere. Once the reactor is read, this participant sets it on every reactor project still of
+ * the old version - e.g. one whose version is the CI-friendly <code>${revision}</code>, resolved
+ * only after interpolation - along with the parent and dependency references to the changed
+ * projects. With <code>-Dsemver.consumerPom</code>, each changed project's POM, with its versions
+ * rewritten, is also written next to the original as <code>.semver-pom.xml</code> and used as the
+ * project file, so that installed and deployed POMs carry the new version, too; the consumer POMs
+ * are deleted when the session ends.
+ *
+ * @author Qingtian Wang
+ */
+@Named("semver")
+@Singleton
+public class VersionTransformExtension extends AbstractMavenLifecycleParticipant {
+  /** Property naming the update goal whose transform to apply */
+  public static final String TRANSFORM = "semver.transform";
+
+  /** Property flagging to write consumer POMs carrying the new version */
+  public static final String CONSUMER_POM = "semver.consumerPom";
+
+  /** File name of the consumer POMs */
+  public static final String CONSUMER_POM_FILE_NAME = ".semver-pom.xml";
+
+  private static final Logger LOG = LoggerFactory.getLogger(VersionTransformExtension.class);
+
+  private static String coordinates(String groupId, String artifactId) {
+    return groupId + ':' + artifactId;
+  }
+
+  @Override
+  public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+    Optional<SessionTransform> computed = SessionTransform.of(session, session::getTopLevelProject);
+    if (!computed.isPresent()) {
+      return;
+    }
+    SessionTransform transform = computed.get();
+    String oldVersion = transform.getOldVersion();
+    String newVersion = transform.getNewVersion();
+    if (transform.isIdentity()) {
+      LOG.info("Version {} unchanged by {}", oldVersion, transform.getTransform());
+      return;
+    }
+    Map<String, MavenProject> changed = new HashMap<>();
+    for (MavenProject project : session.getProjects()) {
+      if (oldVersion.equals(project.getVersion()) || transform.isRewritten(project.getFile())) {
+        changed.put(coordinates(project.getGroupId(), project.getArtifactId()), project);
+      }
+    }
+    for (MavenProject project : session.getProjects()) {
+      apply(project, changed, oldVersion, newVersion);
+    }
+    LOG.info(
+        "Version {} of {} reactor project(s) set to {} by {}, in memory",
+        oldVersion,
+        changed.size(),
+        newVersion,
+        transform.getTransform());
+    if (Boolean.parseBoolean(SessionTransform.propertiesOf(session).getProperty(CONSUMER_POM))) {
+      writeConsumerPoms(transform, changed, session.getProjects());
+    }
+  }
+
+  @Override
+  public void afterSessionEnd(MavenSession session) {
+    if (session.getRepositorySession() == null) {
+      return;
+    }
+    for (Path consumerPom : SessionTransform.computed(session)
+        .map(SessionTransform::getConsumerPoms)
+        .orElse(Collections.emptyList())) {
+      try {
+        Files.deleteIfExists(consumerPom);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete consumer POM {}: {}", consumerPom, e.toString());
+      }
+    }
+  }
+
+  private static void apply(
+      MavenProject project,
+      Map<String, MavenProject> changed,
+      String oldVersion,
+      String newVersion) {
+    if (changed.containsKey(coordinates(project.getGroupId(), project.getArtifactId()))) {
+      project.setVersion(newVersion);
+      if (project.getArtifact() != null) {
+        project.getArtifact().setVersion(newVersion);
+      }
+    }
+    Parent parent = project.getModel().getParent();
+    if (parent != null
+        && oldVersion.equals(parent.getVersion())
+        && changed.containsKey(coordinates(parent.getGroupId(), parent.getArtifactId()))) {
+      parent.setVersion(newVersion);
+    }
+    apply(project.getDependencies(), changed, oldVersion, newVersion);
+    if (project.getDependencyManagement() != null) {
+      apply(project.getDependencyManagement().getDependencies(), changed, oldVersion, newVersion);
+    }
+  }
+
+  private static void apply(
+      List<Dependency> dependencies,
+      Map<String, MavenProject> changed,
+      String oldVersion,
+      String newVersion) {
+    for (Dependency dependency : dependencies) {
+      if (oldVersion.equals(dependency.getVersion())
+          && changed.containsKey(
+              coordinates(dependency.getGroupId(), dependency.getArtifactId()))) {
+        dependency.setVersion(newVersion);
+      }
+    }
+  }
+
+  private static void writeConsumerPoms(
+      SessionTransform transform, Map<String, MavenProject> changed, List<MavenProject> projects)
+      throws MavenExecutionException {
+    String oldVersion = transform.getOldVersion();
+    String newVersion = transform.getNewVersion();
+    for (MavenProject project : projects) {
+      Path pom = project.getFile().toPath();
+      try {
+        PomDocument document = PomDocument.read(pom);
+        Map<PomElement, String> newValues = new HashMap<>();
+        document
+            .findProjectVersion()
+            .filter(element -> oldVersion.equals(document.valueOf(element)))
+            .ifPresent(element -> newValues.put(element, newVersion));
+        for (VersionReference reference : document.findVersionReferences(pom)) {
+          if (oldVersion.equals(reference.getVersion())
+              && changed.containsKey(reference.getCoordinates())) {
+            newValues.put(reference.getElement(), newVersion);
+          }
+        }
+        if (newValues.isEmpty()) {
+          continue;
+        }
+        Path consumerPom = pom.resolveSibling(CONSUMER_POM_FILE_NAME);
+        PomWriter.write(consumerPom, document.withValues(newValues));
+        transform.recordConsumerPom(consumerPom);
+        project.setFile(consumerPom.toFile());
+      } catch (IOException | IllegalArgumentException e) {
+        throw new MavenExecutionException("Failed to write consumer POM of " + pom, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.building.DefaultModelProcessor;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.plugin.LegacySupport;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.sisu.Typed;
+import q3769.maven.plugins.semver.VersionCache;
+import q3769.maven.plugins.semver.pom.PomDocument;
+
+/**
+ * Model processor applying the session's version transform to the raw models of the reactor's POM
+ * files as they are read, i.e. before inheritance and interpolation, so that everything derived
+ * from <code>${project.version}</code> - the final name of the built artifacts, properties, plugin
+ * configuration - takes the new version. Replaces Maven's default model processor when the plugin
+ * is loaded as a core extension, and reads every model through it.
+ *
+ * <p>Only POM files under the session's multi-module project directory, and outside the local
+ * repository, are changed: the project version if it is the top-level project's literal version,
+ * and the parent reference to a POM file of the same tree at that version. If the top-level
+ * project's version is not a literal SemVer, e.g. a CI-friendly <code>${revision}</code>, nothing
+ * is changed here, and the {@link VersionTransformExtension} applies the transform after
+ * interpolation instead.
+ *
+ * @author Qingtian Wang
+ */
+@Named("core-default")
+@Singleton
+@Typed(ModelProcessor.class)
+public class VersionTransformModelProcessor extends DefaultModelProcessor {
+  private static final String POM = "pom.xml";
+
+  private final LegacySupport legacySupport;
+
+  /** @param legacySupport giving access to the current session */
+  @Inject
+  public VersionTransformModelProcessor(LegacySupport legacySupport) {
+    this.legacySupport = legacySupport;
+  }
+
+  private static Optional<Path> localRepository(MavenSession session) {
+    LocalRepository repository = session.getRepositorySession().getLocalRepository();
+    return repository == null || repository.getBasedir() == null
+        ? Optional.empty()
+        : Optional.of(repository.getBasedir().toPath().toAbsolutePath().normalize());
+  }
+
+  private static File pomFileOf(Map<String, ?> options) {
+    Object source = options == null ? null : options.get(ModelProcessor.SOURCE);
+    return source instanceof FileModelSource ? ((FileModelSource) source).getFile() : null;
+  }
+
+  @Override
+  public Model read(File input, Map<String, ?> options) throws IOException {
+    return transform(super.read(input, options), input);
+  }
+
+  @Override
+  public Model read(Reader input, Map<String, ?> options) throws IOException {
+    return transform(super.read(input, options), pomFileOf(options));
+  }
+
+  @Override
+  public Model read(InputStream input, Map<String, ?> options) throws IOException {
+    return transform(super.read(input, options), pomFileOf(options));
+  }
+
+  private Model transform(Model model, File pomFile) throws IOException {
+    MavenSession session = legacySupport.getSession();
+    if (pomFile == null || session == null || session.getRepositorySession() == null) {
+      return model;
+    }
+    File topLevelPom = session.getRequest().getPom();
+    if (topLevelPom == null || !topLevelPom.isFile()) {
+      return model;
+    }
+    Path root = Optional.ofNullable(session.getRequest().getMultiModuleProjectDirectory())
+        .orElse(topLevelPom.getAbsoluteFile().getParentFile())
+        .toPath()
+        .toAbsolutePath()
+        .normalize();
+    Path pom = pomFile.toPath().toAbsolutePath().normalize();
+    if (!pom.startsWith(root)
+        || localRepository(session).filter(pom::startsWith).isPresent()) {
+      return model;
+    }
+    Optional<SessionTransform> transform;
+    try {
+      transform = sessionTransform(session, topLevelPom);
+    } catch (MavenExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    if (!transform.isPresent() || transform.get().isIdentity()) {
+      return model;
+    }
+    String oldVersion = transform.get().getOldVersion();
+    String newVersion = transform.get().getNewVersion();
+    Parent parent = model.getParent();
+    boolean parentRewritten = parent != null
+        && oldVersion.equals(parent.getVersion())
+        && isParentInTree(pom, parent, root);
+    if (parentRewritten) {
+      parent.setVersion(newVersion);
+    }
+    if (oldVersion.equals(model.getVersion())) {
+      model.setVersion(newVersion);
+      transform.get().recordRewritten(pom);
+    } else if (model.getVersion() == null && parentRewritten) {
+      transform.get().recordRewritten(pom);
+    }
+    return model;
+  }
+
+  /**
+   * @return the session's transform, computed from the raw model of the top-level POM if not yet
+   *     computed; empty if no transform is requested, or the top-level project's version is not a
+   *     literal SemVer
+   */
+  private Optional<SessionTransform> sessionTransform(MavenSession session, File topLevelPom)
+      throws IOException, MavenExecutionException {
+    Optional<SessionTransform> computed = SessionTransform.computed(session);
+    if (computed.isPresent()) {
+      return computed;
+    }
+    if (StringUtils.isBlank(
+        SessionTransform.propertiesOf(session).getProperty(VersionTransformExtension.TRANSFORM))) {
+      return Optional.empty();
+    }
+    Model topLevelModel = super.read(topLevelPom, Collections.emptyMap());
+    MavenProject topLevelProject = new MavenProject(topLevelModel);
+    topLevelProject.setFile(topLevelPom);
+    if (topLevelModel.getVersion() == null) {
+      return Optional.empty();
+    }
+    try {
+      VersionCache.parse(topLevelModel.getVersion());
+    } catch (RuntimeException e) {
+      return Optional.empty();
+    }
+    return SessionTransform.of(session, () -> topLevelProject);
+  }
+
+  private static boolean isParentInTree(Path pom, Parent parent, Path root) throws IOException {
+    if (StringUtils.isBlank(parent.getRelativePath())) {
+      return false;
+    }
+    Path parentPom = pom.getParent().resolve(parent.getRelativePath()).normalize();
+    if (Files.isDirectory(parentPom)) {
+      parentPom = parentPom.resolve(POM);
+    }
+    if (!parentPom.startsWith(root) || !Files.isRegularFile(parentPom)) {
+      return false;
+    }
+    try {
+      return PomDocument.read(parentPom)
+          .value("project/artifactId")
+          .filter(parent.getArtifactId()::equals)
+          .isPresent();
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.Updater;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.pom.RevisionProperty;
+import q3769.maven.plugins.semver.pom.VersionFile;
+import q3769.maven.plugins.semver.state.VersionHistory;
+import q3769.maven.plugins.semver.state.VersionState;
+
+/**
+ * Applies one update goal to every independent Maven project found under a directory tree, in a
+ * single Maven invocation. The tree is walked once; a directory with a pom.xml is taken as a
+ * project root, and is not descended into further, as its modules belong to it. Each project's
+ * version is then read, updated by the goal's own version logic, and written in place. Projects
+ * declaring modules are skipped, as only their own version would be written, leaving the parent
+ * references of their modules stale; unless their version is the CI-friendly <code>${revision}
+ * </code>, which the modules share.
+ *
+ * <p>The projects flow through a staged asynchronous pipeline: reads and writes run on an I/O
+ * executor, the version logic on a separate compute pool, so that reading one project overlaps with
+ * updating and writing others. On a slow file system, throughput is then bound by the file system
+ * rather than by the latency of each project in turn.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(
+    name = "batch",
+    defaultPhase = LifecyclePhase.NONE,
+    requiresProject = false,
+    aggregator = true)
+public class Batch extends SemverMojo {
+  private static final String POM = "pom.xml";
+  private static final String MODULE = "project/modules/module";
+
+  /** Name of the update goal to apply to every project, e.g. <code>increment-minor</code> */
+  @Parameter(property = "transform", required = true)
+  protected String transform;
+
+  /** Root directory of the tree to scan for projects */
+  @Parameter(property = "batchRoot", defaultValue = "${session.executionRootDirectory}")
+  protected File batchRoot;
+
+  /** Names of directories not to descend into */
+  @Parameter(
+      property = "batchExcludes",
+      defaultValue = "target,.git,.svn,.hg,.idea,.mvn,.semver,node_modules")
+  protected String batchExcludes;
+
+  /** Number of threads reading and writing POM files; defaults to the number of processors */
+  @Parameter(property = "batchThreads", defaultValue = "0")
+  protected int batchThreads;
+
+  /**
+   * Maximum number of projects read but not yet written at any time. Once reached, reading further
+   * projects waits until earlier ones are written, which bounds memory on very large trees.
+   */
+  @Parameter(property = "batchInFlight", defaultValue = "64")
+  protected int batchInFlight;
+
+  /**
+   * Durability of the POM writes: <code>none</code> leaves syncing to the OS, <code>batch</code>
+   * syncs all written POMs together at the end of the run and then each directory once, <code>
+   * strict</code> syncs each POM and its directory one at a time
+   */
+  @Parameter(property = "durability", defaultValue = "none")
+  protected String durability;
+
+  /**
+   * As an aggregator over a directory tree, this goal runs once regardless of the current project,
+   * so the parent/module filtering of the other goals does not apply.
+   */
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    doExecute();
+  }
+
+  @Override
+  protected void doExecute() throws MojoExecutionException, MojoFailureException {
+    Properties parameters = new Properties();
+    parameters.putAll(session.getSystemProperties());
+    parameters.putAll(session.getUserProperties());
+    PomWriter.Durability durabilityLevel;
+    try {
+      Updaters.create(transform, parameters);
+      checkProjectless(parameters);
+      durabilityLevel = PomWriter.Durability.of(durability);
+    } catch (IllegalArgumentException e) {
+      throw new MojoFailureException(e.getMessage(), e);
+    }
+    Path root = batchRoot.toPath().toAbsolutePath().normalize();
+    List<Path> projects;
+    try {
+      projects = findProjects(root);
+    } catch (IOException e) {
+      logError(e, "Failed to scan %s for projects", root);
+      throw new MojoExecutionException(e);
+    }
+    logInfo("Applying goal '%s' to %s project(s) under %s...", transform, projects.size(), root);
+    int ioThreads = batchThreads > 0 ? batchThreads : Runtime.getRuntime().availableProcessors();
+    ExecutorService io = Executors.newFixedThreadPool(ioThreads);
+    ForkJoinPool compute = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    Semaphore inFlight = new Semaphore(Math.max(1, batchInFlight));
+    AtomicInteger updated = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicInteger skipped = new AtomicInteger();
+    AtomicInteger inFlightNow = new AtomicInteger();
+    AtomicInteger peakInFlight = new AtomicInteger();
+    List<CompletableFuture<Void>> pipelines = new ArrayList<>(projects.size());
+    Queue<Staged> uncommitted = new ConcurrentLinkedQueue<>();
+    try (PomWriter.GroupCommit group = PomWriter.group(durabilityLevel)) {
+      for (Path project : projects) {
+        inFlight.acquire();
+        Path relativePath = root.relativize(project);
+        pipelines.add(CompletableFuture.supplyAsync(
+                () -> {
+                  peakInFlight.accumulateAndGet(inFlightNow.incrementAndGet(), Math::max);
+                  return read(project, relativePath);
+                },
+                io)
+            .thenApplyAsync(staged -> compute(staged, parameters), compute)
+            .thenApplyAsync(staged -> write(staged, group, uncommitted), io)
+            .handle((staged, e) -> {
+              inFlightNow.decrementAndGet();
+              inFlight.release();
+              if (e == null) {
+                (staged.aggregating ? skipped : updated).incrementAndGet();
+              } else {
+                failed.incrementAndGet();
+                logError("%s: %s", relativePath, rootCause(e));
+              }
+              return null;
+            }));
+      }
+      CompletableFuture.allOf(pipelines.toArray(new CompletableFuture<?>[0])).join();
+      if (!uncommitted.isEmpty()) {
+        logInfo("Committing %s POM write(s)...", uncommitted.size());
+        try {
+          group.commit();
+        } catch (IOException e) {
+          reportPartialCommit(e, uncommitted);
+          throw new MojoExecutionException(e);
+        }
+        uncommitted.forEach(this::recordUpdate);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException(e);
+    } catch (IOException e) {
+      logError(e, "Failed to discard staged POM writes");
+      throw new MojoExecutionException(e);
+    } finally {
+      io.shutdown();
+      compute.shutdown();
+    }
+    logDebug("At most %s project(s) were in flight at a time", peakInFlight.get());
+    logInfo(
+        "Goal '%s' applied to %s project(s), %s skipped, %s failed",
+        transform, updated.get(), skipped.get(), failed.get());
+    if (failed.get() > 0) {
+      throw new MojoFailureException(
+          String.format("Goal '%s' failed on %s project(s)", transform, failed.get()));
+    }
+  }
+
+  /**
+   * The projects found by the walk have no Maven project model or session of their own, so the
+   * parameters that read the project's files, sequence store, or history are rejected before the
+   * walk rather than failing on every project after it.
+   *
+   * @param parameters of the goal, by CLI property name
+   * @throws IllegalArgumentException if a parameter needs the Maven project of a regular goal
+   *     execution
+   */
+  private void checkProjectless(Properties parameters) {
+    String set = parameters.getProperty(Updaters.SET);
+    if ("update-build-metadata".equals(transform)
+        && set != null
+        && (UpdateBuildMetadata.CONTENT_HASH.equals(set)
+            || set.startsWith(UpdateBuildMetadata.SEQUENCE))) {
+      throw new IllegalArgumentException(String.format(
+          "Parameter %s=%s requires a Maven project, and is not supported here",
+          Updaters.SET, set));
+    }
+    if ("update-pre-release".equals(transform)
+        && Boolean.parseBoolean(parameters.getProperty(Updaters.HISTORY_AWARE))) {
+      throw new IllegalArgumentException(String.format(
+          "Parameter %s requires a Maven project, and is not supported here",
+          Updaters.HISTORY_AWARE));
+    }
+  }
+
+  /**
+   * A failed group commit may have renamed some staged POMs over their originals before the
+   * failure. Each project whose POM already holds its new version is reported and recorded as
+   * updated, the others as not.
+   */
+  private void reportPartialCommit(IOException failure, Queue<Staged> uncommitted) {
+    List<Path> committed = new ArrayList<>();
+    List<Path> notCommitted = new ArrayList<>();
+    for (Staged staged : uncommitted) {
+      String current;
+      try {
+        current = staged.versionFile.read();
+      } catch (IOException | RuntimeException e) {
+        current = null;
+      }
+      if (staged.updated.toString().equals(current)) {
+        committed.add(staged.relativePath);
+        recordUpdate(staged);
+      } else {
+        notCommitted.add(staged.relativePath);
+      }
+    }
+    logError(
+        failure,
+        "Failed to commit POM writes; the result is partial: %s project(s) updated %s, %s not updated %s",
+        committed.size(),
+        committed,
+        notCommitted.size(),
+        notCommitted);
+  }
+
+  private List<Path> findProjects(Path root) throws IOException {
+    Set<String> excludes = new HashSet<>(Arrays.asList(batchExcludes.split("\\s*,\\s*")));
+    List<Path> projects = new ArrayList<>();
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (!dir.equals(root) && excludes.contains(String.valueOf(dir.getFileName()))) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        if (Files.isRegularFile(dir.resolve(POM))) {
+          projects.add(dir);
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        logWarn("Skipping unreadable %s: %s", file, e);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return projects;
+  }
+
+  /** Read stage: file I/O only, run on the I/O executor */
+  private static Staged read(Path project, Path relativePath) {
+    VersionFile versionFile = VersionFile.of(project);
+    try {
+      PomDocument document = PomDocument.read(versionFile.getPom());
+      Staged staged = new Staged(project, relativePath, versionFile, versionFile.read());
+      staged.aggregating = document.find(MODULE).isPresent()
+          && !RevisionProperty.PLACEHOLDER.equals(
+              document.value(PomDocument.PROJECT_VERSION).orElse(null));
+      return staged;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Compute stage: version logic only, no I/O, run on the compute pool */
+  private Staged compute(Staged staged, Properties parameters) {
+    if (staged.aggregating) {
+      return staged;
+    }
+    Updater updater = Updaters.create(transform, parameters);
+    updater.setLog(getLog());
+    try {
+      staged.original = requireValidSemVer(staged.text);
+      staged.updated = updater.getUpdatedVersion(staged.original);
+    } catch (MojoFailureException e) {
+      throw new CompletionException(e);
+    }
+    return staged;
+  }
+
+  /**
+   * Write stage: file I/O only, run on the I/O executor. Writes staged in a batch durability group
+   * are left uncommitted, to be recorded once the group is committed.
+   */
+  private Staged write(Staged staged, PomWriter.GroupCommit group, Queue<Staged> uncommitted) {
+    if (staged.aggregating) {
+      logWarn(
+          "%s: skipped, as it declares modules whose parent references would go stale; update it in its own reactor with -Dpropagate",
+          staged.relativePath);
+      return staged;
+    }
+    if (staged.updated.equals(staged.original)) {
+      logInfo("%s: %s unchanged", staged.relativePath, staged.original);
+      return staged;
+    }
+    try {
+      staged.versionFile.write(staged.updated.toString(), group);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (group.getDurability() == PomWriter.Durability.BATCH) {
+      uncommitted.add(staged);
+    } else {
+      recordUpdate(staged);
+    }
+    return staged;
+  }
+
+  /**
+   * Records the update of a project whose new version is written and in effect; failing to do so
+   * does not fail the already completed update.
+   */
+  private void recordUpdate(Staged staged) {
+    logInfo("%s: %s -> %s", staged.relativePath, staged.original, staged.updated);
+    try {
+      VersionState.record(staged.project);
+      VersionHistory.append(
+          staged.project,
+          new VersionHistory.Record(
+              Instant.now(), transform, staged.original.toString(), staged.updated.toString()));
+    } catch (IOException | RuntimeException e) {
+      logWarn("%s: failed to record version state and history: %s", staged.relativePath, e);
+    }
+  }
+
+  private static Throwable rootCause(Throwable e) {
+    while ((e instanceof CompletionException || e instanceof UncheckedIOException)
+        && e.getCause() != null) {
+      e = e.getCause();
+    }
+    return e;
+  }
+
+  /** One project's state as it passes through the pipeline stages */
+  private static final class Staged {
+    final Path project;
+    final Path relativePath;
+    final VersionFile versionFile;
+    final String text;
+    Version original;
+    Version updated;
+    boolean aggregating;
+
+    Staged(Path project, Path relativePath, VersionFile versionFile, String text) {
+      this.project = project;
+      this.relativePath = relativePath;
+      this.versionFile = versionFile;
+      this.text = text;
+    }
+  }
+}
@@ -49,7 +49,8 @@ public class CalendarMajor extends Updater {
   @Override
   protected Version update(Version original) throws MojoFailureException {
     try {
-      return CalendarNormalVersionIncrementer.calendarIncrement(original, NormalVersion.MAJOR);
+      return CalendarNormalVersionIncrementer.calendarIncrement(
+          original, NormalVersion.MAJOR, clock.instant());
     } catch (Exception e) {
       logError(
           e,
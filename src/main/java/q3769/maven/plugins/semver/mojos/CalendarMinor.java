@@ -42,7 +42,8 @@ public class CalendarMinor extends Updater {
   @Override
   protected Version update(Version original) throws MojoFailureException {
     try {
-      return CalendarNormalVersionIncrementer.calendarIncrement(original, NormalVersion.MINOR);
+      return CalendarNormalVersionIncrementer.calendarIncrement(
+          original, NormalVersion.MINOR, clock.instant());
     } catch (Exception e) {
       logError(
           e,
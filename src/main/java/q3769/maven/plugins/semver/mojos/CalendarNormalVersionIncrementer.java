@@ -54,8 +54,18 @@ enum CalendarNormalVersionIncrementer {
    */
   public static Version calendarIncrement(
       Version original, @Nonnull NormalVersion selectedNormalVersion) {
+    return calendarIncrement(original, selectedNormalVersion, Instant.now());
+  }
+
+  /**
+   * @param original pom version
+   * @param selectedNormalVersion to increment
+   * @param now the current instant, e.g. shared by several increments evaluated together
+   * @return new instance incremented to the date of the given instant in UTC zone
+   */
+  public static Version calendarIncrement(
+      Version original, @Nonnull NormalVersion selectedNormalVersion, @NonNull Instant now) {
     long selectedNormalVersionNumber = selectedNormalVersion.getNumber(original);
-    Instant now = Instant.now();
     for (CalendarNormalVersionIncrementer formatter : values()) {
       long updatedNormalVersionNumber = formatter.format(now);
       if (updatedNormalVersionNumber > selectedNormalVersionNumber) {
@@ -42,7 +42,8 @@ public class CalendarPatch extends Updater {
   @Override
   protected Version update(Version original) throws MojoFailureException {
     try {
-      return CalendarNormalVersionIncrementer.calendarIncrement(original, NormalVersion.PATCH);
+      return CalendarNormalVersionIncrementer.calendarIncrement(
+          original, NormalVersion.PATCH, clock.instant());
     } catch (Exception e) {
       logError(
           e,
@@ -24,6 +24,7 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
+import java.util.Optional;
 import lombok.NonNull;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -50,4 +51,9 @@ public class FinalizeCurrent extends Updater {
     }
     return Version.of(original.majorVersion(), original.minorVersion(), original.patchVersion());
   }
+
+  @Override
+  protected Optional<String> memoizedParameters() {
+    return Optional.of("");
+  }
 }
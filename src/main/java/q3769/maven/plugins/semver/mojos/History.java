@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.OptionalLong;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.state.VersionHistory;
+
+/**
+ * Queries the project's version history in <code>.semver/history</code>, as recorded by every
+ * successful version update, and prints the matching records to stdout as JSON lines. Without any
+ * query parameter, the last 10 records are printed.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "history", defaultPhase = LifecyclePhase.NONE)
+public class History extends SemverMojo {
+  private static final int DEFAULT_LAST = 10;
+
+  /** Number of most recent records to print */
+  @Parameter(property = "last")
+  protected Integer last;
+
+  /** Prints all records since this instant, e.g. 2024-01-31T10:15:30Z, or local date, 2024-01-31 */
+  @Parameter(property = "since")
+  protected String since;
+
+  /**
+   * Prints the highest numeric counter recorded for this pre-release label, e.g. <code>rc</code>
+   * for versions like <code>1.2.3-rc.4</code>, instead of records
+   */
+  @Parameter(property = "label")
+  protected String label;
+
+  @Override
+  protected void doExecute() throws MojoExecutionException, MojoFailureException {
+    VersionHistory history;
+    try {
+      history = VersionHistory.open(project.getBasedir().toPath());
+    } catch (IOException e) {
+      logError(e, "Failed to read version history of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+    logInfo("Version history of project '%s' has %s record(s)", project.getName(), history.size());
+    if (StringUtils.isNotBlank(label)) {
+      OptionalLong counter = history.highestPreReleaseCounter(label);
+      System.out.println(new JsonObject()
+          .put("label", label)
+          .putRaw(
+              "highestCounter", counter.isPresent() ? String.valueOf(counter.getAsLong()) : "null")
+          .toString());
+      return;
+    }
+    List<VersionHistory.Record> records;
+    try {
+      records = StringUtils.isNotBlank(since)
+          ? history.since(parseSince(since))
+          : history.last(last == null ? DEFAULT_LAST : last);
+    } catch (IOException e) {
+      logError(e, "Failed to read version history of project '%s'", project.getName());
+      throw new MojoExecutionException(e);
+    }
+    records.forEach(record -> System.out.println(new JsonObject()
+        .put("timestamp", record.getTimestamp().toString())
+        .put("goal", record.getGoal())
+        .put("oldVersion", record.getOldVersion())
+        .put("newVersion", record.getNewVersion())
+        .toString()));
+  }
+
+  private static Instant parseSince(String since) throws MojoFailureException {
+    try {
+      return Instant.parse(since);
+    } catch (DateTimeParseException e) {
+      try {
+        return LocalDate.parse(since).atStartOfDay(ZoneId.systemDefault()).toInstant();
+      } catch (DateTimeParseException e2) {
+        throw new MojoFailureException(
+            "since '" + since + "' is neither an ISO instant nor an ISO local date", e2);
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import lombok.NonNull;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import q3769.maven.plugins.semver.NormalVersion;
+import q3769.maven.plugins.semver.Updater;
+import q3769.maven.plugins.semver.api.ApiDiff;
+import q3769.maven.plugins.semver.api.ApiSignatures;
+
+/**
+ * Increments the major, minor, or patch version depending on how the public API of the compiled
+ * classes differs from that of a baseline jar in the local repository, by default the one of the
+ * highest version of the project released there: removed or changed signatures require a major
+ * increment, added signatures a minor one, and otherwise a patch. Class files are parsed directly,
+ * and nothing is resolved from remote repositories.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "increment-by-api", defaultPhase = LifecyclePhase.NONE)
+public class IncrementByApi extends Updater {
+  private static final int MAX_LOGGED_SIGNATURES = 10;
+
+  /**
+   * Version of this project's jar in the local repository to compare the API against; by default
+   * <code>@local</code>, the highest version of the project released to the local repository
+   */
+  @Parameter(property = "baselineVersion", defaultValue = LOCAL_RELEASE)
+  protected String baselineVersion = LOCAL_RELEASE;
+
+  /** Baseline jar to compare the API against, instead of the one of the baseline version */
+  @Parameter(property = "baselineJar")
+  protected File baselineJar;
+
+  @Override
+  protected Version update(@NonNull Version original) throws MojoFailureException {
+    Path classes = new File(project.getBuild().getOutputDirectory()).toPath();
+    if (!Files.isDirectory(classes)) {
+      throw new MojoFailureException(
+          "No compiled classes in " + classes + ", compile the project before this goal");
+    }
+    Path baseline = baselineJar();
+    if (!Files.isRegularFile(baseline)) {
+      throw new MojoFailureException(String.format(
+          "Baseline jar %s not found in local repository, install it or set -DbaselineVersion",
+          baseline));
+    }
+    ApiDiff diff;
+    try {
+      Set<String> baselineApi =
+          ApiSignatures.ofJar(baseline, project.getBasedir().toPath());
+      diff = ApiDiff.between(baselineApi, ApiSignatures.ofClasses(classes));
+    } catch (IOException | IllegalArgumentException e) {
+      logError(e, "Failed to compare API of %s against baseline %s", classes, baseline);
+      throw new MojoFailureException(e);
+    }
+    logSignatures("Removed or changed", diff.getRemoved());
+    logSignatures("Added", diff.getAdded());
+    NormalVersion increment = diff.requiredIncrement();
+    logInfo(
+        "API against baseline %s: %s signature(s) removed or changed, %s added, incrementing %s",
+        baseline.getFileName(), diff.getRemoved().size(), diff.getAdded().size(), increment);
+    try {
+      return increment.incrementTo(increment.getNumber(original) + 1, original);
+    } catch (Exception e) {
+      logError(e, "Failed to increment %s version of semver %s", increment, original);
+      throw new MojoFailureException(e);
+    }
+  }
+
+  private Path baselineJar() throws MojoFailureException {
+    if (baselineJar != null) {
+      return baselineJar.toPath();
+    }
+    String version = StringUtils.isBlank(baselineVersion) || LOCAL_RELEASE.equals(baselineVersion)
+        ? latestLocalRelease().toString()
+        : baselineVersion;
+    RepositorySystemSession repositorySession = session.getRepositorySession();
+    String relativePath = repositorySession
+        .getLocalRepositoryManager()
+        .getPathForLocalArtifact(
+            new DefaultArtifact(project.getGroupId(), project.getArtifactId(), "jar", version));
+    return repositorySession.getLocalRepository().getBasedir().toPath().resolve(relativePath);
+  }
+
+  private void logSignatures(String change, Set<String> signatures) {
+    signatures.stream()
+        .limit(MAX_LOGGED_SIGNATURES)
+        .forEach(signature -> logInfo("%s: %s", change, signature));
+    if (signatures.size() > MAX_LOGGED_SIGNATURES) {
+      logInfo("%s: ... and %s more", change, signatures.size() - MAX_LOGGED_SIGNATURES);
+    }
+  }
+}
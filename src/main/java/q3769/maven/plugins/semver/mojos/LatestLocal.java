@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.VersionRange;
+
+/**
+ * Prints to stdout the highest non-SNAPSHOT SemVer of the project released to the local repository,
+ * without network access. The result is what <code>-Dsemver=@local</code> resolves to for the
+ * <code>pick-newer</code> and <code>merge</code> goals. With a range given, prints the highest such
+ * version in the range instead.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "latest-local", defaultPhase = LifecyclePhase.NONE)
+public class LatestLocal extends SemverMojo {
+
+  /**
+   * SemVer range expression the printed version must satisfy, e.g. <code>^1.4</code>
+   *
+   * @see VersionRange
+   */
+  @Parameter(property = "range")
+  protected String range;
+
+  @Override
+  protected void doExecute() throws MojoFailureException {
+    if (range == null || range.trim().isEmpty()) {
+      Version latest = latestLocalRelease();
+      logInfo(
+          "Latest local release of %s:%s is %s",
+          project.getGroupId(), project.getArtifactId(), latest);
+      System.out.println(latest);
+      return;
+    }
+    VersionRange versionRange;
+    try {
+      versionRange = VersionRange.compile(range);
+    } catch (IllegalArgumentException e) {
+      throw new MojoFailureException(e.getMessage(), e);
+    }
+    Version latest = localReleases()
+        .highest(versionRange)
+        .orElseThrow(() -> new MojoFailureException(String.format(
+            "No released SemVer of %s:%s in local repository is in range '%s'",
+            project.getGroupId(), project.getArtifactId(), range)));
+    logInfo(
+        "Latest local release of %s:%s in range '%s' is %s",
+        project.getGroupId(), project.getArtifactId(), range, latest);
+    System.out.println(latest);
+  }
+}
@@ -24,12 +24,11 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
-import lombok.NonNull;
+import java.util.Optional;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import q3769.maven.plugins.semver.NormalVersion;
 import q3769.maven.plugins.semver.Updater;
 
 /**
@@ -44,56 +43,36 @@ import q3769.maven.plugins.semver.Updater;
  */
 @Mojo(name = "merge", defaultPhase = LifecyclePhase.NONE)
 public class Merge extends Updater {
-  /** The other SemVer to be merged with current local POM version */
+  /**
+   * The other SemVer to be merged with current local POM version, or <code>@local</code> for the
+   * highest version of the project released to the local repository
+   */
   @Parameter(property = "semver", defaultValue = "NOT_SET")
   protected String otherSemVer;
 
   @Override
   protected Version update(final Version original) throws MojoFailureException {
-    Version other = requireValidSemVer(otherSemVer);
+    Version other = resolveSemVer(otherSemVer);
     logDebug("Merging current POM version %s with provided version %s", original, other);
-    if (original.isHigherThan(other)) {
-      logDebug(
-          "Current POM version %s is newer than provided version %s, current unchanged is the merge result: %s",
-          original, other, original);
-      return original;
-    }
-    logDebug("Provided version %s is newer than current POM version %s", other, original);
-    NormalVersion pomIncrementedNormalVersion =
-        NormalVersion.getLastIncrementedNormalVersion(original);
-    logDebug(
-        "Last incremented normal version of current pom semver is %s", pomIncrementedNormalVersion);
-    Version incrementedVersion;
+    Version mergedVersion;
     try {
-      incrementedVersion = increment(other, pomIncrementedNormalVersion);
+      mergedVersion = MergeRules.merge(original, other);
     } catch (Exception e) {
       logError(
           e, "Failed to merge the provided version %s with the POM version %s", other, original);
       throw new MojoFailureException(e);
     }
     logDebug(
-        "Incrementing provided version %s on POM semver incremented normal version %s, provisional merge version: %s",
-        other, pomIncrementedNormalVersion, incrementedVersion);
-    Version.Builder versionBuilder = incrementedVersion.toBuilder();
-    original.preReleaseVersion().ifPresent(versionBuilder::setPreReleaseVersion);
-    original.buildMetadata().ifPresent(versionBuilder::setBuildMetadata);
-    Version mergedVersion = versionBuilder.build();
-    logDebug(
-        "Keeping all label(s) of POM semver %s, final merge version: %s", original, mergedVersion);
+        "Merge result of POM version %s and provided version %s: %s",
+        original, other, mergedVersion);
     return mergedVersion;
   }
 
-  private Version increment(Version version, @NonNull NormalVersion targetNormalVersion) {
-    switch (targetNormalVersion) {
-      case MAJOR:
-        return version.nextMajorVersion();
-      case MINOR:
-        return version.nextMinorVersion();
-      case PATCH:
-        return version.nextPatchVersion();
-      default:
-        throw new IllegalStateException(
-            String.format("Unexpected targetNormalVersion: %s", targetNormalVersion));
-    }
+  /** @return the other SemVer, unless it is resolved from the local repository and may change */
+  @Override
+  protected Optional<String> memoizedParameters() {
+    return LOCAL_RELEASE.equals(otherSemVer)
+        ? Optional.empty()
+        : Optional.of("semver=" + otherSemVer);
   }
 }
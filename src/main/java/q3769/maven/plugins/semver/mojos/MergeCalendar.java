@@ -29,7 +29,6 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import q3769.maven.plugins.semver.NormalVersion;
 import q3769.maven.plugins.semver.Updater;
 
 /**
@@ -52,21 +51,9 @@ public class MergeCalendar extends Updater {
   protected Version update(@NonNull final Version original) throws MojoFailureException {
     logDebug("Merging current POM version %s with provided version %s", original, otherSemVer);
     final Version other = requireValidSemVer(otherSemVer);
-    if (original.isHigherThan(other)) {
-      logDebug(
-          "Current POM version %s is newer than provided version %s, current unchanged is the merge result: %s",
-          original, other, original);
-      return original;
-    }
-    logDebug("Provided version %s is newer than current POM version %s", other, original);
-    NormalVersion pomIncrementedNormalVersion =
-        NormalVersion.getLastIncrementedNormalVersion(original);
-    logDebug(
-        "Last incremented normal version of current pom semver is %s", pomIncrementedNormalVersion);
-    Version provisionalMergedVersion;
+    Version finalMergedVersion;
     try {
-      provisionalMergedVersion =
-          CalendarNormalVersionIncrementer.calendarIncrement(other, pomIncrementedNormalVersion);
+      finalMergedVersion = MergeRules.mergeCalendar(original, other, clock.instant());
     } catch (Exception e) {
       logError(
           e,
@@ -76,15 +63,8 @@ public class MergeCalendar extends Updater {
       throw new MojoFailureException(e);
     }
     logDebug(
-        "Incrementing provided version %s on POM semver incremented normal version %s, provisional merge version: %s",
-        other, pomIncrementedNormalVersion, provisionalMergedVersion);
-    Version.Builder versionBuilder = provisionalMergedVersion.toBuilder();
-    original.preReleaseVersion().ifPresent(versionBuilder::setPreReleaseVersion);
-    original.buildMetadata().ifPresent(versionBuilder::setBuildMetadata);
-    Version finalMergedVersion = versionBuilder.build();
-    logDebug(
-        "Keeping all label(s) of POM semver %s, final merge version: %s",
-        original, finalMergedVersion);
+        "Calendar-merge result of POM version %s and provided version %s: %s",
+        original, other, finalMergedVersion);
     return finalMergedVersion;
   }
 }
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.time.Instant;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.NormalVersion;
+
+/**
+ * The version merge rules shared by the <code>merge</code> and <code>merge-calendar</code> goals,
+ * free of any Maven runtime so that they can also back fast-starting tools such as the Git merge
+ * driver. If the current version is newer than the other, the current version is the merge result.
+ * Otherwise, the other version is incremented on the normal version category last incremented in
+ * the current version, and takes over the current version's pre-release and build metadata labels.
+ *
+ * @author Qingtian Wang
+ */
+public final class MergeRules {
+  private MergeRules() {}
+
+  /**
+   * @param current version, e.g. of the local POM
+   * @param other version to merge into the current one
+   * @return the merge result
+   * @throws IllegalArgumentException if the current version has no non-zero normal number to tell
+   *     which category to increment on
+   */
+  public static @NonNull Version merge(@NonNull Version current, @NonNull Version other) {
+    if (current.isHigherThan(other)) {
+      return current;
+    }
+    return withLabelsOf(
+        current, increment(other, NormalVersion.getLastIncrementedNormalVersion(current)));
+  }
+
+  /**
+   * @param current version, e.g. of the local POM
+   * @param other version to merge into the current one
+   * @param now instant whose UTC date the incremented number is set to
+   * @return the merge result, with the incremented normal number in calendar style
+   * @throws IllegalArgumentException if the current version has no non-zero normal number to tell
+   *     which category to increment on
+   * @throws UnsupportedOperationException if the number to increment is not older than the date
+   */
+  public static @NonNull Version mergeCalendar(
+      @NonNull Version current, @NonNull Version other, @NonNull Instant now) {
+    if (current.isHigherThan(other)) {
+      return current;
+    }
+    return withLabelsOf(
+        current,
+        CalendarNormalVersionIncrementer.calendarIncrement(
+            other, NormalVersion.getLastIncrementedNormalVersion(current), now));
+  }
+
+  private static Version increment(Version version, NormalVersion normalVersion) {
+    switch (normalVersion) {
+      case MAJOR:
+        return version.nextMajorVersion();
+      case MINOR:
+        return version.nextMinorVersion();
+      case PATCH:
+        return version.nextPatchVersion();
+      default:
+        throw new IllegalStateException(
+            String.format("Unexpected targetNormalVersion: %s", normalVersion));
+    }
+  }
+
+  private static Version withLabelsOf(Version labeled, Version incremented) {
+    Version.Builder versionBuilder = incremented.toBuilder();
+    labeled.preReleaseVersion().ifPresent(versionBuilder::setPreReleaseVersion);
+    labeled.buildMetadata().ifPresent(versionBuilder::setBuildMetadata);
+    return versionBuilder.build();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.Updater;
+
+/**
+ * Prints to stdout, as one JSON object, what every update goal would change the current POM version
+ * to, without changing anything. All goals are evaluated in parallel in this one invocation,
+ * against one shared snapshot of the clock, so the calendar goals agree on the current instant. The
+ * goals' own parameters, such as <code>semver</code>, <code>set</code> or <code>snapshot</code>,
+ * apply as usual; goals that need the <code>semver</code> parameter are left out without it. A
+ * <code>@seq:</code> build metadata label shows the number the sequence would hand out next,
+ * without drawing it.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "outcomes", defaultPhase = LifecyclePhase.NONE)
+public class Outcomes extends SemverMojo {
+  private static final Set<String> SEMVER_GOALS =
+      new HashSet<>(Arrays.asList("set-current", "pick-newer", "merge", "merge-calendar"));
+
+  @Override
+  protected void doExecute() throws MojoFailureException {
+    Version original;
+    try {
+      original = requireValidSemVer(originalPomVersion());
+    } catch (IllegalArgumentException e) {
+      throw new MojoFailureException(e.getMessage(), e);
+    }
+    Properties parameters = new Properties();
+    parameters.putAll(session.getSystemProperties());
+    parameters.putAll(session.getUserProperties());
+    try {
+      Updaters.checkParameters(parameters);
+    } catch (IllegalArgumentException e) {
+      throw new MojoFailureException(e.getMessage(), e);
+    }
+    Instant now = Instant.now();
+    Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+    List<String> goals = Updaters.goals().stream()
+        .filter(
+            goal -> parameters.getProperty(Updaters.SEMVER) != null || !SEMVER_GOALS.contains(goal))
+        .collect(Collectors.toList());
+    List<String> outcomes = goals.parallelStream()
+        .map(goal -> outcome(goal, parameters, clock, original))
+        .collect(Collectors.toList());
+    JsonObject matrix = new JsonObject();
+    for (int i = 0; i < goals.size(); i++) {
+      matrix.putRaw(goals.get(i), outcomes.get(i));
+    }
+    System.out.println(new JsonObject()
+        .put("version", original.toString())
+        .put("clock", now.toString())
+        .putRaw("outcomes", matrix.toString()));
+  }
+
+  private String outcome(String goal, Properties parameters, Clock clock, Version original) {
+    try {
+      Updater updater = Updaters.create(goal, parameters);
+      if (updater instanceof UpdateBuildMetadata) {
+        ((UpdateBuildMetadata) updater).peekingSequence = true;
+      }
+      updater.setLog(getLog());
+      updater.setExecutionContext(project, session);
+      updater.setClock(clock);
+      return new JsonObject()
+          .put("version", updater.getUpdatedVersion(original).toString())
+          .toString();
+    } catch (Exception e) {
+      logDebug("Goal '%s' has no outcome for %s: %s", goal, original, e);
+      return new JsonObject().put("error", String.valueOf(e.getMessage())).toString();
+    }
+  }
+}
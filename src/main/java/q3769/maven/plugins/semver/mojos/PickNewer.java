@@ -24,6 +24,8 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
+import java.util.Optional;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -38,15 +40,18 @@ import q3769.maven.plugins.semver.Updater;
 @Mojo(name = "pick-newer", defaultPhase = LifecyclePhase.NONE)
 public class PickNewer extends Updater {
 
-  /** The other SemVer to be merged with current local POM version */
+  /**
+   * The other SemVer to be merged with current local POM version, or <code>@local</code> for the
+   * highest version of the project released to the local repository
+   */
   @Parameter(property = "semver", defaultValue = "NOT_SET", required = true)
   protected String otherSemVer;
 
   @Override
-  protected Version update(Version original) {
+  protected Version update(Version original) throws MojoFailureException {
     logDebug(
         "Taking the newer between current version %s and given version %s", original, otherSemVer);
-    final Version other = requireValidSemVer(otherSemVer);
+    final Version other = resolveSemVer(otherSemVer);
     if (original.isHigherThanOrEquivalentTo(other)) {
       logDebug("Current POM version %s is newer and being picked", original);
       return original;
@@ -54,4 +59,12 @@ public class PickNewer extends Updater {
     logDebug("CLI provided version %s is newer and being picked", otherSemVer);
     return other;
   }
+
+  /** @return the other SemVer, unless it is resolved from the local repository and may change */
+  @Override
+  protected Optional<String> memoizedParameters() {
+    return LOCAL_RELEASE.equals(otherSemVer)
+        ? Optional.empty()
+        : Optional.of("semver=" + otherSemVer);
+  }
 }
@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.VersionCache;
+
+/**
+ * Checks the version of each reactor project, its parent reference, and its references to sibling
+ * projects, against the SemVer spec and against the actual versions of the reactor projects. The
+ * reactor is indexed once, so checking each project is independent of the others and can be done in
+ * parallel.
+ *
+ * @author Qingtian Wang
+ */
+final class ReactorVersionCheck {
+  private final Map<String, MavenProject> reactor;
+
+  /** @param projects all projects of the reactor */
+  ReactorVersionCheck(@NonNull Collection<MavenProject> projects) {
+    this.reactor = projects.stream()
+        .collect(Collectors.toMap(
+            p -> coordinates(p.getGroupId(), p.getArtifactId()),
+            Function.identity(),
+            (p1, p2) -> p1));
+  }
+
+  private static String coordinates(String groupId, String artifactId) {
+    return groupId + ':' + artifactId;
+  }
+
+  private static Version parseOrNull(String version) {
+    try {
+      return VersionCache.parse(version);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param project to check
+   * @return check result of the project
+   */
+  Result check(@NonNull MavenProject project) {
+    Result result = new Result(coordinates(project.getGroupId(), project.getArtifactId()), project);
+    Version version = parseOrNull(project.getVersion());
+    if (version == null) {
+      result.addIssue(
+          IssueType.INVALID_VERSION,
+          "project version '%s' is not a valid SemVer",
+          project.getVersion());
+    }
+    checkParent(project, version, result);
+    checkDependencies(project.getDependencies(), result);
+    DependencyManagement dependencyManagement = project.getModel().getDependencyManagement();
+    if (dependencyManagement != null) {
+      checkDependencies(dependencyManagement.getDependencies(), result);
+    }
+    return result;
+  }
+
+  private void checkParent(MavenProject project, Version version, Result result) {
+    Parent parent = project.getModel().getParent();
+    if (parent == null) {
+      return;
+    }
+    Version parentReference = parseOrNull(parent.getVersion());
+    if (parentReference == null) {
+      result.addIssue(
+          IssueType.INVALID_PARENT_VERSION,
+          "parent %s version '%s' is not a valid SemVer",
+          parent.getId(),
+          parent.getVersion());
+    }
+    MavenProject reactorParent =
+        reactor.get(coordinates(parent.getGroupId(), parent.getArtifactId()));
+    if (reactorParent == null) {
+      return;
+    }
+    if (!reactorParent.getVersion().equals(parent.getVersion())) {
+      result.addIssue(
+          IssueType.PARENT_MISMATCH,
+          "parent reference version '%s' does not match reactor parent version '%s'",
+          parent.getVersion(),
+          reactorParent.getVersion());
+    }
+    Version parentVersion = parseOrNull(reactorParent.getVersion());
+    if (version != null && parentVersion != null && parentVersion.isHigherThan(version)) {
+      result.addIssue(
+          IssueType.LAGS_PARENT,
+          "project version '%s' lags behind parent version '%s'",
+          version,
+          parentVersion);
+    }
+  }
+
+  private void checkDependencies(List<Dependency> dependencies, Result result) {
+    for (Dependency dependency : dependencies) {
+      MavenProject sibling =
+          reactor.get(coordinates(dependency.getGroupId(), dependency.getArtifactId()));
+      if (sibling == null || dependency.getVersion() == null) {
+        continue;
+      }
+      if (parseOrNull(dependency.getVersion()) == null) {
+        result.addIssue(
+            IssueType.INVALID_DEPENDENCY_VERSION,
+            "dependency %s version '%s' is not a valid SemVer",
+            dependency.getManagementKey(),
+            dependency.getVersion());
+      } else if (!sibling.getVersion().equals(dependency.getVersion())) {
+        result.addIssue(
+            IssueType.SIBLING_MISMATCH,
+            "dependency %s version '%s' does not match reactor sibling version '%s'",
+            dependency.getManagementKey(),
+            dependency.getVersion(),
+            sibling.getVersion());
+      }
+    }
+  }
+
+  enum IssueType {
+    INVALID_VERSION,
+    INVALID_PARENT_VERSION,
+    INVALID_DEPENDENCY_VERSION,
+    PARENT_MISMATCH,
+    LAGS_PARENT,
+    SIBLING_MISMATCH
+  }
+
+  /** Check result of one reactor project */
+  static final class Result {
+    private final String coordinates;
+    private final String version;
+    private final List<IssueType> issueTypes = new ArrayList<>();
+    private final List<String> issueMessages = new ArrayList<>();
+
+    private Result(String coordinates, MavenProject project) {
+      this.coordinates = coordinates;
+      this.version = project.getVersion();
+    }
+
+    private void addIssue(IssueType type, String message, Object... args) {
+      issueTypes.add(type);
+      issueMessages.add(String.format(message, args));
+    }
+
+    /** @return types of all issues found */
+    List<IssueType> getIssueTypes() {
+      return issueTypes;
+    }
+
+    /** @return true if any issue is found */
+    boolean hasIssues() {
+      return !issueTypes.isEmpty();
+    }
+
+    /** @return single-line JSON rendering of this result */
+    String toJson() {
+      List<String> issues = new ArrayList<>(issueTypes.size());
+      for (int i = 0; i < issueTypes.size(); i++) {
+        issues.add(new JsonObject()
+            .put("type", issueTypes.get(i).name())
+            .put("message", issueMessages.get(i))
+            .toString());
+      }
+      return new JsonObject()
+          .put("project", coordinates)
+          .put("version", version)
+          .put("valid", !hasIssues())
+          .putRaw("issues", JsonObject.array(issues))
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.state.ReferenceIndex;
+
+/**
+ * Queries the version references of all POM files under a directory tree: which files, lines and
+ * byte ranges reference a given version, or a given artifact or property, at any version. The
+ * references are looked up in a persistent index kept in <code>.semver/references</code> of the
+ * tree's root, which is brought up to date first by re-scanning only the POM files changed since
+ * the last query. One JSON line per matching reference is streamed to stdout, or to the file given
+ * by the <code>output</code> parameter. With <code>rewriteTo</code>, the matching references are
+ * then rewritten in place to the new version, straight by their indexed byte ranges.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(
+    name = "references",
+    defaultPhase = LifecyclePhase.NONE,
+    requiresProject = false,
+    aggregator = true)
+public class References extends SemverMojo {
+
+  /** Root directory of the tree of POM files to index */
+  @Parameter(property = "referencesRoot", defaultValue = "${session.executionRootDirectory}")
+  protected File referencesRoot;
+
+  /** Names of directories not to descend into */
+  @Parameter(
+      property = "referencesExcludes",
+      defaultValue = "target,.git,.svn,.hg,.idea,.mvn,.semver,node_modules")
+  protected String referencesExcludes;
+
+  /** Referenced version text to match, e.g. <code>1.2.3</code> or <code>${lib.version}</code> */
+  @Parameter(property = "referencedVersion")
+  protected String referencedVersion;
+
+  /**
+   * Referenced artifact to match, as <code>groupId:artifactId</code>, artifact id, or property name
+   */
+  @Parameter(property = "referencedArtifact")
+  protected String referencedArtifact;
+
+  /** New version to rewrite all matching references to */
+  @Parameter(property = "rewriteTo")
+  protected String rewriteTo;
+
+  /** File to write the JSON lines of the matching references to, instead of stdout */
+  @Parameter(property = "output")
+  protected File output;
+
+  /**
+   * As an aggregator over a directory tree, this goal runs once regardless of the current project,
+   * so the parent/module filtering of the other goals does not apply.
+   */
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    doExecute();
+  }
+
+  @Override
+  protected void doExecute() throws MojoExecutionException, MojoFailureException {
+    if (rewriteTo != null && referencedVersion == null && referencedArtifact == null) {
+      throw new MojoFailureException(
+          "Rewriting requires referencedVersion or referencedArtifact to select references");
+    }
+    Path root = referencesRoot.toPath().toAbsolutePath().normalize();
+    Set<String> excludes = new HashSet<>(Arrays.asList(referencesExcludes.split("\\s*,\\s*")));
+    ReferenceIndex index;
+    try {
+      index = ReferenceIndex.load(root);
+      for (String failure : index.refresh(excludes)) {
+        logWarn("Skipping malformed %s", failure);
+      }
+      index.save();
+    } catch (IOException e) {
+      logError(e, "Failed to index version references under %s", root);
+      throw new MojoExecutionException(e);
+    }
+    List<ReferenceIndex.Reference> found = index.find(referencedVersion, referencedArtifact);
+    logInfo(
+        "%s version reference(s) found in %s POM file(s) under %s",
+        found.size(), index.size(), root);
+    try (PrintWriter report = openReport()) {
+      found.forEach(reference -> report.println(reference.toJson()));
+      if (report.checkError()) {
+        throw new IOException("Error writing version reference report");
+      }
+    } catch (IOException e) {
+      logError(e, "Failed to write version reference report");
+      throw new MojoExecutionException(e);
+    }
+    if (rewriteTo == null || found.isEmpty()) {
+      return;
+    }
+    try {
+      int files = index.rewrite(found, rewriteTo);
+      index.save();
+      logInfo("%s reference(s) in %s file(s) rewritten to %s", found.size(), files, rewriteTo);
+    } catch (IOException e) {
+      logError(e, "Failed to rewrite version references to %s", rewriteTo);
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  private PrintWriter openReport() throws IOException {
+    if (output == null) {
+      return new PrintWriter(
+          new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+              flush();
+            }
+          });
+    }
+    return new PrintWriter(Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8));
+  }
+}
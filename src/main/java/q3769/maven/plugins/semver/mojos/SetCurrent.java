@@ -24,6 +24,7 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
+import java.util.Optional;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -54,4 +55,9 @@ public class SetCurrent extends Updater {
       throw new MojoFailureException(e);
     }
   }
+
+  @Override
+  protected Optional<String> memoizedParameters() {
+    return Optional.of("semver=" + semver);
+  }
 }
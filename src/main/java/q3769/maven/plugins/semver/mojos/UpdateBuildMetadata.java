@@ -24,20 +24,54 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
 import lombok.NonNull;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import q3769.maven.plugins.semver.LabelUpdater;
+import q3769.maven.plugins.semver.state.BuildSequence;
+import q3769.maven.plugins.semver.state.ContentHasher;
 
 /**
  * Mojo to increment build meta info portion of the SemVer text. If, however, the <code>set</code>
  * parameter is passed in, its value will be used to set as the build metadata label.
  *
+ * <p>The <code>set</code> value <code>@contentHash</code> is generated rather than literal: it
+ * stamps <code>sha.&lt;prefix&gt;</code>, the prefix of the content hash of the project's source
+ * roots, so that the same sources always yield the same build metadata. The <code>set</code> value
+ * <code>@seq:&lt;name&gt;</code> stamps <code>&lt;name&gt;.&lt;N&gt;</code>, with N the next number
+ * of the named sequence kept in the <code>.semver</code> directory of the top-level project, e.g.
+ * <code>build.42</code> for <code>@seq:build</code>.
+ *
  * @author Qingtian Wang
  */
 @Mojo(name = "update-build-metadata", defaultPhase = LifecyclePhase.NONE)
 public class UpdateBuildMetadata extends LabelUpdater {
+  /** <code>set</code> value to stamp the content hash of the project's source roots */
+  public static final String CONTENT_HASH = "@contentHash";
+
+  /** <code>set</code> value prefix to stamp the next number of the named sequence */
+  public static final String SEQUENCE = "@seq:";
+
+  /** Number of hex chars of the content hash stamped by <code>-Dset=@contentHash</code> */
+  @Parameter(property = "contentHashLength", defaultValue = "12")
+  protected int contentHashLength = 12;
+
+  /**
+   * How many numbers of a <code>@seq:</code> sequence to lease at a time; further stamps by the
+   * same process, e.g. in a reactor, a batch or the Maven Daemon, are then drawn in memory, while
+   * the unused rest of the last block is skipped
+   */
+  @Parameter(property = "seqBlockSize", defaultValue = "1")
+  protected int seqBlockSize = 1;
+
+  /**
+   * If true, <code>@seq:</code> stamps the number the sequence would hand out next, without drawing
+   * it, e.g. to preview outcomes
+   */
+  boolean peekingSequence;
 
   /**
    * @param version to increment
@@ -58,6 +92,11 @@ public class UpdateBuildMetadata extends LabelUpdater {
 
   @Override
   protected Version setLabel(@NonNull Version version, String label) throws MojoFailureException {
+    if (CONTENT_HASH.equals(label)) {
+      label = contentHashLabel();
+    } else if (label.startsWith(SEQUENCE)) {
+      label = sequenceLabel(label.substring(SEQUENCE.length()));
+    }
     try {
       return version.withBuildMetadata(label);
     } catch (Exception e) {
@@ -65,4 +104,34 @@ public class UpdateBuildMetadata extends LabelUpdater {
       throw new MojoFailureException(e);
     }
   }
+
+  private String contentHashLabel() throws MojoFailureException {
+    if (project == null) {
+      throw new MojoFailureException(CONTENT_HASH + " requires a Maven project to hash");
+    }
+    if (contentHashLength < 1 || contentHashLength > 64) {
+      throw new MojoFailureException(
+          "contentHashLength must be between 1 and 64, but was " + contentHashLength);
+    }
+    try {
+      String hash = ContentHasher.hashTree(project.getBasedir().toPath(), sourceRoots());
+      return "sha." + hash.substring(0, contentHashLength);
+    } catch (IOException e) {
+      logError(e, "Failed to hash content of project '%s'", project.getName());
+      throw new MojoFailureException(e);
+    }
+  }
+
+  private String sequenceLabel(String name) throws MojoFailureException {
+    if (project == null) {
+      throw new MojoFailureException(SEQUENCE + " requires a Maven project to keep the sequence");
+    }
+    try {
+      BuildSequence sequence = BuildSequence.of(multiModuleProjectDirectory(), name);
+      return name + '.' + (peekingSequence ? sequence.peek() : sequence.next(seqBlockSize));
+    } catch (IOException | IllegalArgumentException e) {
+      logError(e, "Failed to read the next number of sequence '%s'", name);
+      throw new MojoFailureException(e);
+    }
+  }
 }
@@ -24,36 +24,91 @@
 package q3769.maven.plugins.semver.mojos;
 
 import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Pattern;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import q3769.maven.plugins.semver.LabelUpdater;
+import q3769.maven.plugins.semver.state.PreReleaseCounter;
+import q3769.maven.plugins.semver.state.VersionHistory;
 
 /**
  * Mojo to increment pre-release portion of the SemVer text. If, however, the <code>set</code>
  * parameter is passed in, then its value will be used to set as the pre-release label.
  *
+ * <p>With <code>-DhistoryAware</code>, a numbered pre-release such as <code>rc.3</code> is never
+ * reused: its counter is raised above the highest counter of the same label and normal version in
+ * the project's recorded version history, e.g. after the version went back to an earlier
+ * pre-release through a finalize and re-branch cycle.
+ *
  * @author Qingtian Wang
  */
 @Mojo(name = "update-pre-release", defaultPhase = LifecyclePhase.NONE)
 public class UpdatePreRelease extends LabelUpdater {
+  private static final Pattern NUMBERED_LABEL = Pattern.compile(".+\\.\\d+");
+
+  /**
+   * Flag to number the pre-release above every counter recorded for its label and normal version in
+   * the project's <code>.semver/history</code>
+   */
+  @Parameter(property = "historyAware", defaultValue = "false")
+  protected boolean historyAware;
 
   @Override
   protected Version incrementLabel(Version version) throws MojoFailureException {
+    Version next;
     try {
-      return version.nextPreReleaseVersion();
+      next = version.nextPreReleaseVersion();
     } catch (Exception e) {
       throw new MojoFailureException("Failed to increment pre-release label for " + version, e);
     }
+    return historyAware ? raiseAboveHistory(next) : next;
   }
 
   @Override
   protected Version setLabel(Version version, String label) throws MojoFailureException {
+    Version next;
     try {
-      return version.nextPreReleaseVersion(label);
+      next = version.nextPreReleaseVersion(label);
     } catch (Exception e) {
       logError(e, "Failed to set pre-release label for %s", version);
       throw new MojoFailureException(e);
     }
+    boolean numberedExplicitly = NUMBERED_LABEL.matcher(label).matches();
+    return historyAware && !numberedExplicitly ? raiseAboveHistory(next) : next;
+  }
+
+  private Version raiseAboveHistory(Version next) throws MojoFailureException {
+    Optional<PreReleaseCounter> numbered = PreReleaseCounter.of(next);
+    if (!numbered.isPresent()) {
+      return next;
+    }
+    if (project == null) {
+      throw new MojoFailureException(
+          "historyAware requires a Maven project to read the history of");
+    }
+    PreReleaseCounter preRelease = numbered.get();
+    OptionalLong highest;
+    try {
+      highest = VersionHistory.open(project.getBasedir().toPath())
+          .highestPreReleaseCounter(preRelease.getNormalVersion(), preRelease.getLabel());
+    } catch (IOException e) {
+      logError(e, "Failed to read version history of project '%s'", project.getName());
+      throw new MojoFailureException(e);
+    }
+    if (!highest.isPresent() || highest.getAsLong() < preRelease.getCounter()) {
+      return next;
+    }
+    Version raised = next.toBuilder()
+        .setPreReleaseVersion(preRelease.getLabel() + "." + (highest.getAsLong() + 1))
+        .build();
+    logInfo(
+        "Pre-release %s already recorded up to counter %s in version history, raised to %s",
+        next, highest.getAsLong(), raised);
+    return raised;
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.LabelUpdater;
+import q3769.maven.plugins.semver.Updater;
+
+/**
+ * Creates the {@link Updater} of each update goal by goal name, configured from plain properties
+ * named the same as the goals' CLI parameters, so that a goal's update can be applied outside of a
+ * regular mojo execution, e.g. to many projects in one run.
+ *
+ * <p>Every parameter that shapes the computed version is copied. The parameters that only shape how
+ * a regular goal execution writes the POM - <code>cas</code>, <code>propagate</code>, <code>
+ * changedOnly</code>, <code>memoize</code> - have no effect here, and are rejected rather than
+ * silently ignored.
+ *
+ * @author Qingtian Wang
+ */
+public final class Updaters {
+  /** Property of the SemVer parameter of the set-current, pick-newer and merge goals */
+  public static final String SEMVER = "semver";
+
+  /** Property of the label parameter of the pre-release and build metadata goals */
+  public static final String SET = "set";
+
+  /** Property of the SNAPSHOT labeling flag */
+  public static final String SNAPSHOT = "snapshot";
+
+  /** Property of the history aware numbering flag of the pre-release goal */
+  public static final String HISTORY_AWARE = "historyAware";
+
+  /** Property of the sequence block size of the build metadata goal */
+  public static final String SEQ_BLOCK_SIZE = "seqBlockSize";
+
+  /** Property of the content hash length of the build metadata goal */
+  public static final String CONTENT_HASH_LENGTH = "contentHashLength";
+
+  private static final List<String> UNSUPPORTED =
+      Arrays.asList("cas", "propagate", "changedOnly", "memoize");
+
+  private static final Map<String, Function<Properties, Updater>> FACTORIES = new LinkedHashMap<>();
+
+  static {
+    FACTORIES.put("increment-major", p -> new IncrementMajor());
+    FACTORIES.put("increment-minor", p -> new IncrementMinor());
+    FACTORIES.put("increment-patch", p -> new IncrementPatch());
+    FACTORIES.put("calendar-major", p -> new CalendarMajor());
+    FACTORIES.put("calendar-minor", p -> new CalendarMinor());
+    FACTORIES.put("calendar-patch", p -> new CalendarPatch());
+    FACTORIES.put("finalize-current", p -> new FinalizeCurrent());
+    FACTORIES.put("set-current", p -> {
+      SetCurrent setCurrent = new SetCurrent();
+      setCurrent.semver = p.getProperty(SEMVER);
+      return setCurrent;
+    });
+    FACTORIES.put("pick-newer", p -> {
+      PickNewer pickNewer = new PickNewer();
+      pickNewer.otherSemVer = p.getProperty(SEMVER);
+      return pickNewer;
+    });
+    FACTORIES.put("merge", p -> {
+      Merge merge = new Merge();
+      merge.otherSemVer = p.getProperty(SEMVER);
+      return merge;
+    });
+    FACTORIES.put("merge-calendar", p -> {
+      MergeCalendar mergeCalendar = new MergeCalendar();
+      mergeCalendar.otherSemVer = p.getProperty(SEMVER);
+      return mergeCalendar;
+    });
+    FACTORIES.put("update-pre-release", p -> {
+      UpdatePreRelease updatePreRelease = withLabel(new UpdatePreRelease(), p);
+      updatePreRelease.historyAware = Boolean.parseBoolean(p.getProperty(HISTORY_AWARE));
+      return updatePreRelease;
+    });
+    FACTORIES.put("update-build-metadata", p -> {
+      UpdateBuildMetadata updateBuildMetadata = withLabel(new UpdateBuildMetadata(), p);
+      updateBuildMetadata.seqBlockSize = intProperty(p, SEQ_BLOCK_SIZE, 1);
+      updateBuildMetadata.contentHashLength = intProperty(p, CONTENT_HASH_LENGTH, 12);
+      return updateBuildMetadata;
+    });
+  }
+
+  private Updaters() {}
+
+  private static <T extends LabelUpdater> T withLabel(T labelUpdater, Properties properties) {
+    labelUpdater.setSet(properties.getProperty(SET));
+    return labelUpdater;
+  }
+
+  private static int intProperty(Properties properties, String name, int defaultValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          String.format("Parameter %s must be an integer, but was '%s'", name, value), e);
+    }
+  }
+
+  /**
+   * @param properties parameters of the goals, by CLI property name
+   * @throws IllegalArgumentException if a parameter is set that only applies to a regular goal
+   *     execution
+   */
+  public static void checkParameters(@NonNull Properties properties) {
+    for (String parameter : UNSUPPORTED) {
+      if (Boolean.parseBoolean(properties.getProperty(parameter))) {
+        throw new IllegalArgumentException(String.format(
+            "Parameter %s only applies to a regular goal execution, and is not supported here",
+            parameter));
+      }
+    }
+  }
+
+  /** @return names of all update goals, in the order of the normal, calendar, label goals */
+  public static Set<String> goals() {
+    return Collections.unmodifiableSet(FACTORIES.keySet());
+  }
+
+  /**
+   * @param goal name of the update goal, e.g. <code>increment-minor</code>
+   * @param properties parameters of the goal, by CLI property name
+   * @return the configured updater of the goal
+   * @throws IllegalArgumentException if the goal is not an update goal, or a parameter is invalid
+   *     or not supported outside a regular goal execution
+   */
+  public static Updater create(@NonNull String goal, @NonNull Properties properties) {
+    checkParameters(properties);
+    Function<Properties, Updater> factory = FACTORIES.get(goal);
+    if (factory == null) {
+      throw new IllegalArgumentException(
+          String.format("'%s' is not one of the update goals %s", goal, FACTORIES.keySet()));
+    }
+    Updater updater = factory.apply(properties);
+    updater.setAddingSnapshotLabel(Boolean.parseBoolean(properties.getProperty(SNAPSHOT)));
+    return updater;
+  }
+}
@@ -23,14 +23,17 @@
  */
 package q3769.maven.plugins.semver.mojos;
 
+import com.github.zafarkhaja.semver.Version;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.VersionRange;
 
 /**
- * Verifies the current POM version is a valid SemVer
+ * Verifies the current POM version is a valid SemVer and, if a range is given, that it is in the
+ * range
  *
  * @author Qingtian Wang
  */
@@ -41,16 +44,39 @@ public class VerifyCurrent extends SemverMojo {
   @Parameter(property = "force-stdout", defaultValue = "false")
   protected boolean forceStdOut;
 
+  /**
+   * SemVer range expression the POM version must satisfy, e.g. <code>&gt;=1.4.0 &lt;2.0.0-0 ||
+   * ^3.1</code>
+   *
+   * @see VersionRange
+   */
+  @Parameter(property = "range")
+  protected String range;
+
   @Override
   protected void doExecute() throws MojoFailureException {
     final String version = originalPomVersion();
+    Version semver;
     try {
-      requireValidSemVer(version);
+      semver = requireValidSemVer(version);
     } catch (Exception e) {
       logError(e, "POM version '%s' is not a valid SemVer", version);
       throw new MojoFailureException(e);
     }
     logInfo("POM version '%s' is a valid SemVer", version);
+    if (range != null && !range.trim().isEmpty()) {
+      VersionRange versionRange;
+      try {
+        versionRange = VersionRange.compile(range);
+      } catch (IllegalArgumentException e) {
+        throw new MojoFailureException(e.getMessage(), e);
+      }
+      if (!versionRange.contains(semver)) {
+        throw new MojoFailureException(
+            String.format("POM version '%s' is not in range '%s'", version, range));
+      }
+      logInfo("POM version '%s' is in range '%s'", version, range);
+    }
     if (forceStdOut) {
       System.out.println(version);
     }
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import q3769.maven.plugins.semver.SemverMojo;
+
+/**
+ * Verifies, in one aggregated run over the whole reactor, that every module version, parent
+ * reference and inter-module dependency version is a valid SemVer and consistent with the actual
+ * versions of the reactor projects. Modules are checked in parallel; one JSON line per module is
+ * streamed to stdout, or to the file given by the <code>output</code> parameter.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "verify-reactor", defaultPhase = LifecyclePhase.NONE, aggregator = true)
+public class VerifyReactor extends SemverMojo {
+
+  /** File to write the JSON lines report to, instead of stdout */
+  @Parameter(property = "output")
+  protected File output;
+
+  /** Whether to fail the build if any issue is found in the reactor */
+  @Parameter(property = "failOnIssue", defaultValue = "true")
+  protected boolean failOnIssue;
+
+  /**
+   * As an aggregator, this goal runs once for the whole reactor, so the parent/module filtering of
+   * the other goals does not apply.
+   */
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    doExecute();
+  }
+
+  @Override
+  protected void doExecute() throws MojoExecutionException, MojoFailureException {
+    List<MavenProject> projects = session.getProjects();
+    logInfo("Verifying versions of %s reactor project(s)...", projects.size());
+    ReactorVersionCheck check = new ReactorVersionCheck(projects);
+    AtomicInteger projectsWithIssues = new AtomicInteger();
+    try (PrintWriter report = openReport()) {
+      projects.parallelStream().map(check::check).forEachOrdered(result -> {
+        if (result.hasIssues()) {
+          projectsWithIssues.incrementAndGet();
+        }
+        report.println(result.toJson());
+      });
+      if (report.checkError()) {
+        throw new IOException("Error writing reactor version report");
+      }
+    } catch (IOException e) {
+      logError(e, "Failed to write reactor version report");
+      throw new MojoExecutionException(e);
+    }
+    if (projectsWithIssues.get() == 0) {
+      logInfo("All %s reactor project version(s) are valid and consistent", projects.size());
+      return;
+    }
+    String message = String.format(
+        "%s of %s reactor project(s) have version issues",
+        projectsWithIssues.get(), projects.size());
+    if (failOnIssue) {
+      throw new MojoFailureException(message);
+    }
+    logWarn(message);
+  }
+
+  private PrintWriter openReport() throws IOException {
+    if (output == null) {
+      return new PrintWriter(
+          new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+              flush();
+            }
+          });
+    }
+    return new PrintWriter(Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8));
+  }
+}
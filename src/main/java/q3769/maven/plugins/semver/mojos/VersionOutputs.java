@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Files derived from the project version: a <code>version.properties</code> file and a Java class
+ * holding the version as constants. Each output is rewritten only if its content actually changes,
+ * so that tools watching the outputs, such as an IDE's incremental compiler, are not triggered
+ * needlessly.
+ *
+ * @author Qingtian Wang
+ */
+final class VersionOutputs {
+  private final Path propertiesFile;
+  private final Path javaFile;
+  private final String javaPackage;
+  private final String javaClass;
+
+  /**
+   * @param propertiesFile to write the version properties into, or null for none
+   * @param javaSourceDirectory root directory of the generated Java class
+   * @param javaClassName fully qualified name of the Java class to generate, or null for none
+   */
+  VersionOutputs(Path propertiesFile, Path javaSourceDirectory, String javaClassName) {
+    this.propertiesFile = propertiesFile;
+    if (javaClassName == null || javaClassName.trim().isEmpty()) {
+      this.javaFile = null;
+      this.javaPackage = null;
+      this.javaClass = null;
+      return;
+    }
+    String className = javaClassName.trim();
+    int lastDot = className.lastIndexOf('.');
+    this.javaPackage = lastDot < 0 ? null : className.substring(0, lastDot);
+    this.javaClass = className.substring(lastDot + 1);
+    this.javaFile = javaSourceDirectory.resolve(className.replace('.', '/') + ".java");
+  }
+
+  /**
+   * @param version to bring the outputs in line with
+   * @return the outputs actually rewritten, empty if all were already up-to-date
+   * @throws IOException if any output cannot be read or written
+   */
+  List<Path> sync(@NonNull Version version) throws IOException {
+    List<Path> written = new ArrayList<>(2);
+    if (propertiesFile != null && writeIfChanged(propertiesFile, properties(version))) {
+      written.add(propertiesFile);
+    }
+    if (javaFile != null && writeIfChanged(javaFile, javaSource(version))) {
+      written.add(javaFile);
+    }
+    return written;
+  }
+
+  private static boolean writeIfChanged(Path file, String content) throws IOException {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    try {
+      if (Arrays.equals(bytes, Files.readAllBytes(file))) {
+        return false;
+      }
+    } catch (NoSuchFileException e) {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+    }
+    PomWriter.write(file, bytes);
+    return true;
+  }
+
+  static String properties(Version version) {
+    return "version=" + version + '\n'
+        + "major=" + version.majorVersion() + '\n'
+        + "minor=" + version.minorVersion() + '\n'
+        + "patch=" + version.patchVersion() + '\n'
+        + "preRelease=" + version.preReleaseVersion().orElse("") + '\n'
+        + "buildMetadata=" + version.buildMetadata().orElse("") + '\n';
+  }
+
+  String javaSource(Version version) {
+    StringBuilder source = new StringBuilder();
+    if (javaPackage != null) {
+      source.append("package ").append(javaPackage).append(";\n\n");
+    }
+    return source
+        .append("/** Project version, generated by semver:watch - do not edit */\n")
+        .append("public final class ")
+        .append(javaClass)
+        .append(" {\n")
+        .append("  public static final String VERSION = \"")
+        .append(version)
+        .append("\";\n")
+        .append("  public static final long MAJOR = ")
+        .append(version.majorVersion())
+        .append("L;\n")
+        .append("  public static final long MINOR = ")
+        .append(version.minorVersion())
+        .append("L;\n")
+        .append("  public static final long PATCH = ")
+        .append(version.patchVersion())
+        .append("L;\n\n")
+        .append("  private ")
+        .append(javaClass)
+        .append("() {}\n")
+        .append("}\n")
+        .toString();
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import q3769.maven.plugins.semver.SemverMojo;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.RevisionProperty;
+
+/**
+ * Keeps files derived from the project version - a <code>version.properties</code> file and,
+ * optionally, a generated Java constant class - in sync with the POM version while the POM is
+ * edited. The goal blocks on a file system watch of the POM, and of the file defining the
+ * CI-friendly revision if used, so it uses no CPU while idle; a burst of saves is taken as one
+ * change once the files have been quiet for the debounce interval. Outputs are only rewritten if
+ * their content changes. A module inheriting its version takes its parent's. Stop the goal with
+ * Ctrl-C, or set <code>watchOnce</code> to sync once and return, e.g. when bound to the <code>
+ * generate-sources</code> phase; the outputs are then added to the project's compile source roots
+ * and resources.
+ *
+ * @author Qingtian Wang
+ */
+@Mojo(name = "watch", defaultPhase = LifecyclePhase.NONE)
+public class Watch extends SemverMojo {
+  private static final String POM = "pom.xml";
+
+  /** Properties file to keep in sync with the version; set empty for none */
+  @Parameter(
+      property = "versionProperties",
+      defaultValue = "${project.build.directory}/generated-resources/semver/version.properties")
+  protected File versionProperties;
+
+  /** Fully qualified name of the Java class to generate with the version constants, if any */
+  @Parameter(property = "versionClass")
+  protected String versionClass;
+
+  /** Root directory of the generated Java class */
+  @Parameter(
+      property = "versionClassDirectory",
+      defaultValue = "${project.build.directory}/generated-sources/semver")
+  protected File versionClassDirectory;
+
+  /** Milliseconds the watched files must be quiet after a change before the outputs are synced */
+  @Parameter(property = "watchDebounce", defaultValue = "250")
+  protected long watchDebounce;
+
+  /** Whether to sync the outputs once and return, rather than keep watching */
+  @Parameter(property = "watchOnce", defaultValue = "false")
+  protected boolean watchOnce;
+
+  @Override
+  protected void doExecute() throws MojoExecutionException, MojoFailureException {
+    VersionOutputs outputs = new VersionOutputs(
+        versionProperties == null || versionProperties.getPath().isEmpty()
+            ? null
+            : versionProperties.toPath(),
+        versionClassDirectory.toPath(),
+        versionClass);
+    Path pom = project.getBasedir().toPath().resolve(POM).toAbsolutePath().normalize();
+    if (watchOnce) {
+      try {
+        sync(outputs, pom);
+      } catch (IOException e) {
+        logError(e, "Failed to sync version outputs of %s", pom);
+        throw new MojoExecutionException(e);
+      } catch (IllegalArgumentException e) {
+        throw new MojoFailureException(e.getMessage(), e);
+      }
+      registerOutputs();
+      return;
+    }
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      Set<Path> watchedFiles = syncAndRegister(outputs, pom, watchService, new HashSet<>());
+      logInfo("Watching %s for version changes, Ctrl-C to stop...", watchedFiles);
+      while (!Thread.currentThread().isInterrupted()) {
+        boolean changed = drain(watchService.take(), watchedFiles);
+        WatchKey next;
+        while ((next = watchService.poll(watchDebounce, TimeUnit.MILLISECONDS)) != null) {
+          changed |= drain(next, watchedFiles);
+        }
+        if (changed) {
+          watchedFiles = syncAndRegister(outputs, pom, watchService, watchedFiles);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      logError(e, "Failed to watch %s", pom);
+      throw new MojoExecutionException(e);
+    }
+  }
+
+  /** @return files to watch from now on: the POM, and the file defining the revision if used */
+  private Set<Path> syncAndRegister(
+      VersionOutputs outputs, Path pom, WatchService watchService, Set<Path> watchedFiles)
+      throws IOException {
+    Set<Path> files = new HashSet<>();
+    files.add(pom);
+    try {
+      sync(outputs, pom).ifPresent(files::add);
+    } catch (IOException | RuntimeException e) {
+      logWarn("Version outputs left unchanged, as the version cannot be read: %s", e);
+    }
+    for (Path file : files) {
+      if (!watchedFiles.contains(file)) {
+        file.getParent()
+            .register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+      }
+    }
+    files.addAll(watchedFiles);
+    return files;
+  }
+
+  /**
+   * Adds the outputs to the project's compile source roots and resources, so that the build run
+   * with <code>watchOnce</code> compiles and packages them
+   */
+  private void registerOutputs() {
+    if (versionClass != null && !versionClass.isEmpty()) {
+      project.addCompileSourceRoot(versionClassDirectory.getAbsolutePath());
+    }
+    if (versionProperties == null || versionProperties.getPath().isEmpty()) {
+      return;
+    }
+    String directory = versionProperties.getAbsoluteFile().getParent();
+    String fileName = versionProperties.getName();
+    boolean registered = project.getResources().stream()
+        .anyMatch(resource ->
+            directory.equals(resource.getDirectory()) && resource.getIncludes().contains(fileName));
+    if (!registered) {
+      Resource resource = new Resource();
+      resource.setDirectory(directory);
+      resource.addInclude(fileName);
+      project.addResource(resource);
+    }
+  }
+
+  /** @return the file defining the revision, if the POM version is the CI-friendly placeholder */
+  private Optional<Path> sync(VersionOutputs outputs, Path pom) throws IOException {
+    String text = PomDocument.projectVersionOf(PomDocument.read(pom).getContent())
+        .orElseThrow(() -> new IOException("No project or parent version element in " + pom));
+    Optional<RevisionProperty> revision = Optional.empty();
+    if (RevisionProperty.PLACEHOLDER.equals(text)) {
+      revision = RevisionProperty.locate(multiModuleProjectDirectory());
+      text = revision
+          .orElseThrow(() -> new IOException("No revision property defined for " + pom))
+          .read();
+    }
+    Version version = requireValidSemVer(text);
+    List<Path> written = outputs.sync(version);
+    if (written.isEmpty()) {
+      logDebug("Version outputs already at %s", version);
+    } else {
+      logInfo("Synced %s to version %s", written, version);
+    }
+    return revision.map(r -> r.getFile().toAbsolutePath().normalize());
+  }
+
+  private static boolean drain(WatchKey key, Set<Path> watchedFiles) {
+    boolean relevant = false;
+    Path directory = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW
+          || watchedFiles.contains(directory.resolve((Path) event.context()));
+    }
+    key.reset();
+    return relevant;
+  }
+}
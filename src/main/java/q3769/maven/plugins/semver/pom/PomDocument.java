@@ -0,0 +1,293 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+
+/**
+ * Raw text of a POM file along with the locations of all its leaf elements, as located by a single
+ * {@link PomScanner} pass. Values are rewritten by splicing the new text into the original, so the
+ * rest of the file, including formatting and comments, stays byte-for-byte unchanged.
+ *
+ * @author Qingtian Wang
+ */
+public final class PomDocument {
+  /** Element path of the project's own version */
+  public static final String PROJECT_VERSION = "project/version";
+
+  /** Element path of the parent reference's version */
+  public static final String PARENT_VERSION = "project/parent/version";
+
+  /**
+   * Placeholders a declaration may use for the group id of the declaring project, or of its parent,
+   * resolved to the declaring POM's coordinates in its version references
+   */
+  public static final List<String> GROUP_ID_PLACEHOLDERS = Collections.unmodifiableList(
+      Arrays.asList("${project.groupId}", "${pom.groupId}", "${project.parent.groupId}"));
+
+  private static final String PROPERTIES = "project/properties/";
+  private static final String DEFAULT_PLUGIN_GROUP_ID = "org.apache.maven.plugins";
+  private static final int CACHE_CAPACITY = 1024;
+
+  /**
+   * Scanned documents by POM file, kept for the life of the plugin's class loader, e.g. across
+   * builds in the Maven Daemon. A cached document is only reused if its text equals the file's
+   * current content, so an edited file is always re-scanned.
+   */
+  private static final Map<Path, PomDocument> CACHE = new ConcurrentHashMap<>();
+
+  private final String content;
+  private final List<PomElement> elements;
+
+  private PomDocument(String content, List<PomElement> elements) {
+    this.content = content;
+    this.elements = Collections.unmodifiableList(elements);
+  }
+
+  /**
+   * @param content POM text
+   * @return scanned document
+   */
+  public static @NonNull PomDocument parse(@NonNull String content) {
+    List<PomElement> elements = new ArrayList<>();
+    PomScanner.scan(content, (path, id, parentId, start, end) -> {
+      elements.add(new PomElement(path, id, parentId, start, end));
+      return true;
+    });
+    return new PomDocument(content, elements);
+  }
+
+  /**
+   * @param pom path of the POM file
+   * @return scanned document, reused from earlier reads if the file's content is unchanged
+   * @throws IOException if the file cannot be read
+   */
+  public static @NonNull PomDocument read(@NonNull Path pom) throws IOException {
+    String content = new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+    Path key = pom.toAbsolutePath().normalize();
+    PomDocument cached = CACHE.get(key);
+    if (cached != null && cached.content.equals(content)) {
+      return cached;
+    }
+    PomDocument document = parse(content);
+    if (CACHE.size() >= CACHE_CAPACITY) {
+      CACHE.clear();
+    }
+    CACHE.put(key, document);
+    return document;
+  }
+
+  /** Empties the cache of scanned documents */
+  static void clearCache() {
+    CACHE.clear();
+  }
+
+  /**
+   * Reads the effective literal version of a POM without scanning past the project's own version
+   * element: the project's own version if present, otherwise the inherited parent version.
+   *
+   * @param content POM text
+   * @return the project's own or, if absent, inherited version text, if any
+   */
+  public static Optional<String> projectVersionOf(@NonNull String content) {
+    String[] versions = new String[2];
+    PomScanner.scan(content, (path, id, parentId, start, end) -> {
+      if (PROJECT_VERSION.equals(path)) {
+        versions[0] = content.substring(start, end);
+        return false;
+      }
+      if (PARENT_VERSION.equals(path)) {
+        versions[1] = content.substring(start, end);
+      }
+      return true;
+    });
+    return Optional.ofNullable(versions[0] != null ? versions[0] : versions[1]);
+  }
+
+  /** @return raw POM text */
+  public String getContent() {
+    return content;
+  }
+
+  /** @return all leaf elements in document order */
+  public List<PomElement> getElements() {
+    return elements;
+  }
+
+  /**
+   * @param path element path, e.g. {@link #PROJECT_VERSION}
+   * @return the first leaf element of the path, if any
+   */
+  public Optional<PomElement> find(String path) {
+    return elements.stream().filter(e -> e.getPath().equals(path)).findFirst();
+  }
+
+  /**
+   * @param path element path
+   * @return text value of the first leaf element of the path, if any
+   */
+  public Optional<String> value(String path) {
+    return find(path).map(this::valueOf);
+  }
+
+  /**
+   * @param element in this document
+   * @return text value of the element
+   */
+  public String valueOf(@NonNull PomElement element) {
+    return content.substring(element.getStart(), element.getEnd());
+  }
+
+  /**
+   * @param name of the property
+   * @return the property element in the <code>properties</code> section, if any
+   */
+  public Optional<PomElement> findProperty(String name) {
+    return find(PROPERTIES + name);
+  }
+
+  /** @return the project's own version element, if any */
+  public Optional<PomElement> findProjectVersion() {
+    return find(PROJECT_VERSION);
+  }
+
+  /**
+   * @return <code>groupId:artifactId</code> of the project, the group id possibly inherited from
+   *     the parent reference, if both are present
+   */
+  public Optional<String> findCoordinates() {
+    Optional<String> groupId = value("project/groupId");
+    if (!groupId.isPresent()) {
+      groupId = value("project/parent/groupId");
+    }
+    Optional<String> artifactId = value("project/artifactId");
+    return groupId.isPresent() && artifactId.isPresent()
+        ? Optional.of(groupId.get() + ':' + artifactId.get())
+        : Optional.empty();
+  }
+
+  /**
+   * @param pom path of this document's file, to be recorded in the references
+   * @return all explicit version references of this document's parent, dependency, managed
+   *     dependency, plugin and extension declarations, in document order; a group id given as one
+   *     of the {@link #GROUP_ID_PLACEHOLDERS} is resolved to this document's own or parent group id
+   */
+  public List<VersionReference> findVersionReferences(@NonNull Path pom) {
+    Map<Integer, String[]> declarations = new HashMap<>();
+    Map<Integer, PomElement> versions = new HashMap<>();
+    List<Integer> order = new ArrayList<>();
+    for (PomElement element : elements) {
+      String path = element.getPath();
+      String containerPath = path.substring(0, Math.max(path.lastIndexOf('/'), 0));
+      if (VersionReference.kindOf(containerPath) == null) {
+        continue;
+      }
+      String[] declaration = declarations.computeIfAbsent(element.getParentId(), id -> {
+        order.add(id);
+        return new String[] {containerPath, null, null};
+      });
+      switch (element.getName()) {
+        case "groupId":
+          declaration[1] = valueOf(element);
+          break;
+        case "artifactId":
+          declaration[2] = valueOf(element);
+          break;
+        case "version":
+          versions.put(element.getParentId(), element);
+          break;
+        default:
+      }
+    }
+    List<VersionReference> references = new ArrayList<>();
+    for (Integer id : order) {
+      PomElement version = versions.get(id);
+      String[] declaration = declarations.get(id);
+      if (version == null || declaration[2] == null) {
+        continue;
+      }
+      VersionReference.Kind kind = VersionReference.kindOf(declaration[0]);
+      String groupId = declaration[1];
+      if (groupId == null && kind == VersionReference.Kind.PLUGIN) {
+        groupId = DEFAULT_PLUGIN_GROUP_ID;
+      } else if (GROUP_ID_PLACEHOLDERS.contains(groupId)) {
+        groupId = resolveGroupId(groupId);
+      }
+      references.add(
+          new VersionReference(pom, kind, groupId, declaration[2], valueOf(version), version));
+    }
+    return references;
+  }
+
+  /**
+   * @param placeholder one of the {@link #GROUP_ID_PLACEHOLDERS}
+   * @return the group id the placeholder stands for in this document, or the placeholder itself if
+   *     this document does not declare it
+   */
+  private String resolveGroupId(String placeholder) {
+    Optional<String> parentGroupId = value("project/parent/groupId");
+    Optional<String> groupId = placeholder.equals("${project.parent.groupId}")
+        ? parentGroupId
+        : Optional.ofNullable(value("project/groupId").orElse(parentGroupId.orElse(null)));
+    return groupId.orElse(placeholder);
+  }
+
+  /**
+   * @param newValues new text values keyed by elements of this document
+   * @return the POM text with the values of the given elements replaced
+   */
+  public String withValues(@NonNull Map<PomElement, String> newValues) {
+    List<Map.Entry<PomElement, String>> edits = new ArrayList<>(newValues.entrySet());
+    edits.sort(Comparator.comparingInt(e -> e.getKey().getStart()));
+    StringBuilder edited = new StringBuilder(content.length() + 16 * edits.size());
+    int copied = 0;
+    for (Map.Entry<PomElement, String> edit : edits) {
+      edited.append(content, copied, edit.getKey().getStart()).append(edit.getValue());
+      copied = edit.getKey().getEnd();
+    }
+    return edited.append(content, copied, content.length()).toString();
+  }
+
+  /**
+   * @param element of this document
+   * @param newValue new text value of the element
+   * @return the POM text with the value of the element replaced
+   */
+  public String withValue(@NonNull PomElement element, @NonNull String newValue) {
+    return withValues(Collections.singletonMap(element, newValue));
+  }
+}
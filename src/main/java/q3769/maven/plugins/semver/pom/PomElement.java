@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+/**
+ * Location of a leaf element's text content in the raw text of a POM file
+ *
+ * @author Qingtian Wang
+ */
+public final class PomElement {
+  private final String path;
+  private final int id;
+  private final int parentId;
+  private final int start;
+  private final int end;
+
+  PomElement(String path, int id, int parentId, int start, int end) {
+    this.path = path;
+    this.id = id;
+    this.parentId = parentId;
+    this.start = start;
+    this.end = end;
+  }
+
+  /** @return slash-separated element path, e.g. <code>project/parent/version</code> */
+  public String getPath() {
+    return path;
+  }
+
+  /** @return unique id of the element within its document */
+  public int getId() {
+    return id;
+  }
+
+  /** @return id of the enclosing element, shared by all sibling elements */
+  public int getParentId() {
+    return parentId;
+  }
+
+  /** @return character offset of the start of the trimmed text content */
+  public int getStart() {
+    return start;
+  }
+
+  /** @return character offset of the end of the trimmed text content */
+  public int getEnd() {
+    return end;
+  }
+
+  /** @return simple name of the element, i.e. the last segment of its path */
+  public String getName() {
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  @Override
+  public String toString() {
+    return path + "@" + start + ".." + end;
+  }
+}
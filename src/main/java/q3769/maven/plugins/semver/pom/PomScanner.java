@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.NonNull;
+
+/**
+ * Single-pass, allocation-light scanner of POM XML text. Instead of building a full model, it walks
+ * the raw text once and reports the location of every leaf element (an element with no child
+ * elements, such as <code>&lt;version&gt;</code>) along with its element path, so that values can
+ * be read and rewritten in place without touching the rest of the file's formatting.
+ *
+ * <p>The scanner understands just enough XML for POM files: comments, processing instructions,
+ * CDATA sections, DOCTYPE declarations, and quoted attribute values.
+ *
+ * @author Qingtian Wang
+ */
+public final class PomScanner {
+
+  private PomScanner() {}
+
+  /**
+   * @param xml POM text to scan
+   * @param visitor to receive every leaf element in document order
+   * @throws IllegalArgumentException if the text is not well-formed enough to be scanned
+   */
+  public static void scan(@NonNull String xml, @NonNull Visitor visitor) {
+    StringBuilder path = new StringBuilder();
+    List<Frame> stack = new ArrayList<>();
+    int nextId = 0;
+    int i = xml.indexOf('<');
+    while (i >= 0) {
+      if (xml.startsWith("<!--", i)) {
+        i = skipPast(xml, i, "-->");
+      } else if (xml.startsWith("<![CDATA[", i)) {
+        i = skipPast(xml, i, "]]>");
+      } else if (xml.startsWith("<?", i)) {
+        i = skipPast(xml, i, "?>");
+      } else if (xml.startsWith("<!", i)) {
+        i = skipDeclaration(xml, i);
+      } else if (xml.startsWith("</", i)) {
+        int tagEnd = skipPast(xml, i, ">");
+        if (stack.isEmpty()) {
+          throw malformed(xml, i, "unexpected end tag");
+        }
+        Frame frame = stack.remove(stack.size() - 1);
+        int nameEnd = i + 2 + frame.name.length();
+        if (!xml.startsWith(frame.name, i + 2) || isNameChar(xml.charAt(nameEnd))) {
+          throw malformed(xml, i, "end tag does not match start tag <" + frame.name + ">");
+        }
+        if (!frame.hasChild) {
+          int start = frame.contentStart;
+          int end = i;
+          while (start < end && Character.isWhitespace(xml.charAt(start))) {
+            start++;
+          }
+          while (end > start && Character.isWhitespace(xml.charAt(end - 1))) {
+            end--;
+          }
+          int parentId = stack.isEmpty() ? -1 : stack.get(stack.size() - 1).id;
+          if (!visitor.visit(path.toString(), frame.id, parentId, start, end)) {
+            return;
+          }
+        }
+        path.setLength(frame.pathLength);
+        i = tagEnd;
+      } else {
+        int tagEnd = skipStartTag(xml, i);
+        int nameEnd = i + 1;
+        while (nameEnd < tagEnd && isNameChar(xml.charAt(nameEnd))) {
+          nameEnd++;
+        }
+        if (nameEnd == i + 1) {
+          throw malformed(xml, i, "missing element name");
+        }
+        if (!stack.isEmpty()) {
+          stack.get(stack.size() - 1).hasChild = true;
+        }
+        int id = nextId++;
+        if (xml.charAt(tagEnd - 2) != '/') {
+          String name = xml.substring(i + 1, nameEnd);
+          stack.add(new Frame(name, id, path.length(), tagEnd));
+          if (path.length() > 0) {
+            path.append('/');
+          }
+          path.append(name);
+        }
+        i = tagEnd;
+      }
+      i = xml.indexOf('<', i);
+    }
+    if (!stack.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Malformed POM: unclosed element <" + stack.get(stack.size() - 1).name + ">");
+    }
+  }
+
+  private static boolean isNameChar(char c) {
+    return !Character.isWhitespace(c) && c != '>' && c != '/';
+  }
+
+  private static int skipPast(String xml, int from, String terminator) {
+    int found = xml.indexOf(terminator, from);
+    if (found < 0) {
+      throw malformed(xml, from, "missing '" + terminator + "'");
+    }
+    return found + terminator.length();
+  }
+
+  private static int skipStartTag(String xml, int from) {
+    char quote = 0;
+    for (int i = from + 1; i < xml.length(); i++) {
+      char c = xml.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '>') {
+        return i + 1;
+      }
+    }
+    throw malformed(xml, from, "unterminated start tag");
+  }
+
+  private static int skipDeclaration(String xml, int from) {
+    int depth = 0;
+    for (int i = from + 2; i < xml.length(); i++) {
+      char c = xml.charAt(i);
+      if (c == '[') {
+        depth++;
+      } else if (c == ']') {
+        depth--;
+      } else if (c == '>' && depth <= 0) {
+        return i + 1;
+      }
+    }
+    throw malformed(xml, from, "unterminated declaration");
+  }
+
+  private static IllegalArgumentException malformed(String xml, int offset, String reason) {
+    int line = 1;
+    for (int i = 0; i < offset && i < xml.length(); i++) {
+      if (xml.charAt(i) == '\n') {
+        line++;
+      }
+    }
+    return new IllegalArgumentException(
+        String.format("Malformed POM at line %d (offset %d): %s", line, offset, reason));
+  }
+
+  /** Receiver of scanned leaf elements */
+  @FunctionalInterface
+  public interface Visitor {
+    /**
+     * @param path slash-separated names of the element and all its ancestors, starting with the
+     *     root element, e.g. <code>project/parent/version</code>
+     * @param id unique id of the element within the scanned document
+     * @param parentId id of the enclosing element, or -1 for the root element
+     * @param start character offset of the first non-whitespace char of the element's text content
+     * @param end character offset after the last non-whitespace char of the element's text content
+     * @return true to continue scanning, false to stop
+     */
+    boolean visit(String path, int id, int parentId, int start, int end);
+  }
+
+  private static final class Frame {
+    final String name;
+    final int id;
+    final int pathLength;
+    final int contentStart;
+    boolean hasChild;
+
+    Frame(String name, int id, int pathLength, int contentStart) {
+      this.name = name;
+      this.id = id;
+      this.pathLength = pathLength;
+      this.contentStart = contentStart;
+    }
+  }
+}
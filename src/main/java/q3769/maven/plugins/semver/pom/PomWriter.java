@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import lombok.NonNull;
+
+/**
+ * Writes POM and other small files atomically: the new content goes to a temp file in the same
+ * directory first, which is then renamed over the target, so readers never see a partially written
+ * file. The temp file takes over the target's POSIX permissions, or <code>rw-r--r--</code> for a
+ * new file, as temp files are otherwise created readable by the owner only.
+ *
+ * <p>Writes of several files can be made durable together in a {@link GroupCommit}: with
+ * {@link Durability#BATCH}, all temp files are written first, then synced to disk in parallel, then
+ * all renamed, and then each affected directory is synced once - the same crash consistency as
+ * syncing every file on its own, with far fewer synchronous round trips to the disk.
+ *
+ * @author Qingtian Wang
+ */
+public final class PomWriter {
+  private static final Set<PosixFilePermission> NEW_FILE_PERMISSIONS =
+      PosixFilePermissions.fromString("rw-r--r--");
+
+  private PomWriter() {}
+
+  /**
+   * @param target file to write
+   * @param content new content of the file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(@NonNull Path target, @NonNull String content) throws IOException {
+    write(target, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param target file to write
+   * @param content new binary content of the file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(@NonNull Path target, @NonNull byte[] content) throws IOException {
+    Path temp = writeTemp(target, content, false);
+    try {
+      moveReplacing(temp, target);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * @param durability of the writes in the group
+   * @return new group of writes, to be committed together
+   */
+  public static GroupCommit group(@NonNull Durability durability) {
+    return new GroupCommit(durability);
+  }
+
+  private static Path writeTemp(Path target, byte[] content, boolean sync) throws IOException {
+    Path directory = target.toAbsolutePath().getParent();
+    Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+    try {
+      copyPermissions(target, temp);
+      if (!sync) {
+        Files.write(temp, content);
+        return temp;
+      }
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      return temp;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+  }
+
+  private static void copyPermissions(Path target, Path temp) throws IOException {
+    PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+    if (view == null) {
+      return;
+    }
+    view.setPermissions(
+        Files.exists(target) ? Files.getPosixFilePermissions(target) : NEW_FILE_PERMISSIONS);
+  }
+
+  private static void sync(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Makes the renames in the directory durable. Not all platforms can open a directory for syncing,
+   * e.g. Windows cannot, and there renames are as durable as the file system makes them.
+   */
+  private static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // not supported on this platform
+    }
+  }
+
+  static void moveReplacing(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** How far written files are synced to disk before a write or commit returns */
+  public enum Durability {
+    /** Files are renamed into place without syncing; the OS writes them back in its own time */
+    NONE,
+    /** All files of a group are synced together, renamed, then each directory synced once */
+    BATCH,
+    /** Each file is synced, renamed, and its directory synced, one file at a time */
+    STRICT;
+
+    /**
+     * @param name of the durability level, case-insensitive
+     * @return the durability level
+     * @throws IllegalArgumentException if no level has the name
+     */
+    public static Durability of(@NonNull String name) {
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            String.format("'%s' is not one of the durability levels none, batch, strict", name));
+      }
+    }
+  }
+
+  /**
+   * Group of file writes made durable together. With {@link Durability#BATCH}, writes are staged as
+   * temp files, and only take effect on {@link #commit()}; with the other levels, each write takes
+   * effect immediately and the commit has nothing left to do. Closing the group discards any staged
+   * writes not committed. Writes may be staged from several threads.
+   */
+  public static final class GroupCommit implements AutoCloseable {
+    private final Durability durability;
+    private final Map<Path, Path> staged = new LinkedHashMap<>();
+
+    private GroupCommit(Durability durability) {
+      this.durability = durability;
+    }
+
+    /** @return durability of the writes in this group */
+    public Durability getDurability() {
+      return durability;
+    }
+
+    /**
+     * @param target file to write
+     * @param content new content of the file
+     * @throws IOException if the file cannot be written or staged
+     */
+    public void write(@NonNull Path target, @NonNull String content) throws IOException {
+      write(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param target file to write
+     * @param content new binary content of the file
+     * @throws IOException if the file cannot be written or staged
+     */
+    public void write(@NonNull Path target, @NonNull byte[] content) throws IOException {
+      switch (durability) {
+        case NONE:
+          PomWriter.write(target, content);
+          return;
+        case STRICT:
+          Path temp = writeTemp(target, content, true);
+          try {
+            moveReplacing(temp, target);
+          } finally {
+            Files.deleteIfExists(temp);
+          }
+          syncDirectory(target.toAbsolutePath().getParent());
+          return;
+        default:
+          Path stagedTemp = writeTemp(target, content, false);
+          Path replaced;
+          synchronized (staged) {
+            replaced = staged.put(target.toAbsolutePath().normalize(), stagedTemp);
+          }
+          if (replaced != null) {
+            Files.deleteIfExists(replaced);
+          }
+      }
+    }
+
+    /**
+     * Syncs all staged temp files in parallel, renames them over their targets, and syncs each
+     * affected directory once. If any temp file fails to sync, none is renamed.
+     *
+     * @return number of files committed
+     * @throws IOException if any staged file cannot be synced or renamed
+     */
+    public int commit() throws IOException {
+      Map<Path, Path> committing;
+      synchronized (staged) {
+        committing = new LinkedHashMap<>(staged);
+      }
+      if (committing.isEmpty()) {
+        return 0;
+      }
+      try {
+        committing.values().parallelStream().forEach(temp -> {
+          try {
+            sync(temp);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      Set<Path> directories = new LinkedHashSet<>();
+      for (Map.Entry<Path, Path> write : committing.entrySet()) {
+        moveReplacing(write.getValue(), write.getKey());
+        directories.add(write.getKey().getParent());
+        synchronized (staged) {
+          staged.remove(write.getKey());
+        }
+      }
+      directories.parallelStream().forEach(PomWriter::syncDirectory);
+      return committing.size();
+    }
+
+    /** Discards all staged writes not committed */
+    @Override
+    public void close() throws IOException {
+      List<Path> discarded;
+      synchronized (staged) {
+        discarded = new ArrayList<>(staged.values());
+        staged.clear();
+      }
+      for (Path temp : discarded) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+}
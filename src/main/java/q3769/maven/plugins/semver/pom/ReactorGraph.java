@@ -0,0 +1,229 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+
+/**
+ * In-memory graph of a reactor's POM files: which file defines which project coordinates, and every
+ * explicit version reference from any of the files to any of the projects, down to the exact
+ * location of the version text. The graph is built in a single streaming pass per file. Changing a
+ * project's version then rewrites the project's own version and all references to it, touching only
+ * the affected files, with one batched write per file.
+ *
+ * @author Qingtian Wang
+ */
+public final class ReactorGraph {
+  private final Map<Path, PomDocument> documents = new HashMap<>();
+  private final Map<String, Path> projects = new HashMap<>();
+  private final Map<String, List<VersionReference>> referencesTo = new HashMap<>();
+
+  private ReactorGraph() {}
+
+  /**
+   * @param poms all POM files of the reactor
+   * @return graph of the reactor
+   * @throws IOException if any of the files cannot be read or scanned
+   */
+  public static ReactorGraph scan(@NonNull Collection<Path> poms) throws IOException {
+    Map<Path, PomDocument> scanned;
+    try {
+      scanned = poms.parallelStream()
+          .map(pom -> pom.toAbsolutePath().normalize())
+          .distinct()
+          .collect(Collectors.toMap(pom -> pom, ReactorGraph::readUnchecked));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    ReactorGraph graph = new ReactorGraph();
+    scanned.forEach(graph::add);
+    return graph;
+  }
+
+  private static PomDocument readUnchecked(Path pom) {
+    try {
+      return PomDocument.read(pom);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (IllegalArgumentException e) {
+      throw new UncheckedIOException(new IOException("Failed to scan " + pom, e));
+    }
+  }
+
+  private void add(Path pom, PomDocument document) {
+    documents.put(pom, document);
+    document.findCoordinates().ifPresent(coordinates -> projects.put(coordinates, pom));
+    for (VersionReference reference : document.findVersionReferences(pom)) {
+      referencesTo
+          .computeIfAbsent(reference.getCoordinates(), c -> new ArrayList<>())
+          .add(reference);
+    }
+  }
+
+  private void remove(Path pom) {
+    PomDocument document = documents.remove(pom);
+    if (document == null) {
+      return;
+    }
+    document.findCoordinates().ifPresent(coordinates -> projects.remove(coordinates, pom));
+    referencesTo
+        .values()
+        .forEach(references -> references.removeIf(r -> r.getPom().equals(pom)));
+  }
+
+  /**
+   * @param coordinates <code>groupId:artifactId</code> of a project
+   * @return the POM file defining the project, if in the reactor
+   */
+  public synchronized Optional<Path> findPom(String coordinates) {
+    return Optional.ofNullable(projects.get(coordinates));
+  }
+
+  /**
+   * @param coordinates <code>groupId:artifactId</code> of an artifact
+   * @return all explicit version references to the artifact from the reactor's POM files
+   */
+  public synchronized List<VersionReference> referencesTo(String coordinates) {
+    return Collections.unmodifiableList(
+        new ArrayList<>(referencesTo.getOrDefault(coordinates, Collections.emptyList())));
+  }
+
+  /**
+   * Changes the version of a reactor project: its own literal version element, if requested, and
+   * every explicit literal reference to the old version from any of the reactor's POM files.
+   * References by property expression, or to other versions, are left alone.
+   *
+   * @param coordinates <code>groupId:artifactId</code> of the project
+   * @param oldVersion the project's version before the change
+   * @param newVersion the project's version after the change
+   * @param includingProjectVersion whether to change the project's own version element, too
+   * @return the number of version texts rewritten
+   * @throws IOException if any affected file cannot be read or written
+   */
+  public int updateVersion(
+      @NonNull String coordinates,
+      @NonNull String oldVersion,
+      @NonNull String newVersion,
+      boolean includingProjectVersion)
+      throws IOException {
+    return updateVersion(
+        coordinates, oldVersion, newVersion, includingProjectVersion, PomWriter.Durability.NONE);
+  }
+
+  /**
+   * Same as {@link #updateVersion(String, String, String, boolean)}, with all affected files
+   * written as one group of the given durability
+   *
+   * @param coordinates <code>groupId:artifactId</code> of the project
+   * @param oldVersion the project's version before the change
+   * @param newVersion the project's version after the change
+   * @param includingProjectVersion whether to change the project's own version element, too
+   * @param durability of the writes of the affected files
+   * @return the number of version texts rewritten
+   * @throws IOException if any affected file cannot be read or written
+   */
+  public synchronized int updateVersion(
+      @NonNull String coordinates,
+      @NonNull String oldVersion,
+      @NonNull String newVersion,
+      boolean includingProjectVersion,
+      @NonNull PomWriter.Durability durability)
+      throws IOException {
+    Set<Path> affected = new LinkedHashSet<>();
+    Path projectPom = projects.get(coordinates);
+    if (includingProjectVersion && projectPom != null) {
+      affected.add(projectPom);
+    }
+    for (VersionReference reference : referencesTo.getOrDefault(coordinates, List.of())) {
+      if (oldVersion.equals(reference.getVersion())) {
+        affected.add(reference.getPom());
+      }
+    }
+    int rewritten = 0;
+    Map<Path, String> edits = new LinkedHashMap<>();
+    for (Path pom : affected) {
+      PomDocument document = refresh(pom);
+      Map<PomElement, String> newValues = new HashMap<>();
+      if (includingProjectVersion && pom.equals(projectPom)) {
+        document
+            .findProjectVersion()
+            .filter(version -> oldVersion.equals(document.valueOf(version)))
+            .ifPresent(version -> newValues.put(version, newVersion));
+      }
+      for (VersionReference reference : referencesTo.getOrDefault(coordinates, List.of())) {
+        if (reference.getPom().equals(pom) && oldVersion.equals(reference.getVersion())) {
+          newValues.put(reference.getElement(), newVersion);
+        }
+      }
+      if (newValues.isEmpty()) {
+        continue;
+      }
+      edits.put(pom, document.withValues(newValues));
+      rewritten += newValues.size();
+    }
+    try (PomWriter.GroupCommit group = PomWriter.group(durability)) {
+      for (Map.Entry<Path, String> edit : edits.entrySet()) {
+        group.write(edit.getKey(), edit.getValue());
+      }
+      group.commit();
+    }
+    edits.forEach((pom, edited) -> {
+      remove(pom);
+      add(pom, PomDocument.parse(edited));
+    });
+    return rewritten;
+  }
+
+  /**
+   * Re-scans the file if it was changed by someone else since last scanned, so that the recorded
+   * locations are current; only the files about to be rewritten are checked.
+   */
+  private PomDocument refresh(Path pom) throws IOException {
+    String content = new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+    PomDocument document = documents.get(pom);
+    if (content.equals(document.getContent())) {
+      return document;
+    }
+    remove(pom);
+    PomDocument rescanned = PomDocument.parse(content);
+    add(pom, rescanned);
+    return rescanned;
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.NonNull;
+
+/**
+ * The single place where the value of Maven's CI-friendly <code>revision</code> property is defined
+ * for a multi-module project: either as a <code>-Drevision=...</code> option in <code>
+ * .mvn/maven.config</code>, which takes precedence as a user property, or in the <code>properties
+ * </code> section of the root POM. Modules referencing <code>${revision}</code> inherit the value,
+ * so a reactor-wide version change is one small write to this location.
+ *
+ * @author Qingtian Wang
+ */
+public final class RevisionProperty {
+  /** The CI-friendly version placeholder */
+  public static final String PLACEHOLDER = "${revision}";
+
+  private static final String NAME = "revision";
+  private static final Pattern MAVEN_CONFIG_OPTION =
+      Pattern.compile("((?:^|\\s)(?:-D|--define[ =])\\s*revision=)([^\\s\"']+)");
+
+  private final Path file;
+  private final boolean mavenConfig;
+
+  private RevisionProperty(Path file, boolean mavenConfig) {
+    this.file = file;
+    this.mavenConfig = mavenConfig;
+  }
+
+  /**
+   * @param rootDirectory of the multi-module project, where the <code>.mvn</code> directory and the
+   *     root POM reside
+   * @return where the revision property is defined, if anywhere
+   * @throws IOException if the candidate files cannot be read
+   */
+  public static Optional<RevisionProperty> locate(@NonNull Path rootDirectory) throws IOException {
+    Path mavenConfig = rootDirectory.resolve(".mvn").resolve("maven.config");
+    if (Files.isRegularFile(mavenConfig)
+        && MAVEN_CONFIG_OPTION.matcher(readString(mavenConfig)).find()) {
+      return Optional.of(new RevisionProperty(mavenConfig, true));
+    }
+    Path rootPom = rootDirectory.resolve("pom.xml");
+    if (Files.isRegularFile(rootPom)
+        && PomDocument.read(rootPom).findProperty(NAME).isPresent()) {
+      return Optional.of(new RevisionProperty(rootPom, false));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Locates the revision property of a project that may be a module of a multi-module project, by
+   * searching its directory and then each ancestor up to the multi-module root: the nearest
+   * ancestor with a <code>.mvn</code> directory, as Maven takes it. Without a <code>.mvn</code>
+   * directory, only the project directory itself is searched.
+   *
+   * @param projectDirectory where the project's pom.xml resides
+   * @return where the revision property is defined, if anywhere
+   * @throws IOException if the candidate files cannot be read
+   */
+  public static Optional<RevisionProperty> locateFrom(@NonNull Path projectDirectory)
+      throws IOException {
+    Path directory = projectDirectory.toAbsolutePath().normalize();
+    Path rootDirectory = directory;
+    for (Path ancestor = directory; ancestor != null; ancestor = ancestor.getParent()) {
+      if (Files.isDirectory(ancestor.resolve(".mvn"))) {
+        rootDirectory = ancestor;
+        break;
+      }
+    }
+    for (Path candidate = directory; ; candidate = candidate.getParent()) {
+      Optional<RevisionProperty> revision = locate(candidate);
+      if (revision.isPresent() || candidate.equals(rootDirectory)) {
+        return revision;
+      }
+    }
+  }
+
+  private static String readString(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  /** @return the file defining the revision property */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * @return current value of the revision property
+   * @throws IOException if the defining file cannot be read
+   */
+  public String read() throws IOException {
+    if (mavenConfig) {
+      Matcher matcher = MAVEN_CONFIG_OPTION.matcher(readString(file));
+      if (!matcher.find()) {
+        throw new IOException("No revision option found in " + file);
+      }
+      return matcher.group(2);
+    }
+    PomDocument pom = PomDocument.read(file);
+    return pom.findProperty(NAME)
+        .map(pom::valueOf)
+        .orElseThrow(() -> new IOException("No revision property found in " + file));
+  }
+
+  /**
+   * @param newVersion new value of the revision property
+   * @throws IOException if the defining file cannot be read or written
+   */
+  public void write(@NonNull String newVersion) throws IOException {
+    try (PomWriter.GroupCommit group = PomWriter.group(PomWriter.Durability.NONE)) {
+      write(newVersion, group);
+    }
+  }
+
+  /**
+   * @param newVersion new value of the revision property
+   * @param group of writes to take part in; the new value takes effect as the group does
+   * @throws IOException if the defining file cannot be read or written
+   */
+  public void write(@NonNull String newVersion, @NonNull PomWriter.GroupCommit group)
+      throws IOException {
+    if (mavenConfig) {
+      Matcher matcher = MAVEN_CONFIG_OPTION.matcher(readString(file));
+      if (!matcher.find()) {
+        throw new IOException("No revision option found in " + file);
+      }
+      group.write(file, matcher.replaceFirst("$1" + Matcher.quoteReplacement(newVersion)));
+      return;
+    }
+    PomDocument pom = PomDocument.read(file);
+    PomElement property = pom.findProperty(NAME)
+        .orElseThrow(() -> new IOException("No revision property found in " + file));
+    group.write(file, pom.withValue(property, newVersion));
+  }
+
+  @Override
+  public String toString() {
+    return (mavenConfig ? "maven.config option" : "POM property") + " '" + NAME + "' in " + file;
+  }
+}
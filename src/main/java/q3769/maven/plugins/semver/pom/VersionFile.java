@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import lombok.NonNull;
+
+/**
+ * Direct, in-place access to the literal version of a project, without Maven: the project's own
+ * <code>&lt;version&gt;</code> element in pom.xml or, if that is the CI-friendly <code>${revision}
+ * </code> placeholder, the {@link RevisionProperty} defining its value. Only the version text is
+ * rewritten; the rest of the file stays byte-for-byte unchanged.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionFile {
+  private static final String POM = "pom.xml";
+
+  private final Path projectDirectory;
+  private final Path pom;
+
+  private VersionFile(Path projectDirectory) {
+    this.projectDirectory = projectDirectory;
+    this.pom = projectDirectory.resolve(POM);
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @return version file of the project
+   */
+  public static VersionFile of(@NonNull Path projectDirectory) {
+    return new VersionFile(projectDirectory);
+  }
+
+  /** @return the project's pom.xml */
+  public Path getPom() {
+    return pom;
+  }
+
+  /**
+   * @return the project's current literal version
+   * @throws IOException if the POM has no version of its own or cannot be read
+   */
+  public String read() throws IOException {
+    PomDocument document = PomDocument.read(pom);
+    String version = document
+        .value(PomDocument.PROJECT_VERSION)
+        .orElseThrow(() -> new IOException("No project version element in " + pom));
+    return RevisionProperty.PLACEHOLDER.equals(version) ? revision().read() : version;
+  }
+
+  /**
+   * @param newVersion to set as the project's literal version
+   * @throws IOException if the POM has no version of its own or cannot be read or written
+   */
+  public void write(@NonNull String newVersion) throws IOException {
+    try (PomWriter.GroupCommit group = PomWriter.group(PomWriter.Durability.NONE)) {
+      write(newVersion, group);
+    }
+  }
+
+  /**
+   * @param newVersion to set as the project's literal version
+   * @param group of writes to take part in; the new version takes effect as the group does
+   * @throws IOException if the POM has no version of its own or cannot be read or written
+   */
+  public void write(@NonNull String newVersion, @NonNull PomWriter.GroupCommit group)
+      throws IOException {
+    PomDocument document = PomDocument.read(pom);
+    PomElement version = document
+        .findProjectVersion()
+        .orElseThrow(() -> new IOException("No project version element in " + pom));
+    if (RevisionProperty.PLACEHOLDER.equals(document.valueOf(version))) {
+      revision().write(newVersion, group);
+      return;
+    }
+    group.write(pom, document.withValue(version, newVersion));
+  }
+
+  private RevisionProperty revision() throws IOException {
+    return RevisionProperty.locate(projectDirectory)
+        .orElseThrow(() -> new IOException("No revision property defined for " + pom));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import java.nio.file.Path;
+
+/**
+ * An explicit version reference from a POM to some artifact: the <code>&lt;version&gt;</code>
+ * element of a parent, dependency, managed dependency, plugin or extension declaration, along with
+ * where exactly the version text sits in the POM file.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionReference {
+  private final Path pom;
+  private final Kind kind;
+  private final String groupId;
+  private final String artifactId;
+  private final String version;
+  private final PomElement element;
+
+  VersionReference(
+      Path pom, Kind kind, String groupId, String artifactId, String version, PomElement element) {
+    this.pom = pom;
+    this.kind = kind;
+    this.groupId = groupId;
+    this.artifactId = artifactId;
+    this.version = version;
+    this.element = element;
+  }
+
+  /**
+   * @param containerPath element path of the declaration containing the version element
+   * @return kind of the declaration, or null if it is not a kind of version reference
+   */
+  static Kind kindOf(String containerPath) {
+    if (containerPath.equals("project/parent")) {
+      return Kind.PARENT;
+    }
+    if (containerPath.endsWith("/dependency")) {
+      return containerPath.contains("/dependencyManagement/")
+          ? Kind.DEPENDENCY_MANAGEMENT
+          : Kind.DEPENDENCY;
+    }
+    if (containerPath.endsWith("/plugin")) {
+      return Kind.PLUGIN;
+    }
+    if (containerPath.endsWith("/extension")) {
+      return Kind.EXTENSION;
+    }
+    return null;
+  }
+
+  /** @return the referencing POM file */
+  public Path getPom() {
+    return pom;
+  }
+
+  /** @return kind of the declaration */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /** @return group id of the referenced artifact */
+  public String getGroupId() {
+    return groupId;
+  }
+
+  /** @return artifact id of the referenced artifact */
+  public String getArtifactId() {
+    return artifactId;
+  }
+
+  /** @return <code>groupId:artifactId</code> of the referenced artifact */
+  public String getCoordinates() {
+    return groupId + ':' + artifactId;
+  }
+
+  /** @return referenced version text, possibly a property expression */
+  public String getVersion() {
+    return version;
+  }
+
+  /** @return location of the version text in the POM file */
+  public PomElement getElement() {
+    return element;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s %s:%s in %s at %s", kind, getCoordinates(), version, pom, element.getStart());
+  }
+
+  /** Kind of declaration a version reference is part of */
+  public enum Kind {
+    PARENT,
+    DEPENDENCY,
+    DEPENDENCY_MANAGEMENT,
+    PLUGIN,
+    EXTENSION
+  }
+}
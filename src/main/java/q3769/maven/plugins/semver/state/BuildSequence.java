@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import lombok.NonNull;
+
+/**
+ * Named, monotonically increasing number sequence kept in <code>.semver/sequences/&lt;name&gt;
+ * </code>, safe to draw from concurrently by any number of threads and processes on the same host,
+ * without any server. The file holds the highest number leased so far, as an 8-byte counter that is
+ * memory-mapped and advanced under an exclusive file lock. A process leases a block of numbers at a
+ * time, hi/lo style, and hands them out by in-memory increments, so the file is only touched once
+ * per block. Numbers are unique across processes, and increase from one process to the next; the
+ * unused rest of a process's last block is skipped.
+ *
+ * @author Qingtian Wang
+ */
+public final class BuildSequence {
+  private static final String DIRECTORY = "sequences";
+  private static final Pattern NAME = Pattern.compile("[0-9A-Za-z-]+");
+  private static final ConcurrentMap<Path, BuildSequence> SEQUENCES = new ConcurrentHashMap<>();
+
+  private final Path file;
+
+  /** Next number to hand out from the leased block; guarded by this */
+  private long next;
+
+  /** Last number of the leased block; guarded by this */
+  private long last = -1;
+
+  BuildSequence(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @param name of the sequence, of alphanumerics and hyphens, e.g. <code>build</code>
+   * @return the sequence of the given name, shared by all callers in this process
+   * @throws IOException if the state directory cannot be created
+   * @throws IllegalArgumentException if the name is not a valid sequence name
+   */
+  public static BuildSequence of(@NonNull Path projectDirectory, @NonNull String name)
+      throws IOException {
+    if (!NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException(
+          String.format("Sequence name '%s' must consist of alphanumerics and hyphens only", name));
+    }
+    Path file = StateDirectory.prepare(projectDirectory, DIRECTORY + '/' + name)
+        .toAbsolutePath()
+        .normalize();
+    return SEQUENCES.computeIfAbsent(file, BuildSequence::new);
+  }
+
+  /**
+   * @param blockSize how many numbers to lease if the current block is used up
+   * @return the next number of the sequence, starting from 1
+   * @throws IOException if the sequence file cannot be read or written
+   */
+  public synchronized long next(int blockSize) throws IOException {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Block size must be positive, but was " + blockSize);
+    }
+    if (next > last) {
+      lease(blockSize);
+    }
+    return next++;
+  }
+
+  /**
+   * @return the number the next call to {@link #next(int)} would return if no other process draws
+   *     first, without leasing or advancing anything
+   * @throws IOException if the sequence file cannot be read
+   */
+  public synchronized long peek() throws IOException {
+    if (next <= last) {
+      return next;
+    }
+    if (!Files.exists(file)) {
+      return 1;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+      try {
+        long leased = channel.size() < Long.BYTES
+            ? 0
+            : channel.map(FileChannel.MapMode.READ_ONLY, 0, Long.BYTES).getLong(0);
+        if (leased < 0) {
+          throw new IOException("Corrupt sequence file " + file + ", counter: " + leased);
+        }
+        return leased + 1;
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  private void lease(int blockSize) throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      FileLock lock = channel.lock();
+      try {
+        MappedByteBuffer counter = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        long leased = counter.getLong(0);
+        if (leased < 0) {
+          throw new IOException("Corrupt sequence file " + file + ", counter: " + leased);
+        }
+        long end = Math.addExact(leased, blockSize);
+        counter.putLong(0, end);
+        counter.force();
+        next = leased + 1;
+        last = end;
+      } finally {
+        lock.release();
+      }
+    }
+  }
+}
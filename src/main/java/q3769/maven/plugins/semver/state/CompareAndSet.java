@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.VersionCache;
+import q3769.maven.plugins.semver.pom.VersionFile;
+
+/**
+ * Optimistic compare-and-set of a project's version, safe against concurrent updates from other
+ * processes on the same workspace. The new version is computed outside any lock; only the re-read
+ * of the current version and the in-place write happen under an exclusive lock on the <code>
+ * .semver/lock</code> sidecar file, so the lock is held for a few milliseconds. If another process
+ * has changed the version in the meantime, the new version is recomputed from the changed one and
+ * the write retried, with bounded, jittered exponential backoff.
+ *
+ * @author Qingtian Wang
+ */
+public final class CompareAndSet {
+  private static final String LOCK_FILE_NAME = "lock";
+  private static final long INITIAL_BACKOFF_MILLIS = 5;
+  private static final long MAX_BACKOFF_MILLIS = 500;
+
+  private CompareAndSet() {}
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @param expected version the first update is to be computed from, typically as read at startup
+   * @param update computing the new version from the current one
+   * @param maxAttempts maximum number of compare-and-set attempts
+   * @param <E> type of error the update may throw
+   * @return outcome of the compare-and-set
+   * @throws E if the update computation fails
+   * @throws IOException if the version cannot be read or written
+   * @throws InterruptedException if interrupted while backing off
+   */
+  public static <E extends Exception> Result update(
+      @NonNull Path projectDirectory,
+      @NonNull Version expected,
+      @NonNull VersionUpdate<E> update,
+      int maxAttempts)
+      throws E, IOException, InterruptedException {
+    VersionFile versionFile = VersionFile.of(projectDirectory);
+    Path lockFile = StateDirectory.prepare(projectDirectory, LOCK_FILE_NAME);
+    Version original = expected;
+    long backoff = INITIAL_BACKOFF_MILLIS;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      Version updated = update.apply(original);
+      String current;
+      try (FileChannel channel =
+          FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        FileLock lock = channel.lock();
+        try {
+          current = versionFile.read();
+          if (current.equals(original.toString())) {
+            if (!updated.equals(original)) {
+              versionFile.write(updated.toString());
+              VersionState.record(projectDirectory);
+            }
+            return new Result(original, updated, attempt);
+          }
+        } finally {
+          lock.release();
+        }
+      }
+      original = VersionCache.parse(current);
+      Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+    return new Result(original, null, maxAttempts);
+  }
+
+  /**
+   * Computation of the new version from the current one
+   *
+   * @param <E> type of error the computation may throw
+   */
+  @FunctionalInterface
+  public interface VersionUpdate<E extends Exception> {
+    /**
+     * @param original current version
+     * @return new version
+     * @throws E if the computation fails
+     */
+    Version apply(Version original) throws E;
+  }
+
+  /** Outcome of a compare-and-set */
+  public static final class Result {
+    private final Version original;
+    private final Version updated;
+    private final int attempts;
+
+    private Result(Version original, Version updated, int attempts) {
+      this.original = original;
+      this.updated = updated;
+      this.attempts = attempts;
+    }
+
+    /** @return true if the new version was set, false if all attempts lost the race */
+    public boolean isApplied() {
+      return updated != null;
+    }
+
+    /** @return the version the applied update was computed from, or the last one seen */
+    public Version getOriginal() {
+      return original;
+    }
+
+    /** @return the version set, or null if not applied */
+    public Version getUpdated() {
+      return updated;
+    }
+
+    /** @return number of attempts made */
+    public int getAttempts() {
+      return attempts;
+    }
+  }
+}
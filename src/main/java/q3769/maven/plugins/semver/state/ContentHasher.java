@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+
+/**
+ * Deterministic, Merkle-style content hash of file trees. Each file is hashed on its own, reading
+ * large files through memory mapping; each directory's hash combines the names, types and hashes of
+ * its entries, ordered by name string the same on every platform; the tree's hash combines those of
+ * its roots. Files and directories are hashed in parallel by fork-join, and the result is
+ * independent of the degree of parallelism, file system iteration order, and modification times.
+ *
+ * @author Qingtian Wang
+ */
+public final class ContentHasher {
+  private static final long MAPPING_THRESHOLD = 1L << 20;
+  private static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+  private static final byte DIRECTORY = 'd';
+  private static final byte FILE = 'f';
+
+  private ContentHasher() {}
+
+  /**
+   * @param baseDir the roots are named relative to, so that the hash does not depend on where the
+   *     tree is checked out
+   * @param roots files or directories of the tree, absent ones are ignored
+   * @return lower-case hex SHA-256 content hash of the tree
+   * @throws IOException if any file cannot be read
+   */
+  public static String hashTree(@NonNull Path baseDir, @NonNull Collection<Path> roots)
+      throws IOException {
+    return hashTree(baseDir, roots, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param baseDir the roots are named relative to
+   * @param roots files or directories of the tree, absent ones are ignored
+   * @param pool to hash in
+   * @return lower-case hex SHA-256 content hash of the tree
+   * @throws IOException if any file cannot be read
+   */
+  public static String hashTree(
+      @NonNull Path baseDir, @NonNull Collection<Path> roots, @NonNull ForkJoinPool pool)
+      throws IOException {
+    MessageDigest digest = Hashes.sha256();
+    try {
+      for (Path root : roots) {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+          continue;
+        }
+        byte[] hash = pool.invoke(new NodeTask(root));
+        String name = baseDir.toAbsolutePath().relativize(root.toAbsolutePath()).toString();
+        digest.update(name.replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(hash);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return Hashes.hex(digest.digest());
+  }
+
+  /**
+   * @param file to hash
+   * @return SHA-256 of the file's content, read through memory mapping if the file is large
+   * @throws IOException if the file cannot be read
+   */
+  public static byte[] hashFile(@NonNull Path file) throws IOException {
+    MessageDigest digest = Hashes.sha256();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < MAPPING_THRESHOLD) {
+        return digest.digest(Files.readAllBytes(file));
+      }
+      for (long position = 0; position < size; position += MAX_MAPPING_SIZE) {
+        MappedByteBuffer mapped = channel.map(
+            FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, size - position));
+        digest.update(mapped);
+      }
+    }
+    return digest.digest();
+  }
+
+  private static final class NodeTask extends RecursiveTask<byte[]> {
+    private static final long serialVersionUID = 1L;
+
+    /** Orders children by name alone, the same on every platform and file system provider */
+    private static final Comparator<Path> BY_FILE_NAME =
+        Comparator.comparing(child -> child.getFileName().toString());
+
+    private final Path path;
+
+    NodeTask(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    protected byte[] compute() {
+      try {
+        if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          return hashFile(path);
+        }
+        List<Path> children;
+        try (Stream<Path> list = Files.list(path)) {
+          children = list.sorted(BY_FILE_NAME).collect(Collectors.toList());
+        }
+        List<NodeTask> tasks = new ArrayList<>(children.size());
+        for (Path child : children) {
+          NodeTask task = new NodeTask(child);
+          tasks.add(task);
+          task.fork();
+        }
+        MessageDigest digest = Hashes.sha256();
+        for (NodeTask task : tasks) {
+          byte[] hash = task.join();
+          digest.update(Files.isDirectory(task.path, LinkOption.NOFOLLOW_LINKS) ? DIRECTORY : FILE);
+          digest.update(task.path.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+          digest.update(hash);
+        }
+        return digest.digest();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
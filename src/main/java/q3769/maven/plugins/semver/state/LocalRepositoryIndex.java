@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.VersionCache;
+import q3769.maven.plugins.semver.VersionIndex;
+import q3769.maven.plugins.semver.pom.PomScanner;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Persistent index of the versions of artifacts in the local Maven repository, kept in <code>
+ * .semver/repository</code>: for each <code>groupId:artifactId</code> looked up, the modification
+ * times of its <code>maven-metadata*.xml</code> files and the SemVer versions they list, in
+ * ascending order. A lookup only re-reads an artifact's metadata files if any of their modification
+ * times changed since the last lookup, so after the first read it costs one directory listing of
+ * the artifact.
+ *
+ * @author Qingtian Wang
+ */
+public final class LocalRepositoryIndex {
+  private static final String FILE_NAME = "repository";
+  private static final String REPOSITORY_KEY = "repository";
+  private static final String METADATA_GLOB = "maven-metadata*.xml";
+  private static final String METADATA_VERSION = "metadata/versioning/versions/version";
+  private static final String SNAPSHOT = "SNAPSHOT";
+  private static final char SEPARATOR = '\t';
+  private static final String RELEASES = "releases";
+  private static final String INDEX_SUFFIX = ".idx";
+
+  private final Path projectDirectory;
+  private final Path repository;
+  private final Map<String, Entry> entries;
+  private boolean dirty;
+
+  private LocalRepositoryIndex(
+      Path projectDirectory, Path repository, Map<String, Entry> entries, boolean dirty) {
+    this.projectDirectory = projectDirectory;
+    this.repository = repository;
+    this.entries = entries;
+    this.dirty = dirty;
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @param repository base directory of the local Maven repository
+   * @return the project's index as last saved, or an empty index if none, or if saved for a
+   *     different local repository
+   * @throws IOException if the index file cannot be read
+   */
+  public static LocalRepositoryIndex load(@NonNull Path projectDirectory, @NonNull Path repository)
+      throws IOException {
+    String repositoryPath = repository.toAbsolutePath().normalize().toString();
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(
+          StateDirectory.resolve(projectDirectory, FILE_NAME), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return new LocalRepositoryIndex(projectDirectory, repository, new TreeMap<>(), false);
+    }
+    Map<String, Entry> entries = new TreeMap<>();
+    if (lines.isEmpty() || !lines.get(0).equals(REPOSITORY_KEY + SEPARATOR + repositoryPath)) {
+      return new LocalRepositoryIndex(projectDirectory, repository, entries, true);
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+      if (fields.length == 3) {
+        entries.put(fields[0], new Entry(fields[1], fields[2]));
+      }
+    }
+    return new LocalRepositoryIndex(projectDirectory, repository, entries, false);
+  }
+
+  /**
+   * @param groupId of the artifact
+   * @param artifactId of the artifact
+   * @return all SemVer versions of the artifact listed in the local repository metadata, in
+   *     ascending order; versions that are not valid SemVer are left out
+   * @throws IOException if any metadata file cannot be read
+   */
+  public List<Version> versions(@NonNull String groupId, @NonNull String artifactId)
+      throws IOException {
+    String coordinates = groupId + ':' + artifactId;
+    Path artifactDirectory = repository.resolve(groupId.replace('.', '/')).resolve(artifactId);
+    List<Path> metadataFiles = metadataFiles(artifactDirectory);
+    String stamp = stamp(metadataFiles);
+    Entry entry = entries.get(coordinates);
+    if (entry == null || !entry.stamp.equals(stamp)) {
+      entry = new Entry(stamp, String.join(",", readVersions(metadataFiles)));
+      entry.refreshed = true;
+      entries.put(coordinates, entry);
+      dirty = true;
+    }
+    return entry.parsed();
+  }
+
+  /**
+   * @param groupId of the artifact
+   * @param artifactId of the artifact
+   * @return index of all SemVer versions of the artifact in the local repository that are not
+   *     SNAPSHOTs; kept in a memory-mapped file under <code>.semver/releases</code>, which is
+   *     rewritten only when the artifact's metadata changed
+   * @throws IOException if any metadata or index file cannot be read
+   */
+  public VersionIndex releases(@NonNull String groupId, @NonNull String artifactId)
+      throws IOException {
+    List<Version> versions = versions(groupId, artifactId);
+    Entry entry = entries.get(groupId + ':' + artifactId);
+    Path file = StateDirectory.resolve(
+        projectDirectory, RELEASES + '/' + groupId + '/' + artifactId + INDEX_SUFFIX);
+    if (!entry.refreshed && Files.isRegularFile(file)) {
+      try {
+        return VersionIndex.map(file);
+      } catch (IOException e) {
+        // rebuilt below
+      }
+    }
+    List<Version> releases = new ArrayList<>(versions.size());
+    for (Version version : versions) {
+      if (!version.preReleaseVersion().filter(p -> p.endsWith(SNAPSHOT)).isPresent()) {
+        releases.add(version);
+      }
+    }
+    VersionIndex index = VersionIndex.of(releases);
+    Files.createDirectories(file.getParent());
+    index.write(file);
+    return index;
+  }
+
+  /**
+   * @param groupId of the artifact
+   * @param artifactId of the artifact
+   * @return highest SemVer version of the artifact in the local repository that is not a SNAPSHOT
+   * @throws IOException if any metadata file cannot be read
+   */
+  public Optional<Version> latestRelease(@NonNull String groupId, @NonNull String artifactId)
+      throws IOException {
+    return releases(groupId, artifactId).highest();
+  }
+
+  private static List<Path> metadataFiles(Path artifactDirectory) throws IOException {
+    if (!Files.isDirectory(artifactDirectory)) {
+      return Collections.emptyList();
+    }
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(artifactDirectory, METADATA_GLOB)) {
+      stream.forEach(files::add);
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private static String stamp(List<Path> metadataFiles) throws IOException {
+    StringBuilder stamp = new StringBuilder();
+    for (Path file : metadataFiles) {
+      if (stamp.length() > 0) {
+        stamp.append(',');
+      }
+      stamp
+          .append(file.getFileName())
+          .append('=')
+          .append(Files.getLastModifiedTime(file).toMillis());
+    }
+    return stamp.toString();
+  }
+
+  private static List<String> readVersions(List<Path> metadataFiles) throws IOException {
+    TreeSet<Version> versions = new TreeSet<>();
+    for (Path file : metadataFiles) {
+      String xml = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      try {
+        PomScanner.scan(xml, (path, id, parentId, start, end) -> {
+          if (METADATA_VERSION.equals(path)) {
+            try {
+              versions.add(VersionCache.parse(xml.substring(start, end)));
+            } catch (RuntimeException e) {
+              // not a SemVer, left out
+            }
+          }
+          return true;
+        });
+      } catch (IllegalArgumentException e) {
+        // a corrupt metadata file contributes no versions
+      }
+    }
+    List<String> sorted = new ArrayList<>(versions.size());
+    versions.forEach(version -> sorted.add(version.toString()));
+    return sorted;
+  }
+
+  /** @throws IOException if the index file cannot be written */
+  public void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    StringBuilder content = new StringBuilder(64 + entries.size() * 128)
+        .append(REPOSITORY_KEY)
+        .append(SEPARATOR)
+        .append(repository.toAbsolutePath().normalize())
+        .append('\n');
+    entries.forEach((coordinates, entry) -> content
+        .append(coordinates)
+        .append(SEPARATOR)
+        .append(entry.stamp)
+        .append(SEPARATOR)
+        .append(entry.versions)
+        .append('\n'));
+    PomWriter.write(StateDirectory.prepare(projectDirectory, FILE_NAME), content.toString());
+    dirty = false;
+  }
+
+  private static final class Entry {
+    final String stamp;
+    final String versions;
+    /** Whether re-read from the metadata files since the index was loaded */
+    boolean refreshed;
+
+    private List<Version> parsed;
+
+    Entry(String stamp, String versions) {
+      this.stamp = stamp;
+      this.versions = versions;
+    }
+
+    List<Version> parsed() {
+      if (parsed == null) {
+        List<Version> list = new ArrayList<>();
+        for (String version : versions.split(",")) {
+          if (!version.isEmpty()) {
+            list.add(VersionCache.parse(version));
+          }
+        }
+        parsed = Collections.unmodifiableList(list);
+      }
+      return parsed;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.Optional;
+import lombok.NonNull;
+
+/**
+ * Numbered pre-release of a version, such as <code>rc.3</code> of <code>1.2.0-rc.3</code>: a label
+ * followed by a dot and a numeric counter as the last pre-release identifier
+ *
+ * @author Qingtian Wang
+ */
+public final class PreReleaseCounter {
+  private final String normalVersion;
+  private final String label;
+  private final long counter;
+
+  private PreReleaseCounter(String normalVersion, String label, long counter) {
+    this.normalVersion = normalVersion;
+    this.label = label;
+    this.counter = counter;
+  }
+
+  /**
+   * @param version to inspect
+   * @return numbered pre-release of the version, empty if the version has no pre-release, or its
+   *     pre-release does not end with a numeric counter after a label
+   */
+  public static Optional<PreReleaseCounter> of(@NonNull Version version) {
+    return version.preReleaseVersion().flatMap(preRelease -> {
+      int dot = preRelease.lastIndexOf('.');
+      String counter = preRelease.substring(dot + 1);
+      if (dot <= 0 || counter.isEmpty() || !counter.chars().allMatch(Character::isDigit)) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(new PreReleaseCounter(
+            normalVersionOf(version), preRelease.substring(0, dot), Long.parseLong(counter)));
+      } catch (NumberFormatException e) {
+        return Optional.empty();
+      }
+    });
+  }
+
+  /**
+   * @param version to inspect
+   * @return the <code>major.minor.patch</code> part of the version
+   */
+  public static String normalVersionOf(@NonNull Version version) {
+    return version.majorVersion() + "." + version.minorVersion() + "." + version.patchVersion();
+  }
+
+  /** @return the <code>major.minor.patch</code> part of the version */
+  public String getNormalVersion() {
+    return normalVersion;
+  }
+
+  /** @return pre-release identifiers before the counter, e.g. <code>rc</code> */
+  public String getLabel() {
+    return label;
+  }
+
+  /** @return the numeric counter, e.g. <code>3</code> */
+  public long getCounter() {
+    return counter;
+  }
+}
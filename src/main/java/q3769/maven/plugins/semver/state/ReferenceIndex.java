@@ -0,0 +1,544 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomElement;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.pom.VersionReference;
+
+/**
+ * Persistent inverted index of every version reference in all POM files under a directory tree,
+ * kept in <code>.semver/references</code> of the tree's root: project versions, parent, dependency,
+ * managed dependency, plugin and extension versions, and version-like property values, each with
+ * the file, line and UTF-8 byte range of the version text. Refreshing the index walks the tree once
+ * and re-scans, in parallel, only the POM files whose size or modification time changed since the
+ * last refresh. As in {@link VersionState}, a file modified within
+ * {@link VersionState#RACY_WINDOW_MILLIS} of when it was scanned is racily clean, and re-scanned
+ * rather than trusted. The byte ranges let a version bump rewrite the references in place, without
+ * parsing the files again.
+ *
+ * @author Qingtian Wang
+ */
+public final class ReferenceIndex {
+  private static final String FILE_NAME = "references";
+  private static final String POM = "pom.xml";
+  private static final String PROPERTIES = "project/properties/";
+  private static final char SEPARATOR = '\t';
+  private static final String FILE_KEY = "F";
+  private static final String REFERENCE_KEY = "R";
+
+  /** Kind of a project's own version */
+  public static final String PROJECT = "PROJECT";
+
+  /** Kind of a version-like value of a property, referenced by the property name */
+  public static final String PROPERTY = "PROPERTY";
+
+  private final Path root;
+  private Map<String, Entry> entries;
+  private boolean dirty;
+
+  private ReferenceIndex(Path root, Map<String, Entry> entries) {
+    this.root = root;
+    this.entries = entries;
+  }
+
+  /**
+   * @param root directory of the tree of POM files
+   * @return the tree's index as last saved, or an empty index if none
+   * @throws IOException if the index file cannot be read
+   */
+  public static ReferenceIndex load(@NonNull Path root) throws IOException {
+    Path directory = root.toAbsolutePath().normalize();
+    List<String> lines;
+    try {
+      lines =
+          Files.readAllLines(StateDirectory.resolve(directory, FILE_NAME), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return new ReferenceIndex(directory, new TreeMap<>());
+    }
+    Map<String, Entry> entries = new TreeMap<>();
+    String file = null;
+    Entry entry = null;
+    for (String line : lines) {
+      String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+      try {
+        if (fields.length == 5 && FILE_KEY.equals(fields[0])) {
+          file = fields[1];
+          entry = new Entry(
+              Long.parseLong(fields[2]),
+              Long.parseLong(fields[3]),
+              Long.parseLong(fields[4]),
+              new ArrayList<>());
+          entries.put(file, entry);
+        } else if (fields.length == 7
+            && REFERENCE_KEY.equals(fields[0])
+            && PomDocument.GROUP_ID_PLACEHOLDERS.contains(
+                fields[2].substring(0, Math.max(fields[2].indexOf(':'), 0)))) {
+          // indexed before such group ids were resolved, or unresolvable; re-scanned on refresh
+          entries.remove(file);
+          entry = null;
+        } else if (fields.length == 7 && REFERENCE_KEY.equals(fields[0]) && entry != null) {
+          entry.references.add(new Reference(
+              file,
+              fields[1],
+              fields[2],
+              fields[3],
+              Integer.parseInt(fields[4]),
+              Integer.parseInt(fields[5]),
+              Integer.parseInt(fields[6])));
+        }
+      } catch (NumberFormatException e) {
+        // a corrupt entry is simply re-scanned on refresh
+        entries.remove(file);
+        entry = null;
+      }
+    }
+    return new ReferenceIndex(directory, entries);
+  }
+
+  /**
+   * @param excludes names of directories not to descend into
+   * @return relative paths of the changed POM files that failed to scan, and are indexed without
+   *     any references until changed again
+   * @throws IOException if the tree cannot be walked, or any changed POM file cannot be read
+   */
+  public List<String> refresh(@NonNull Set<String> excludes) throws IOException {
+    Map<String, BasicFileAttributes> poms = new LinkedHashMap<>();
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+        return !dir.equals(root) && excludes.contains(String.valueOf(dir.getFileName()))
+            ? FileVisitResult.SKIP_SUBTREE
+            : FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (POM.equals(String.valueOf(file.getFileName())) && attributes.isRegularFile()) {
+          poms.put(key(file), attributes);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    Map<String, Entry> refreshed = new ConcurrentHashMap<>();
+    List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    try {
+      poms.entrySet().parallelStream().forEach(pom -> {
+        String key = pom.getKey();
+        long size = pom.getValue().size();
+        long modified = pom.getValue().lastModifiedTime().toMillis();
+        Entry indexed = entries.get(key);
+        if (indexed != null
+            && indexed.size == size
+            && indexed.modified == modified
+            && !indexed.isRacilyClean()) {
+          refreshed.put(key, indexed);
+          return;
+        }
+        long captured = System.currentTimeMillis();
+        try {
+          refreshed.put(key, new Entry(size, modified, captured, scan(key, read(key))));
+        } catch (IllegalArgumentException e) {
+          refreshed.put(key, new Entry(size, modified, captured, new ArrayList<>()));
+          failures.add(key);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    Map<String, Entry> sorted = new TreeMap<>(refreshed);
+    dirty |= !sorted.equals(entries);
+    entries = sorted;
+    return failures;
+  }
+
+  private String key(Path file) {
+    return root.relativize(file).toString().replace('\\', '/');
+  }
+
+  private String read(String key) {
+    try {
+      return new String(Files.readAllBytes(root.resolve(key)), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param file relative path of the POM file
+   * @param content of the POM file
+   * @return all version references in the content, in document order
+   */
+  static List<Reference> scan(String file, String content) {
+    PomDocument document = PomDocument.parse(content);
+    List<Object[]> found = new ArrayList<>();
+    document
+        .findProjectVersion()
+        .ifPresent(version ->
+            found.add(new Object[] {PROJECT, document.findCoordinates().orElse(""), version}));
+    for (VersionReference reference : document.findVersionReferences(Paths.get(file))) {
+      found.add(new Object[] {
+        reference.getKind().name(), reference.getCoordinates(), reference.getElement()
+      });
+    }
+    for (PomElement element : document.getElements()) {
+      String path = element.getPath();
+      if (path.startsWith(PROPERTIES)
+          && path.indexOf('/', PROPERTIES.length()) < 0
+          && element.getEnd() > element.getStart()
+          && Character.isDigit(content.charAt(element.getStart()))) {
+        found.add(new Object[] {PROPERTY, element.getName(), element});
+      }
+    }
+    found.sort(Comparator.comparingInt(f -> ((PomElement) f[2]).getStart()));
+    List<Reference> references = new ArrayList<>(found.size());
+    int line = 1;
+    int bytes = 0;
+    int scanned = 0;
+    for (Object[] reference : found) {
+      PomElement element = (PomElement) reference[2];
+      String version = document.valueOf(element);
+      if (version.indexOf(SEPARATOR) >= 0 || version.indexOf('\n') >= 0) {
+        continue;
+      }
+      for (; scanned < element.getStart(); scanned++) {
+        char c = content.charAt(scanned);
+        line += c == '\n' ? 1 : 0;
+        bytes += utf8Length(c);
+      }
+      int start = bytes;
+      for (; scanned < element.getEnd(); scanned++) {
+        bytes += utf8Length(content.charAt(scanned));
+      }
+      references.add(new Reference(
+          file, (String) reference[0], (String) reference[1], version, line, start, bytes));
+    }
+    return references;
+  }
+
+  private static int utf8Length(char c) {
+    if (c < 0x80) {
+      return 1;
+    }
+    if (c < 0x800) {
+      return 2;
+    }
+    if (Character.isHighSurrogate(c)) {
+      return 4;
+    }
+    return Character.isLowSurrogate(c) ? 0 : 3;
+  }
+
+  /**
+   * @param version referenced version text to match, or null for any
+   * @param artifact <code>groupId:artifactId</code>, artifact id or property name of the referenced
+   *     artifact to match, or null for any
+   * @return matching references, by file and in document order
+   */
+  public List<Reference> find(String version, String artifact) {
+    List<Reference> found = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      for (Reference reference : entry.references) {
+        if ((version == null || version.equals(reference.version))
+            && (artifact == null
+                || artifact.equals(reference.coordinates)
+                || reference.coordinates.endsWith(':' + artifact))) {
+          found.add(reference);
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Rewrites the version text of the given references in place, by their indexed byte ranges, after
+   * checking that each range still holds the indexed version
+   *
+   * @param references to rewrite, as found in this index
+   * @param newVersion to write
+   * @return number of files rewritten
+   * @throws IOException if any file cannot be read or written, or changed since indexed
+   */
+  public int rewrite(@NonNull Collection<Reference> references, @NonNull String newVersion)
+      throws IOException {
+    Map<String, List<Reference>> byFile = references.stream()
+        .collect(Collectors.groupingBy(Reference::getFile, TreeMap::new, Collectors.toList()));
+    byte[] replacement = newVersion.getBytes(StandardCharsets.UTF_8);
+    for (Map.Entry<String, List<Reference>> file : byFile.entrySet()) {
+      Path pom = root.resolve(file.getKey());
+      byte[] content = Files.readAllBytes(pom);
+      List<Reference> edits = new ArrayList<>(file.getValue());
+      edits.sort(Comparator.comparingInt(Reference::getStart));
+      byte[] edited = new byte[content.length + edits.size() * replacement.length];
+      int length = 0;
+      int copied = 0;
+      for (Reference edit : edits) {
+        byte[] expected = edit.version.getBytes(StandardCharsets.UTF_8);
+        if (edit.end > content.length
+            || edit.start < copied
+            || !Arrays.equals(content, edit.start, edit.end, expected, 0, expected.length)) {
+          throw new IOException(String.format(
+              "%s changed since indexed, %s not found at bytes %s..%s",
+              pom, edit.version, edit.start, edit.end));
+        }
+        System.arraycopy(content, copied, edited, length, edit.start - copied);
+        length += edit.start - copied;
+        System.arraycopy(replacement, 0, edited, length, replacement.length);
+        length += replacement.length;
+        copied = edit.end;
+      }
+      System.arraycopy(content, copied, edited, length, content.length - copied);
+      length += content.length - copied;
+      byte[] rewritten = Arrays.copyOf(edited, length);
+      PomWriter.write(pom, rewritten);
+      BasicFileAttributes attributes = Files.readAttributes(pom, BasicFileAttributes.class);
+      entries.put(
+          file.getKey(),
+          new Entry(
+              attributes.size(),
+              attributes.lastModifiedTime().toMillis(),
+              System.currentTimeMillis(),
+              scan(file.getKey(), new String(rewritten, StandardCharsets.UTF_8))));
+      dirty = true;
+    }
+    return byFile.size();
+  }
+
+  /** @return number of POM files indexed */
+  public int size() {
+    return entries.size();
+  }
+
+  /** @throws IOException if the index file cannot be written */
+  public void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    StringBuilder content = new StringBuilder(entries.size() * 512);
+    entries.forEach((key, entry) -> {
+      content
+          .append(FILE_KEY)
+          .append(SEPARATOR)
+          .append(key)
+          .append(SEPARATOR)
+          .append(entry.size)
+          .append(SEPARATOR)
+          .append(entry.modified)
+          .append(SEPARATOR)
+          .append(entry.captured)
+          .append('\n');
+      for (Reference reference : entry.references) {
+        content
+            .append(REFERENCE_KEY)
+            .append(SEPARATOR)
+            .append(reference.kind)
+            .append(SEPARATOR)
+            .append(reference.coordinates)
+            .append(SEPARATOR)
+            .append(reference.version)
+            .append(SEPARATOR)
+            .append(reference.line)
+            .append(SEPARATOR)
+            .append(reference.start)
+            .append(SEPARATOR)
+            .append(reference.end)
+            .append('\n');
+      }
+    });
+    PomWriter.write(StateDirectory.prepare(root, FILE_NAME), content.toString());
+    dirty = false;
+  }
+
+  /** A version reference in a POM file, down to the byte range of the version text */
+  public static final class Reference {
+    private final String file;
+    private final String kind;
+    private final String coordinates;
+    private final String version;
+    private final int line;
+    private final int start;
+    private final int end;
+
+    Reference(
+        String file,
+        String kind,
+        String coordinates,
+        String version,
+        int line,
+        int start,
+        int end) {
+      this.file = file;
+      this.kind = kind;
+      this.coordinates = coordinates;
+      this.version = version;
+      this.line = line;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** @return path of the POM file, relative to the root of the index */
+    public String getFile() {
+      return file;
+    }
+
+    /**
+     * @return {@link #PROJECT}, {@link #PROPERTY}, or the name of a {@link VersionReference.Kind}
+     */
+    public String getKind() {
+      return kind;
+    }
+
+    /** @return <code>groupId:artifactId</code> of the referenced artifact, or the property name */
+    public String getCoordinates() {
+      return coordinates;
+    }
+
+    /** @return referenced version text, possibly a property expression */
+    public String getVersion() {
+      return version;
+    }
+
+    /** @return line number of the version text, starting from 1 */
+    public int getLine() {
+      return line;
+    }
+
+    /** @return UTF-8 byte offset of the start of the version text */
+    public int getStart() {
+      return start;
+    }
+
+    /** @return UTF-8 byte offset of the end of the version text */
+    public int getEnd() {
+      return end;
+    }
+
+    /** @return the reference as one JSON object */
+    public String toJson() {
+      return new JsonObject()
+          .put("file", file)
+          .put("line", line)
+          .put("start", start)
+          .put("end", end)
+          .put("kind", kind)
+          .put("artifact", coordinates)
+          .put("version", version)
+          .toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Reference)) {
+        return false;
+      }
+      Reference that = (Reference) o;
+      return line == that.line
+          && start == that.start
+          && end == that.end
+          && file.equals(that.file)
+          && kind.equals(that.kind)
+          && coordinates.equals(that.coordinates)
+          && version.equals(that.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * file.hashCode() + start;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s %s:%s in %s:%s", kind, coordinates, version, file, line);
+    }
+  }
+
+  private static final class Entry {
+    final long size;
+    final long modified;
+    final long captured;
+    final List<Reference> references;
+
+    Entry(long size, long modified, long captured, List<Reference> references) {
+      this.size = size;
+      this.modified = modified;
+      this.captured = captured;
+      this.references = references;
+    }
+
+    /** @return true if the file was modified too close to its scan to trust its stat */
+    boolean isRacilyClean() {
+      return captured - modified < VersionState.RACY_WINDOW_MILLIS;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry that = (Entry) o;
+      return size == that.size
+          && modified == that.modified
+          && captured == that.captured
+          && references.equals(that.references);
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(size) * 31 + Long.hashCode(modified);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Cache of the POM files resulting from idempotent goals, keyed by the goal, its parameters and the
+ * content hash of the POM before the goal, so that a goal re-run with identical inputs - e.g. by a
+ * retried or matrix job - can skip its computation and the delegated POM rewrite. Each entry is a
+ * file named by the hash of its key, holding the full key, the resulting POM, and a SHA-256 over
+ * both, which is verified on every read; a corrupt or colliding entry is deleted and treated as a
+ * miss. Hits refresh an entry's modification time, and the least recently used entries are evicted
+ * once the entries exceed the size limit. Entries are written atomically, so the cache may be
+ * shared by concurrent processes.
+ *
+ * @author Qingtian Wang
+ */
+public final class ResultCache {
+  private static final int MAGIC = 0x53564d52;
+  private static final int FORMAT = 1;
+  private static final int DIGEST_LENGTH = 32;
+
+  private final Path directory;
+  private final long maxBytes;
+
+  private ResultCache(Path directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @param directory of the cache entries, created if absent
+   * @param maxBytes total size of the entries above which the least recently used are evicted
+   * @return the cache
+   * @throws IOException if the directory cannot be created
+   */
+  public static ResultCache open(@NonNull Path directory, long maxBytes) throws IOException {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Cache size limit must be positive, but was " + maxBytes);
+    }
+    return new ResultCache(Files.createDirectories(directory), maxBytes);
+  }
+
+  /**
+   * @param plugin coordinates, including the version, of the plugin running the goal, as the cache
+   *     is shared by all plugin versions
+   * @param goal name of the goal
+   * @param parameters rendering of the goal's parameters
+   * @param pom content of the POM before the goal
+   * @return the cache key of the goal's result
+   */
+  public static String key(
+      @NonNull String plugin,
+      @NonNull String goal,
+      @NonNull String parameters,
+      @NonNull byte[] pom) {
+    return plugin + '\n' + goal + '\n' + parameters + '\n' + Hashes.sha256Hex(pom);
+  }
+
+  /**
+   * @param key of the result
+   * @return the cached result, empty if absent or failing the integrity check
+   * @throws IOException if the entry cannot be read
+   */
+  public Optional<byte[]> get(@NonNull String key) throws IOException {
+    Path entry = entry(key);
+    byte[] content;
+    try {
+      content = Files.readAllBytes(entry);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+    Optional<byte[]> result = decode(content, key.getBytes(StandardCharsets.UTF_8));
+    if (result.isPresent()) {
+      try {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      } catch (NoSuchFileException e) {
+        // evicted concurrently, the result read is still good
+      }
+    } else {
+      Files.deleteIfExists(entry);
+    }
+    return result;
+  }
+
+  /**
+   * @param key of the result
+   * @param result to cache
+   * @throws IOException if the entry cannot be written, or older entries cannot be evicted
+   */
+  public void put(@NonNull String key, @NonNull byte[] result) throws IOException {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer entry =
+        ByteBuffer.allocate(4 * Integer.BYTES + keyBytes.length + result.length + DIGEST_LENGTH);
+    entry
+        .putInt(MAGIC)
+        .putInt(FORMAT)
+        .putInt(keyBytes.length)
+        .put(keyBytes)
+        .putInt(result.length)
+        .put(result)
+        .put(digest(keyBytes, result));
+    PomWriter.write(entry(key), entry.array());
+    evict();
+  }
+
+  private Path entry(String key) {
+    return directory.resolve(Hashes.sha256Hex(key.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static Optional<byte[]> decode(byte[] content, byte[] expectedKey) {
+    try {
+      ByteBuffer entry = ByteBuffer.wrap(content);
+      if (entry.getInt() != MAGIC || entry.getInt() != FORMAT) {
+        return Optional.empty();
+      }
+      byte[] key = bytes(entry);
+      byte[] result = bytes(entry);
+      byte[] digest = new byte[DIGEST_LENGTH];
+      entry.get(digest);
+      if (entry.hasRemaining()
+          || !Arrays.equals(expectedKey, key)
+          || !MessageDigest.isEqual(digest, digest(key, result))) {
+        return Optional.empty();
+      }
+      return Optional.of(result);
+    } catch (BufferUnderflowException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static byte[] bytes(ByteBuffer entry) {
+    int length = entry.getInt();
+    if (length < 0 || length > entry.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    entry.get(bytes);
+    return bytes;
+  }
+
+  private static byte[] digest(byte[] key, byte[] result) {
+    MessageDigest digest = Hashes.sha256();
+    digest.update(key);
+    return digest.digest(result);
+  }
+
+  private void evict() throws IOException {
+    List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        if (file.getFileName().toString().startsWith(".")) {
+          continue;
+        }
+        try {
+          BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+          entries.add(new AbstractMap.SimpleImmutableEntry<>(file, attributes));
+          total += attributes.size();
+        } catch (NoSuchFileException e) {
+          // evicted concurrently
+        }
+      }
+    }
+    if (total <= maxBytes) {
+      return;
+    }
+    entries.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+    for (Map.Entry<Path, BasicFileAttributes> entry : entries) {
+      if (total <= maxBytes) {
+        return;
+      }
+      Files.deleteIfExists(entry.getKey());
+      total -= entry.getValue().size();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Persistent index of a project's source and resource files, kept in <code>.semver/sources</code>:
+ * path, size, modification time and content hash of every file, plus the baseline content hash of
+ * the whole project as of its last version update. Refreshing the index only re-reads files whose
+ * size or modification time changed since the last refresh, so detecting whether a project's
+ * content changed costs little more than a stat of each file. As in {@link VersionState}, a file
+ * modified within {@link VersionState#RACY_WINDOW_MILLIS} of when its stat was captured is racily
+ * clean, and re-hashed rather than trusted.
+ *
+ * @author Qingtian Wang
+ */
+public final class SourceIndex {
+  private static final String FILE_NAME = "sources";
+  private static final String BASELINE_KEY = "baseline";
+  private static final char SEPARATOR = '\t';
+
+  private final Path projectDirectory;
+  private Map<String, Entry> entries;
+  private String baseline;
+
+  private SourceIndex(Path projectDirectory, Map<String, Entry> entries, String baseline) {
+    this.projectDirectory = projectDirectory;
+    this.entries = entries;
+    this.baseline = baseline;
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @return the project's index as last saved, or an empty index if none
+   * @throws IOException if the index file cannot be read
+   */
+  public static SourceIndex load(@NonNull Path projectDirectory) throws IOException {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(
+          StateDirectory.resolve(projectDirectory, FILE_NAME), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return new SourceIndex(projectDirectory, new TreeMap<>(), null);
+    }
+    Map<String, Entry> entries = new TreeMap<>();
+    String baseline = null;
+    for (String line : lines) {
+      String[] fields = line.split(String.valueOf(SEPARATOR));
+      if (fields.length == 2 && BASELINE_KEY.equals(fields[0])) {
+        baseline = fields[1];
+      } else if (fields.length == 5) {
+        try {
+          entries.put(
+              fields[0],
+              new Entry(
+                  Long.parseLong(fields[1]),
+                  Long.parseLong(fields[2]),
+                  Long.parseLong(fields[3]),
+                  fields[4]));
+        } catch (NumberFormatException e) {
+          // a corrupt entry is simply re-hashed on refresh
+        }
+      }
+    }
+    return new SourceIndex(projectDirectory, entries, baseline);
+  }
+
+  /**
+   * @param roots directories whose files make up the project's content; absent ones are ignored
+   * @return content hash of the whole project, over the relative paths and content hashes of all
+   *     files under the roots
+   * @throws IOException if any file cannot be read
+   */
+  public String refresh(@NonNull Collection<Path> roots) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path root : roots) {
+      if (!Files.isDirectory(root)) {
+        continue;
+      }
+      try (Stream<Path> walk = Files.walk(root)) {
+        files.addAll(walk.filter(Files::isRegularFile).collect(Collectors.toList()));
+      }
+    }
+    Map<String, Entry> refreshed = new ConcurrentHashMap<>();
+    try {
+      files.parallelStream().forEach(file -> {
+        String key = key(file);
+        refreshed.put(key, refresh(file, entries.get(key)));
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    entries = new TreeMap<>(refreshed);
+    MessageDigest digest = Hashes.sha256();
+    entries.forEach((key, entry) -> {
+      digest.update(key.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(entry.hash.getBytes(StandardCharsets.US_ASCII));
+      digest.update((byte) '\n');
+    });
+    return Hashes.hex(digest.digest());
+  }
+
+  private String key(Path file) {
+    return projectDirectory.relativize(file).toString().replace('\\', '/');
+  }
+
+  private static Entry refresh(Path file, Entry indexed) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      long size = attributes.size();
+      long modified = attributes.lastModifiedTime().toMillis();
+      if (indexed != null
+          && indexed.size == size
+          && indexed.modified == modified
+          && !indexed.isRacilyClean()) {
+        return indexed;
+      }
+      long captured = System.currentTimeMillis();
+      return new Entry(size, modified, captured, Hashes.hex(ContentHasher.hashFile(file)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** @return content hash of the project as of its last version update, if recorded */
+  public Optional<String> getBaseline() {
+    return Optional.ofNullable(baseline);
+  }
+
+  /** @param baseline content hash of the project as of its latest version update */
+  public void setBaseline(String baseline) {
+    this.baseline = baseline;
+  }
+
+  /** @return number of files indexed */
+  public int size() {
+    return entries.size();
+  }
+
+  /** @throws IOException if the index file cannot be written */
+  public void save() throws IOException {
+    StringBuilder content = new StringBuilder(64 + entries.size() * 128);
+    if (baseline != null) {
+      content.append(BASELINE_KEY).append(SEPARATOR).append(baseline).append('\n');
+    }
+    entries.forEach((key, entry) -> content
+        .append(key)
+        .append(SEPARATOR)
+        .append(entry.size)
+        .append(SEPARATOR)
+        .append(entry.modified)
+        .append(SEPARATOR)
+        .append(entry.captured)
+        .append(SEPARATOR)
+        .append(entry.hash)
+        .append('\n'));
+    PomWriter.write(StateDirectory.prepare(projectDirectory, FILE_NAME), content.toString());
+  }
+
+  private static final class Entry {
+    final long size;
+    final long modified;
+    final long captured;
+    final String hash;
+
+    Entry(long size, long modified, long captured, String hash) {
+      this.size = size;
+      this.modified = modified;
+      this.captured = captured;
+      this.hash = hash;
+    }
+
+    /** @return true if the file was modified too close to the stat capture to trust the stat */
+    boolean isRacilyClean() {
+      return captured - modified < VersionState.RACY_WINDOW_MILLIS;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.NonNull;
+
+/**
+ * The <code>.semver</code> directory next to a project's pom.xml, where the plugin keeps its local
+ * state between invocations
+ *
+ * @author Qingtian Wang
+ */
+public final class StateDirectory {
+  /** Name of the state directory */
+  public static final String NAME = ".semver";
+
+  private StateDirectory() {}
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @param fileName of the state file
+   * @return path of the state file, without creating anything
+   */
+  public static Path resolve(@NonNull Path projectDirectory, @NonNull String fileName) {
+    return projectDirectory.resolve(NAME).resolve(fileName);
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @param fileName of the state file
+   * @return path of the state file, with its parent directory created if absent
+   * @throws IOException if the directory cannot be created
+   */
+  public static Path prepare(@NonNull Path projectDirectory, @NonNull String fileName)
+      throws IOException {
+    Path file = resolve(projectDirectory, fileName);
+    Files.createDirectories(file.getParent());
+    return file;
+  }
+}
@@ -0,0 +1,498 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.VersionCache;
+import q3769.maven.plugins.semver.pom.PomWriter;
+
+/**
+ * Append-only log of a project's version updates, kept in <code>.semver/history</code> as compact
+ * binary records of timestamp, goal, old version and new version. A sparse index in <code>
+ * .semver/history.idx</code> holds the offset and timestamp of every {@value #BLOCK_SIZE}th record,
+ * so that the last N records, or the records since a point in time, are found by arithmetic or
+ * binary search over the index and read without scanning the log. The highest numeric pre-release
+ * counter seen per pre-release label, overall and per normal version, is kept as a high-water-mark
+ * table in <code>.semver/history.labels</code>.
+ *
+ * <p>The index and labels files are derived from the log and only ever lag behind it: a reader
+ * catches up on records appended after them, and they are rebuilt from the log if they are missing
+ * or corrupt. Appends hold an exclusive lock on the log file.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionHistory {
+  static final int BLOCK_SIZE = 256;
+  private static final String LOG_FILE_NAME = "history";
+  private static final String INDEX_FILE_NAME = "history.idx";
+  private static final String LABELS_FILE_NAME = "history.labels";
+  private static final int LOG_MAGIC = 0x53564831;
+  private static final int INDEX_MAGIC = 0x53564931;
+  private static final int LOG_HEADER_LENGTH = Integer.BYTES;
+  private static final int INDEX_HEADER_LENGTH = 2 * Integer.BYTES + 2 * Long.BYTES;
+  private static final int INDEX_ENTRY_LENGTH = 2 * Long.BYTES;
+  private static final String COVERED_KEY = "covered";
+  private static final char SEPARATOR = '\t';
+
+  private final Path projectDirectory;
+  private long covered;
+  private long count;
+  private long[] offsets;
+  private long[] timestamps;
+  private int blocks;
+  private int persistedBlocks;
+  private final Map<String, Long> labelCounters;
+
+  private VersionHistory(
+      Path projectDirectory,
+      long covered,
+      long count,
+      long[] offsets,
+      long[] timestamps,
+      int blocks,
+      Map<String, Long> labelCounters) {
+    this.projectDirectory = projectDirectory;
+    this.covered = covered;
+    this.count = count;
+    this.offsets = offsets;
+    this.timestamps = timestamps;
+    this.blocks = blocks;
+    this.persistedBlocks = blocks;
+    this.labelCounters = labelCounters;
+  }
+
+  /**
+   * Appends one record to the project's history, and brings the index and labels files up to date
+   *
+   * @param projectDirectory where the project's pom.xml resides
+   * @param record to append
+   * @throws IOException if the history cannot be written
+   */
+  public static void append(@NonNull Path projectDirectory, @NonNull Record record)
+      throws IOException {
+    Path logFile = StateDirectory.prepare(projectDirectory, LOG_FILE_NAME);
+    try (FileChannel log = FileChannel.open(
+        logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      FileLock lock = log.lock();
+      try {
+        if (log.size() < LOG_HEADER_LENGTH) {
+          log.truncate(0);
+          writeFully(
+              log, ByteBuffer.allocate(LOG_HEADER_LENGTH).putInt(LOG_MAGIC).flip(), 0);
+        }
+        VersionHistory history = load(projectDirectory, log);
+        log.truncate(history.covered);
+        byte[] encoded = record.encode();
+        writeFully(log, ByteBuffer.wrap(encoded), history.covered);
+        history.add(record, history.covered, encoded.length);
+        history.save();
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @return the project's history as of now, empty if none recorded yet
+   * @throws IOException if the history cannot be read
+   */
+  public static VersionHistory open(@NonNull Path projectDirectory) throws IOException {
+    try (FileChannel log = FileChannel.open(
+        StateDirectory.resolve(projectDirectory, LOG_FILE_NAME), StandardOpenOption.READ)) {
+      return load(projectDirectory, log);
+    } catch (NoSuchFileException e) {
+      return empty(projectDirectory);
+    }
+  }
+
+  private static VersionHistory empty(Path projectDirectory) {
+    return new VersionHistory(
+        projectDirectory, LOG_HEADER_LENGTH, 0, new long[16], new long[16], 0, new TreeMap<>());
+  }
+
+  /**
+   * Loads the index and labels files, rebuilding them if unusable, and catches up on the log's
+   * records appended after them
+   */
+  private static VersionHistory load(Path projectDirectory, FileChannel log) throws IOException {
+    VersionHistory history = loadIndex(projectDirectory);
+    if (history == null || history.covered > log.size()) {
+      history = empty(projectDirectory);
+    }
+    if (log.size() > LOG_HEADER_LENGTH) {
+      ByteBuffer magic = ByteBuffer.allocate(LOG_HEADER_LENGTH);
+      log.read(magic, 0);
+      if (magic.flip().getInt() != LOG_MAGIC) {
+        throw new IOException("Not a version history file: " + projectDirectory);
+      }
+    }
+    history.catchUp(log);
+    return history;
+  }
+
+  private static VersionHistory loadIndex(Path projectDirectory) throws IOException {
+    ByteBuffer index;
+    List<String> labelLines;
+    try {
+      index = ByteBuffer.wrap(
+          Files.readAllBytes(StateDirectory.resolve(projectDirectory, INDEX_FILE_NAME)));
+      labelLines = Files.readAllLines(
+          StateDirectory.resolve(projectDirectory, LABELS_FILE_NAME), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    if (index.remaining() < INDEX_HEADER_LENGTH
+        || index.getInt() != INDEX_MAGIC
+        || index.getInt() != BLOCK_SIZE) {
+      return null;
+    }
+    long covered = index.getLong();
+    long count = index.getLong();
+    int blocks = (int) ((count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    if (index.remaining() != blocks * INDEX_ENTRY_LENGTH
+        || labelLines.isEmpty()
+        || !labelLines.get(0).equals(COVERED_KEY + SEPARATOR + covered)) {
+      return null;
+    }
+    long[] offsets = new long[Math.max(16, blocks * 2)];
+    long[] timestamps = new long[offsets.length];
+    for (int i = 0; i < blocks; i++) {
+      offsets[i] = index.getLong();
+      timestamps[i] = index.getLong();
+    }
+    Map<String, Long> labelCounters = new TreeMap<>();
+    for (String line : labelLines.subList(1, labelLines.size())) {
+      int separator = line.lastIndexOf(SEPARATOR);
+      try {
+        labelCounters.put(
+            line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+      } catch (RuntimeException e) {
+        return null;
+      }
+    }
+    return new VersionHistory(
+        projectDirectory, covered, count, offsets, timestamps, blocks, labelCounters);
+  }
+
+  private void catchUp(FileChannel log) throws IOException {
+    long size = log.size();
+    try (DataInputStream in = open(log, covered)) {
+      long position = covered;
+      while (position + Integer.BYTES <= size) {
+        int length = in.readInt();
+        if (length <= 0 || position + Integer.BYTES + length > size) {
+          break;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        add(Record.decode(payload), position, Integer.BYTES + length);
+        position += Integer.BYTES + length;
+      }
+    }
+  }
+
+  private void add(Record record, long offset, int length) {
+    if (count % BLOCK_SIZE == 0) {
+      if (blocks == offsets.length) {
+        offsets = Arrays.copyOf(offsets, blocks * 2);
+        timestamps = Arrays.copyOf(timestamps, blocks * 2);
+      }
+      offsets[blocks] = offset;
+      timestamps[blocks] = record.timestamp.toEpochMilli();
+      blocks++;
+    }
+    count++;
+    covered = offset + length;
+    countLabel(record.oldVersion);
+    countLabel(record.newVersion);
+  }
+
+  private void countLabel(String version) {
+    Version parsed;
+    try {
+      parsed = VersionCache.parse(version);
+    } catch (RuntimeException e) {
+      return;
+    }
+    PreReleaseCounter.of(parsed).ifPresent(preRelease -> {
+      labelCounters.merge(preRelease.getLabel(), preRelease.getCounter(), Math::max);
+      labelCounters.merge(
+          releaseLabelKey(preRelease.getNormalVersion(), preRelease.getLabel()),
+          preRelease.getCounter(),
+          Math::max);
+    });
+  }
+
+  /** @return key of a label within one normal version, distinct from any label as tabs are not */
+  private static String releaseLabelKey(String normalVersion, String label) {
+    return normalVersion + SEPARATOR + label;
+  }
+
+  private void save() throws IOException {
+    Path indexFile = StateDirectory.prepare(projectDirectory, INDEX_FILE_NAME);
+    try (FileChannel index =
+        FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      int from = persistedBlocks;
+      ByteBuffer entries = ByteBuffer.allocate((blocks - from) * INDEX_ENTRY_LENGTH);
+      for (int i = from; i < blocks; i++) {
+        entries.putLong(offsets[i]).putLong(timestamps[i]);
+      }
+      writeFully(index, entries.flip(), INDEX_HEADER_LENGTH + (long) from * INDEX_ENTRY_LENGTH);
+      index.truncate(INDEX_HEADER_LENGTH + (long) blocks * INDEX_ENTRY_LENGTH);
+      ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_LENGTH)
+          .putInt(INDEX_MAGIC)
+          .putInt(BLOCK_SIZE)
+          .putLong(covered)
+          .putLong(count);
+      writeFully(index, header.flip(), 0);
+    }
+    persistedBlocks = blocks;
+    StringBuilder labels = new StringBuilder()
+        .append(COVERED_KEY)
+        .append(SEPARATOR)
+        .append(covered)
+        .append('\n');
+    labelCounters.forEach((label, counter) ->
+        labels.append(label).append(SEPARATOR).append(counter).append('\n'));
+    PomWriter.write(StateDirectory.prepare(projectDirectory, LABELS_FILE_NAME), labels.toString());
+  }
+
+  /** @return number of records in the history */
+  public long size() {
+    return count;
+  }
+
+  /**
+   * @param n maximum number of records to return
+   * @return the last n records, oldest first
+   * @throws IOException if the history cannot be read
+   */
+  public List<Record> last(int n) throws IOException {
+    if (n <= 0 || count == 0) {
+      return Collections.emptyList();
+    }
+    long first = Math.max(0, count - n);
+    int block = (int) (first / BLOCK_SIZE);
+    return read(block, first - (long) block * BLOCK_SIZE, Long.MIN_VALUE);
+  }
+
+  /**
+   * @param since earliest timestamp of the records to return, inclusive
+   * @return all records at or after the given time, oldest first
+   * @throws IOException if the history cannot be read
+   */
+  public List<Record> since(@NonNull Instant since) throws IOException {
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+    long millis = since.toEpochMilli();
+    int low = 0;
+    int high = blocks - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (timestamps[middle] < millis) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return read(low, 0, millis);
+  }
+
+  /**
+   * @param label pre-release label without its numeric counter, e.g. <code>rc</code> for versions
+   *     like <code>1.2.3-rc.4</code>
+   * @return the highest counter of the label in any old or new version of the history
+   */
+  public OptionalLong highestPreReleaseCounter(@NonNull String label) {
+    return counterOf(labelCounters.get(label));
+  }
+
+  /**
+   * Looked up from the precomputed high-water-mark table, in constant time regardless of the size
+   * of the history
+   *
+   * @param normalVersion <code>major.minor.patch</code> the label is numbered under
+   * @param label pre-release label without its numeric counter
+   * @return the highest counter of the label under the normal version in any old or new version of
+   *     the history, e.g. 4 for label <code>rc</code> of normal version <code>1.2.3</code> if
+   *     <code>1.2.3-rc.4</code> is the highest recorded
+   */
+  public OptionalLong highestPreReleaseCounter(
+      @NonNull String normalVersion, @NonNull String label) {
+    return counterOf(labelCounters.get(releaseLabelKey(normalVersion, label)));
+  }
+
+  private static OptionalLong counterOf(Long counter) {
+    return counter == null ? OptionalLong.empty() : OptionalLong.of(counter);
+  }
+
+  private List<Record> read(int block, long skip, long sinceMillis) throws IOException {
+    List<Record> records = new ArrayList<>();
+    try (FileChannel log = FileChannel.open(
+            StateDirectory.resolve(projectDirectory, LOG_FILE_NAME), StandardOpenOption.READ);
+        DataInputStream in = open(log, offsets[block])) {
+      long position = offsets[block];
+      for (long i = (long) block * BLOCK_SIZE; i < count && position < covered; i++) {
+        int length = in.readInt();
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        position += Integer.BYTES + length;
+        if (i - (long) block * BLOCK_SIZE < skip) {
+          continue;
+        }
+        Record record = Record.decode(payload);
+        if (record.timestamp.toEpochMilli() >= sinceMillis) {
+          records.add(record);
+        }
+      }
+    }
+    return records;
+  }
+
+  /**
+   * @return buffered stream of the channel's content from the position on, reading by positional
+   *     reads, so that closing the stream leaves the channel open
+   */
+  private static DataInputStream open(FileChannel channel, long position) {
+    InputStream in = new InputStream() {
+      private long next = position;
+
+      @Override
+      public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = channel.read(ByteBuffer.wrap(bytes, offset, length), next);
+        if (read > 0) {
+          next += read;
+        }
+        return read;
+      }
+    };
+    return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /** One version update of the history */
+  public static final class Record {
+    private final Instant timestamp;
+    private final String goal;
+    private final String oldVersion;
+    private final String newVersion;
+
+    /**
+     * @param timestamp of the update
+     * @param goal that made the update
+     * @param oldVersion before the update
+     * @param newVersion after the update
+     */
+    public Record(
+        @NonNull Instant timestamp,
+        @NonNull String goal,
+        @NonNull String oldVersion,
+        @NonNull String newVersion) {
+      this.timestamp = timestamp;
+      this.goal = goal;
+      this.oldVersion = oldVersion;
+      this.newVersion = newVersion;
+    }
+
+    private static Record decode(byte[] payload) throws IOException {
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        return new Record(
+            Instant.ofEpochMilli(in.readLong()), in.readUTF(), in.readUTF(), in.readUTF());
+      }
+    }
+
+    /** @return length-prefixed binary encoding of the record */
+    private byte[] encode() throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeInt(0);
+        out.writeLong(timestamp.toEpochMilli());
+        out.writeUTF(goal);
+        out.writeUTF(oldVersion);
+        out.writeUTF(newVersion);
+      }
+      byte[] encoded = bytes.toByteArray();
+      ByteBuffer.wrap(encoded).putInt(encoded.length - Integer.BYTES);
+      return encoded;
+    }
+
+    /** @return when the update was made, at millisecond precision */
+    public Instant getTimestamp() {
+      return timestamp;
+    }
+
+    /** @return goal that made the update */
+    public String getGoal() {
+      return goal;
+    }
+
+    /** @return version before the update */
+    public String getOldVersion() {
+      return oldVersion;
+    }
+
+    /** @return version after the update */
+    public String getNewVersion() {
+      return newVersion;
+    }
+  }
+}
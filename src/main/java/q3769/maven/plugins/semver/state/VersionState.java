@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.NonNull;
+import q3769.maven.plugins.semver.pom.PomDocument;
+import q3769.maven.plugins.semver.pom.PomWriter;
+import q3769.maven.plugins.semver.pom.RevisionProperty;
+
+/**
+ * The project's current version, cached in the tiny <code>.semver/state</code> file along with the
+ * size, modification time and content hash of every file the version was read from. As long as a
+ * stat of those files matches, the version is answered from the state file alone, without reading
+ * or parsing any POM. If a file's stat differs, its content hash decides whether the cache is still
+ * good; otherwise the version is re-read with a streaming scan and the state file refreshed.
+ *
+ * <p>As git does for its index, a file modified within {@link #RACY_WINDOW_MILLIS} of the time its
+ * stat was captured is "racily clean": a same-size edit right after the capture may not change the
+ * modification time at the file system's timestamp granularity, so such a file's stat is never
+ * trusted, and its content is hashed instead, until the state is captured again outside the window.
+ *
+ * @author Qingtian Wang
+ */
+public final class VersionState {
+  private static final String FILE_NAME = "state";
+  private static final String POM = "pom.xml";
+  private static final String VERSION_KEY = "version=";
+  private static final String SOURCE_KEY = "source=";
+
+  /** Coarsest timestamp granularity of common file systems, e.g. FAT's two seconds */
+  static final long RACY_WINDOW_MILLIS = 2_000;
+
+  private final String version;
+  private final List<Source> sources;
+
+  private VersionState(String version, List<Source> sources) {
+    this.version = version;
+    this.sources = Collections.unmodifiableList(sources);
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @return the project's current version, from the state file if it is fresh, otherwise from the
+   *     POM
+   * @throws IOException if the version cannot be read
+   */
+  public static String currentVersion(@NonNull Path projectDirectory) throws IOException {
+    Path stateFile = StateDirectory.resolve(projectDirectory, FILE_NAME);
+    VersionState cached = load(stateFile);
+    if (cached != null && cached.isFresh(projectDirectory)) {
+      if (cached.isRacilyClean()) {
+        capture(projectDirectory).save(projectDirectory);
+      }
+      return cached.version;
+    }
+    VersionState captured = capture(projectDirectory);
+    captured.save(projectDirectory);
+    return captured.version;
+  }
+
+  /**
+   * Records the project's current version into the state file; expected to be called after every
+   * version write.
+   *
+   * @param projectDirectory where the project's pom.xml resides
+   * @return the recorded state
+   * @throws IOException if the version cannot be read or the state file cannot be written
+   */
+  public static VersionState record(@NonNull Path projectDirectory) throws IOException {
+    VersionState captured = capture(projectDirectory);
+    captured.save(projectDirectory);
+    return captured;
+  }
+
+  /**
+   * @param projectDirectory where the project's pom.xml resides
+   * @return state freshly read from the project files
+   * @throws IOException if the version cannot be read
+   */
+  static VersionState capture(Path projectDirectory) throws IOException {
+    List<Source> sources = new ArrayList<>(2);
+    Path pom = projectDirectory.resolve(POM);
+    byte[] pomBytes = Files.readAllBytes(pom);
+    sources.add(Source.of(POM, pom, pomBytes));
+    String version = PomDocument.projectVersionOf(new String(pomBytes, StandardCharsets.UTF_8))
+        .orElseThrow(() -> new IOException("No version found in " + pom));
+    if (RevisionProperty.PLACEHOLDER.equals(version)) {
+      RevisionProperty revision = RevisionProperty.locateFrom(projectDirectory)
+          .orElseThrow(() -> new IOException("No revision property defined for " + pom));
+      Path revisionFile = revision.getFile();
+      if (!Files.isSameFile(revisionFile, pom)) {
+        sources.add(Source.of(
+            projectDirectory
+                .toAbsolutePath()
+                .normalize()
+                .relativize(revisionFile)
+                .toString(),
+            revisionFile,
+            Files.readAllBytes(revisionFile)));
+      }
+      version = revision.read();
+    }
+    return new VersionState(version, sources);
+  }
+
+  private static VersionState load(Path stateFile) throws IOException {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(stateFile, StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    String version = null;
+    List<Source> sources = new ArrayList<>(2);
+    for (String line : lines) {
+      if (line.startsWith(VERSION_KEY)) {
+        version = line.substring(VERSION_KEY.length());
+      } else if (line.startsWith(SOURCE_KEY)) {
+        Source source = Source.parse(line.substring(SOURCE_KEY.length()));
+        if (source == null) {
+          return null;
+        }
+        sources.add(source);
+      }
+    }
+    return version == null || sources.isEmpty() ? null : new VersionState(version, sources);
+  }
+
+  private boolean isFresh(Path projectDirectory) throws IOException {
+    for (Source source : sources) {
+      if (!source.isFresh(projectDirectory)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isRacilyClean() {
+    for (Source source : sources) {
+      if (source.isRacilyClean()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void save(Path projectDirectory) throws IOException {
+    StringBuilder content = new StringBuilder(VERSION_KEY).append(version).append('\n');
+    for (Source source : sources) {
+      content.append(SOURCE_KEY).append(source).append('\n');
+    }
+    PomWriter.write(StateDirectory.prepare(projectDirectory, FILE_NAME), content.toString());
+  }
+
+  /** @return the cached version */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * A file the version is read from, with the stat and content hash it had at the time, and the
+   * time the stat was captured
+   */
+  private static final class Source {
+    private static final char SEPARATOR = '|';
+
+    final String relativePath;
+    final long size;
+    final long modified;
+    final long captured;
+    final String hash;
+
+    Source(String relativePath, long size, long modified, long captured, String hash) {
+      this.relativePath = relativePath;
+      this.size = size;
+      this.modified = modified;
+      this.captured = captured;
+      this.hash = hash;
+    }
+
+    static Source of(String relativePath, Path file, byte[] content) throws IOException {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      return new Source(
+          relativePath,
+          attributes.size(),
+          attributes.lastModifiedTime().toMillis(),
+          System.currentTimeMillis(),
+          Hashes.sha256Hex(content));
+    }
+
+    static Source parse(String text) {
+      String[] fields = text.split("\\|");
+      if (fields.length != 5) {
+        return null;
+      }
+      try {
+        return new Source(
+            fields[0],
+            Long.parseLong(fields[1]),
+            Long.parseLong(fields[2]),
+            Long.parseLong(fields[3]),
+            fields[4]);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    boolean isFresh(Path projectDirectory) throws IOException {
+      Path file = projectDirectory.resolve(relativePath);
+      BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+        return false;
+      }
+      if (attributes.size() != size) {
+        return false;
+      }
+      if (attributes.lastModifiedTime().toMillis() == modified && !isRacilyClean()) {
+        return true;
+      }
+      return hash.equals(Hashes.sha256Hex(Files.readAllBytes(file)));
+    }
+
+    /** @return true if the file was modified too close to the stat capture to trust the stat */
+    boolean isRacilyClean() {
+      return captured - modified < RACY_WINDOW_MILLIS;
+    }
+
+    @Override
+    public String toString() {
+      return relativePath
+          + SEPARATOR
+          + size
+          + SEPARATOR
+          + modified
+          + SEPARATOR
+          + captured
+          + SEPARATOR
+          + hash;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionIndexTest {
+  private static final String[] PRE_RELEASES = {
+    null, "alpha", "alpha.1", "beta.2", "beta.11", "rc.1"
+  };
+  private static final String[] RANGES = {
+    "*",
+    "^1.2",
+    "~2.1.3",
+    ">=1.4.0 <2.0.0-0 || ^3.1",
+    "=1.1.1-beta.2",
+    ">2.2.2-alpha <=3",
+    "<0.5.0",
+    "4 || >=9",
+    "1.2.3-rc.1 || 0.1"
+  };
+
+  private static List<Version> randomVersions(int count) {
+    Random random = new Random(7);
+    List<Version> versions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String preRelease = PRE_RELEASES[random.nextInt(PRE_RELEASES.length)];
+      Version version = preRelease == null
+          ? Version.of(random.nextInt(5), random.nextInt(4), random.nextInt(4))
+          : Version.of(random.nextInt(5), random.nextInt(4), random.nextInt(4), preRelease);
+      versions.add(random.nextInt(10) == 0 ? version.withBuildMetadata("b" + i) : version);
+    }
+    return versions;
+  }
+
+  private static Optional<Version> bruteForceHighest(List<Version> versions, VersionRange range) {
+    Version highest = null;
+    for (Version version : versions) {
+      if (range.contains(version) && (highest == null || version.isHigherThan(highest))) {
+        highest = version;
+      }
+    }
+    return Optional.ofNullable(highest).map(Version::withoutBuildMetadata);
+  }
+
+  private static void assertAnswersLikeBruteForce(VersionIndex index, List<Version> versions) {
+    for (String expression : RANGES) {
+      VersionRange range = VersionRange.compile(expression);
+      assertEquals(bruteForceHighest(versions, range), index.highest(range), expression);
+    }
+    for (Version after : versions) {
+      Version next = null;
+      for (Version version : versions) {
+        if (version.isHigherThan(after) && (next == null || next.isHigherThan(version))) {
+          next = version;
+        }
+      }
+      assertEquals(
+          Optional.ofNullable(next).map(Version::withoutBuildMetadata),
+          index.next(after),
+          after.toString());
+    }
+  }
+
+  @Test
+  void sortedByPrecedenceWithoutDuplicates() {
+    VersionIndex index = VersionIndex.of(Arrays.asList(
+        Version.parse("1.0.0"),
+        Version.parse("1.0.0-rc.1"),
+        Version.parse("1.0.0+build.5"),
+        Version.parse("0.9.0"),
+        Version.parse("1.0.0-beta.11"),
+        Version.parse("1.0.0-beta.2")));
+    assertEquals(5, index.size());
+    assertEquals("0.9.0", index.get(0).toString());
+    assertEquals("1.0.0-beta.2", index.get(1).toString());
+    assertEquals("1.0.0-beta.11", index.get(2).toString());
+    assertEquals("1.0.0-rc.1", index.get(3).toString());
+    assertEquals("1.0.0", index.get(4).toString());
+    assertEquals(Optional.of(Version.parse("1.0.0")), index.highest());
+  }
+
+  @Test
+  void rangeAndNextQueriesMatchBruteForce() {
+    List<Version> versions = randomVersions(500);
+    assertAnswersLikeBruteForce(VersionIndex.of(versions), versions);
+    assertEquals(Optional.empty(), VersionIndex.of(new ArrayList<>()).highest());
+  }
+
+  @Test
+  void mappedFileAnswersLikeTheIndexItWasWrittenFrom(@TempDir Path directory) throws IOException {
+    List<Version> versions = randomVersions(300);
+    Path file = directory.resolve("versions.idx");
+    VersionIndex.of(versions).write(file);
+    VersionIndex mapped = VersionIndex.map(file);
+    assertEquals(VersionIndex.of(versions).size(), mapped.size());
+    assertAnswersLikeBruteForce(mapped, versions);
+  }
+
+  @Test
+  void corruptFileIsRejected(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("versions.idx");
+    VersionIndex.of(randomVersions(10)).write(file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+    assertThrows(IOException.class, () -> VersionIndex.map(file));
+    Files.write(file, "not an index".getBytes());
+    assertThrows(IOException.class, () -> VersionIndex.map(file));
+  }
+}
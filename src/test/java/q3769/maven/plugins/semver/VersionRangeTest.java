@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class VersionRangeTest {
+
+  private static boolean in(String version, String range) {
+    return VersionRange.compile(range).contains(Version.parse(version));
+  }
+
+  @Test
+  void unionOfIntersections() {
+    String range = ">=1.4.0 <2.0.0-0 || ^3.1";
+    assertFalse(in("1.3.9", range));
+    assertTrue(in("1.4.0", range));
+    assertTrue(in("1.99.0", range));
+    assertFalse(in("2.0.0-alpha", range));
+    assertFalse(in("2.0.0", range));
+    assertFalse(in("3.0.9", range));
+    assertTrue(in("3.1.0", range));
+    assertTrue(in("3.9.9+build.1", range));
+    assertFalse(in("4.0.0-rc.1", range));
+  }
+
+  @Test
+  void caretAndTilde() {
+    assertTrue(in("0.2.9", "^0.2.3"));
+    assertFalse(in("0.3.0", "^0.2.3"));
+    assertTrue(in("0.0.3", "^0.0.3"));
+    assertFalse(in("0.0.4", "^0.0.3"));
+    assertTrue(in("1.2.9", "~1.2.3"));
+    assertFalse(in("1.3.0", "~1.2.3"));
+    assertTrue(in("1.9.0", "~1"));
+    assertFalse(in("2.0.0", "~1"));
+  }
+
+  @Test
+  void partialAndExactVersions() {
+    assertTrue(in("1.2.7", "1.2"));
+    assertFalse(in("1.3.0", "1.2"));
+    assertTrue(in("1.2.3", "=1.2.3"));
+    assertFalse(in("1.2.4", "1.2.3"));
+    assertTrue(in("1.3.0", ">1.2"));
+    assertFalse(in("1.2.9", ">1.2"));
+    assertTrue(in("1.2.9", "<=1.2"));
+    assertFalse(in("1.3.0", "<=1.2"));
+    assertTrue(in("0.0.1-alpha", "*"));
+  }
+
+  @Test
+  void preReleasePrecedence() {
+    String[] ordered = {
+      "1.0.0-alpha",
+      "1.0.0-alpha.1",
+      "1.0.0-alpha.beta",
+      "1.0.0-beta",
+      "1.0.0-beta.2",
+      "1.0.0-beta.11",
+      "1.0.0-rc.1",
+      "1.0.0"
+    };
+    for (int i = 0; i < ordered.length; i++) {
+      for (int j = 0; j < ordered.length; j++) {
+        Version vi = Version.parse(ordered[i]);
+        Version vj = Version.parse(ordered[j]);
+        assertEquals(
+            Integer.signum(vi.compareTo(vj)),
+            Integer.signum(VersionRange.comparePreReleases(
+                vi.preReleaseVersion().orElse(null), vj.preReleaseVersion().orElse(null))),
+            ordered[i] + " vs " + ordered[j]);
+      }
+      assertTrue(in(ordered[i], ">=" + ordered[i]));
+      assertEquals(i > 0, in(ordered[i], ">" + ordered[0]));
+    }
+  }
+
+  @Test
+  void compiledRangesAreCachedByExpression() {
+    assertSame(VersionRange.compile("^1.2 || ~3"), VersionRange.compile("^1.2 || ~3"));
+  }
+
+  @Test
+  void malformedExpressionsAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> VersionRange.compile(">=1.x"));
+    assertThrows(IllegalArgumentException.class, () -> VersionRange.compile("1.2.3.4"));
+    assertThrows(IllegalArgumentException.class, () -> VersionRange.compile("^1.2 ||"));
+    assertThrows(IllegalArgumentException.class, () -> VersionRange.compile(">=01.2.3"));
+    assertThrows(IllegalArgumentException.class, () -> VersionRange.compile(">="));
+  }
+
+  /**
+   * Not a correctness test, but a rough measure of the per-evaluation cost of a compiled range; run
+   * with <code>mvn test -Dbenchmark=true</code>
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void benchmarkEvaluation() {
+    VersionRange range = VersionRange.compile(">=1.4.0 <2.0.0-0 || ^3.1 || ~5.2.1-rc.1");
+    Random random = new Random(42);
+    Version[] versions = new Version[1024];
+    for (int i = 0; i < versions.length; i++) {
+      versions[i] = Version.of(
+          random.nextInt(6),
+          random.nextInt(5),
+          random.nextInt(5),
+          random.nextBoolean() ? "rc." + random.nextInt(3) : null);
+    }
+    for (int round = 0; round < 5; round++) {
+      int hits = 0;
+      int evaluations = 10_000_000;
+      long start = System.nanoTime();
+      for (int i = 0; i < evaluations; i++) {
+        if (range.contains(versions[i & (versions.length - 1)])) {
+          hits++;
+        }
+      }
+      long nanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: %.1f ns per evaluation (%d hits)%n",
+          round, (double) nanos / evaluations, hits);
+    }
+  }
+}
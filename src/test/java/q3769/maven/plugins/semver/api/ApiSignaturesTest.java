@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.NormalVersion;
+import q3769.maven.plugins.semver.state.StateDirectory;
+
+class ApiSignaturesTest {
+  private static final String JSON_OBJECT = "q3769/maven/plugins/semver/JsonObject";
+
+  @TempDir
+  Path project;
+
+  private static byte[] classFile(Class<?> type) throws IOException {
+    try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  void readsPublicApiOfClassFile() throws IOException {
+    List<String> api = ClassFileApi.read(classFile(JsonObject.class));
+    assertTrue(api.contains(JSON_OBJECT + " class class final"));
+    assertTrue(api.contains(JSON_OBJECT + " extends java/lang/Object"));
+    assertTrue(api.contains(
+        JSON_OBJECT + " method public static quote(Ljava/lang/String;)Ljava/lang/String;"));
+    assertTrue(api.contains(JSON_OBJECT
+        + " method public put(Ljava/lang/String;Z)Lq3769/maven/plugins/semver/JsonObject;"));
+    assertTrue(api.stream().noneMatch(signature -> signature.contains(" field ")));
+    assertTrue(ClassFileApi.read(classFile(ClassFileApi.class)).isEmpty());
+  }
+
+  @Test
+  void cachesJarSignaturesByJarHash() throws IOException {
+    Path jar = project.resolve("baseline.jar");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      zip.putNextEntry(new ZipEntry(JSON_OBJECT + ".class"));
+      zip.write(classFile(JsonObject.class));
+      zip.closeEntry();
+    }
+    SortedSet<String> signatures = ApiSignatures.ofJar(jar, project);
+    assertEquals(ApiSignatures.ofJar(jar), signatures);
+    Path cached;
+    try (Stream<Path> files = Files.list(StateDirectory.resolve(project, "api"))) {
+      cached = files.collect(Collectors.toList()).get(0);
+    }
+    Files.write(cached, Collections.singletonList("marker"), StandardCharsets.UTF_8);
+    assertEquals(Collections.singleton("marker"), ApiSignatures.ofJar(jar, project));
+  }
+
+  @Test
+  void requiredIncrementFollowsDiff() {
+    Set<String> baseline = new HashSet<>(Arrays.asList("A class class", "A method public a()V"));
+    Set<String> added = new HashSet<>(baseline);
+    added.add("A method public b()V");
+    Set<String> changed = new HashSet<>(Arrays.asList("A class class", "A method public a()I"));
+
+    assertEquals(NormalVersion.PATCH, ApiDiff.between(baseline, baseline).requiredIncrement());
+    assertEquals(NormalVersion.MINOR, ApiDiff.between(baseline, added).requiredIncrement());
+    ApiDiff diff = ApiDiff.between(baseline, changed);
+    assertEquals(NormalVersion.MAJOR, diff.requiredIncrement());
+    assertEquals(1, diff.getRemoved().size());
+    assertEquals(1, diff.getAdded().size());
+  }
+}
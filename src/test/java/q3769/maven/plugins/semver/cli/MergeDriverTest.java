@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MergeDriverTest {
+  private static final String POM = "<project>\n"
+      + "  <artifactId>app</artifactId>\n"
+      + "  <version>%s</version>\n"
+      + "  <description>%s</description>\n"
+      + "  <dependencies/>\n"
+      + "  <url>%s</url>\n"
+      + "</project>\n";
+
+  @TempDir
+  Path directory;
+
+  private Path pom(String name, String version, String description, String url) throws IOException {
+    Path pom = directory.resolve(name);
+    Files.write(
+        pom, String.format(POM, version, description, url).getBytes(StandardCharsets.UTF_8));
+    return pom;
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void mergesVersionsChangedOnBothSides() {
+    assertEquals(
+        Optional.of("1.5.0-SNAPSHOT"),
+        MergeDriver.mergedVersion("1.3.0", "1.4.0-SNAPSHOT", "1.4.0", null));
+    assertEquals(Optional.of("2.0.1"), MergeDriver.mergedVersion("1.3.0", "1.3.1", "2.0.0", null));
+    assertEquals(
+        Optional.of("1.2024.0"),
+        MergeDriver.mergedVersion(
+            "1.3.0", "1.4.0", "1.5.0", Instant.parse("2024-06-01T12:00:00Z")));
+  }
+
+  @Test
+  void leavesVersionToGitUnlessChangedDifferentlyOnBothSides() {
+    assertEquals(Optional.empty(), MergeDriver.mergedVersion("1.3.0", "1.3.0", "1.4.0", null));
+    assertEquals(Optional.empty(), MergeDriver.mergedVersion("1.3.0", "1.4.0", "1.3.0", null));
+    assertEquals(Optional.empty(), MergeDriver.mergedVersion("1.3.0", "1.4.0", "1.4.0", null));
+    assertEquals(
+        Optional.empty(), MergeDriver.mergedVersion("1.3.0", "${revision}", "1.4.0", null));
+    assertEquals(Optional.empty(), MergeDriver.mergedVersion(null, null, "1.4.0", null));
+  }
+
+  @Test
+  void resolvesVersionOnlyConflictWithoutGit() throws IOException, InterruptedException {
+    Path base = pom("base.xml", "1.3.0", "app", "a");
+    Path ours = pom("ours.xml", "1.3.1", "app", "a");
+    Path theirs = pom("theirs.xml", "1.4.0", "app", "a");
+
+    assertEquals(MergeDriver.CLEAN, MergeDriver.merge(base, ours, theirs, 7, null, null));
+
+    assertEquals(String.format(POM, "1.4.1", "app", "a"), read(ours));
+  }
+
+  @Test
+  void resolvesVersionAndHandsOtherChangesToGit() throws IOException, InterruptedException {
+    Path base = pom("base.xml", "1.3.0", "app", "a");
+    Path ours = pom("ours.xml", "1.3.1", "app, patched", "a");
+    Path theirs = pom("theirs.xml", "1.4.0", "app", "b");
+
+    assertEquals(MergeDriver.CLEAN, MergeDriver.merge(base, ours, theirs, 7, null, null));
+
+    assertEquals(String.format(POM, "1.4.1", "app, patched", "b"), read(ours));
+  }
+
+  @Test
+  void leavesOtherConflictsMarked() throws IOException, InterruptedException {
+    Path base = pom("base.xml", "1.3.0", "app", "a");
+    Path ours = pom("ours.xml", "1.3.1", "ours", "a");
+    Path theirs = pom("theirs.xml", "1.4.0", "theirs", "a");
+
+    assertEquals(MergeDriver.CONFLICTED, MergeDriver.merge(base, ours, theirs, 7, "pom.xml", null));
+
+    String merged = read(ours);
+    assertTrue(merged.contains("<version>1.4.1</version>"));
+    assertTrue(merged.contains("<<<<<<< ours:pom.xml"));
+    assertTrue(merged.contains(">>>>>>> theirs:pom.xml"));
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.extension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.apache.maven.plugin.internal.DefaultLegacySupport;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.pom.PomDocument;
+
+class VersionTransformExtensionTest {
+  private static final String ROOT = "<project><groupId>g</groupId><artifactId>root</artifactId>"
+      + "<version>1.0.0</version><packaging>pom</packaging>"
+      + "<modules><module>a</module><module>b</module></modules></project>";
+  private static final String MODULE_A = "<project><parent><groupId>g</groupId>"
+      + "<artifactId>root</artifactId><version>1.0.0</version></parent>"
+      + "<artifactId>a</artifactId></project>";
+  private static final String MODULE_B = "<project><parent><groupId>g</groupId>"
+      + "<artifactId>root</artifactId><version>1.0.0</version></parent>"
+      + "<artifactId>b</artifactId><dependencies><dependency><groupId>g</groupId>"
+      + "<artifactId>a</artifactId><version>1.0.0</version></dependency>"
+      + "<dependency><groupId>x</groupId><artifactId>lib</artifactId><version>1.0.0</version>"
+      + "</dependency></dependencies></project>";
+
+  @TempDir
+  Path directory;
+
+  private Path root;
+
+  @BeforeEach
+  void setUp() {
+    root = directory.resolve("reactor");
+  }
+
+  private Path write(String file, String content) throws IOException {
+    Path pom = root.resolve(file).normalize();
+    Files.createDirectories(pom.getParent());
+    Files.write(pom, content.getBytes(StandardCharsets.UTF_8));
+    return pom;
+  }
+
+  private MavenSession session(String... properties) {
+    DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+    for (int i = 0; i < properties.length; i += 2) {
+      request.getUserProperties().setProperty(properties[i], properties[i + 1]);
+    }
+    request.setPom(root.resolve("pom.xml").toFile());
+    request.setMultiModuleProjectDirectory(root.toFile());
+    return new MavenSession(
+        null, new DefaultRepositorySystemSession(), request, new DefaultMavenExecutionResult());
+  }
+
+  /** Reads the reactor the way Maven's project builder would, through the given model reader */
+  private static MavenProject project(ModelProcessor reader, Path pom) throws IOException {
+    Map<String, Object> options =
+        Collections.singletonMap(ModelProcessor.SOURCE, new FileModelSource(pom.toFile()));
+    Model model = reader.read(Files.newInputStream(pom), options);
+    if (model.getVersion() == null) {
+      model.setVersion(model.getParent().getVersion());
+    }
+    if (model.getGroupId() == null) {
+      model.setGroupId(model.getParent().getGroupId());
+    }
+    MavenProject project = new MavenProject(model);
+    project.setFile(pom.toFile());
+    return project;
+  }
+
+  private static VersionTransformModelProcessor modelProcessor(MavenSession session) {
+    DefaultLegacySupport legacySupport = new DefaultLegacySupport();
+    legacySupport.setSession(session);
+    VersionTransformModelProcessor processor = new VersionTransformModelProcessor(legacySupport);
+    processor.setModelReader(new DefaultModelReader());
+    return processor;
+  }
+
+  private static String versionOf(File pom) throws IOException {
+    PomDocument document = PomDocument.read(pom.toPath());
+    return document.value(PomDocument.PROJECT_VERSION).orElseGet(() -> document
+        .value(PomDocument.PARENT_VERSION)
+        .orElseThrow(AssertionError::new));
+  }
+
+  @Test
+  void modelProcessorSetsNewVersionBeforeInterpolation() throws IOException {
+    Path rootPom = write("pom.xml", ROOT);
+    Path modulePom = write("a/pom.xml", MODULE_A);
+    Path outside = write("../outside/pom.xml", ROOT);
+    VersionTransformModelProcessor processor =
+        modelProcessor(session(VersionTransformExtension.TRANSFORM, "increment-minor"));
+
+    assertEquals("1.1.0", processor.read(rootPom.toFile(), null).getVersion());
+    Model module = processor.read(modulePom.toFile(), null);
+    assertNull(module.getVersion());
+    assertEquals("1.1.0", module.getParent().getVersion());
+    assertEquals("1.0.0", processor.read(outside.toFile(), null).getVersion());
+    assertEquals("1.0.0", modelProcessor(session()).read(rootPom.toFile(), null).getVersion());
+  }
+
+  @Test
+  void appliesTransformToReactorAndWritesConsumerPoms()
+      throws IOException, MavenExecutionException {
+    write("pom.xml", ROOT);
+    write("a/pom.xml", MODULE_A);
+    write("b/pom.xml", MODULE_B);
+    MavenSession session = session(
+        VersionTransformExtension.TRANSFORM,
+        "increment-minor",
+        VersionTransformExtension.CONSUMER_POM,
+        "true");
+    VersionTransformModelProcessor processor = modelProcessor(session);
+    MavenProject parent = project(processor, root.resolve("pom.xml"));
+    parent.setExecutionRoot(true);
+    MavenProject a = project(processor, root.resolve("a/pom.xml"));
+    MavenProject b = project(processor, root.resolve("b/pom.xml"));
+    session.setProjects(Arrays.asList(parent, a, b));
+    VersionTransformExtension extension = new VersionTransformExtension();
+
+    extension.afterProjectsRead(session);
+
+    for (MavenProject project : Arrays.asList(parent, a, b)) {
+      assertEquals("1.1.0", project.getVersion());
+      assertEquals(
+          VersionTransformExtension.CONSUMER_POM_FILE_NAME, project.getFile().getName());
+      assertEquals("1.1.0", versionOf(project.getFile()));
+    }
+    assertEquals("1.1.0", b.getModel().getParent().getVersion());
+    assertEquals("1.1.0", b.getDependencies().get(0).getVersion());
+    assertEquals("1.0.0", b.getDependencies().get(1).getVersion());
+    assertEquals(
+        ROOT, new String(Files.readAllBytes(root.resolve("pom.xml")), StandardCharsets.UTF_8));
+    assertTrue(Files.exists(root.resolve("b").resolve(".semver-pom.xml")));
+
+    extension.afterSessionEnd(session);
+
+    assertFalse(Files.exists(root.resolve(".semver-pom.xml")));
+    assertFalse(Files.exists(root.resolve("a").resolve(".semver-pom.xml")));
+    assertFalse(Files.exists(root.resolve("b").resolve(".semver-pom.xml")));
+  }
+
+  @Test
+  void appliesTransformAfterInterpolationToNonLiteralVersions()
+      throws IOException, MavenExecutionException {
+    Path pom = write("pom.xml", ROOT.replace("1.0.0", "${revision}"));
+    MavenSession session = session(VersionTransformExtension.TRANSFORM, "increment-patch");
+    MavenProject project = project(modelProcessor(session), pom);
+    assertEquals("${revision}", project.getVersion());
+    project.setVersion("2.0.0");
+    session.setProjects(Collections.singletonList(project));
+
+    new VersionTransformExtension().afterProjectsRead(session);
+
+    assertEquals("2.0.1", project.getVersion());
+    assertEquals(pom.toFile(), project.getFile());
+  }
+
+  @Test
+  void failsBuildOnInvalidTransform() throws IOException {
+    Path pom = write("pom.xml", ROOT);
+    MavenSession session = session(VersionTransformExtension.TRANSFORM, "verify-current");
+    VersionTransformModelProcessor processor = modelProcessor(session);
+
+    assertThrows(IOException.class, () -> processor.read(pom.toFile(), null));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.pom.PomDocument;
+
+class BatchTest {
+  @TempDir
+  Path root;
+
+  private final List<String> debugMessages = new CopyOnWriteArrayList<>();
+  private final Properties userProperties = new Properties();
+
+  private void project(String directory, String version) throws IOException {
+    pom(
+        directory,
+        "<project><artifactId>a</artifactId><version>" + version + "</version></project>");
+  }
+
+  private void pom(String directory, String content) throws IOException {
+    Path pom = root.resolve(directory).resolve("pom.xml");
+    Files.createDirectories(pom.getParent());
+    Files.write(pom, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String version(String directory) throws IOException {
+    return PomDocument.read(root.resolve(directory).resolve("pom.xml"))
+        .value(PomDocument.PROJECT_VERSION)
+        .orElseThrow(AssertionError::new);
+  }
+
+  private Batch batch(String transform, int threads, int inFlight, String durability) {
+    userProperties.setProperty(Updaters.SNAPSHOT, "false");
+    DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+    request.setUserProperties(userProperties);
+    Batch batch = new Batch();
+    batch.setExecutionContext(
+        null, new MavenSession(null, null, request, new DefaultMavenExecutionResult()));
+    batch.transform = transform;
+    batch.batchRoot = root.toFile();
+    batch.batchExcludes = "target,.semver";
+    batch.batchThreads = threads;
+    batch.batchInFlight = inFlight;
+    batch.durability = durability;
+    batch.setLog(new SystemStreamLog() {
+      @Override
+      public boolean isDebugEnabled() {
+        return true;
+      }
+
+      @Override
+      public void debug(CharSequence content) {
+        debugMessages.add(content.toString());
+      }
+    });
+    return batch;
+  }
+
+  @Test
+  void updatesEveryProjectAndCountsFailures() throws IOException {
+    project("a", "1.0.0");
+    project("b/c", "2.3.4-rc.1");
+    project("a/target", "9.9.9");
+    project("broken", "not-a-semver");
+    pom(
+        "multi",
+        "<project><version>3.0.0</version><modules><module>m</module></modules></project>");
+    project("multi/m", "3.0.0");
+    Batch batch = batch("increment-minor", 4, 64, "batch");
+
+    MojoFailureException failure = assertThrows(MojoFailureException.class, batch::execute);
+
+    assertEquals("Goal 'increment-minor' failed on 1 project(s)", failure.getMessage());
+    assertEquals("1.1.0", version("a"));
+    assertEquals("2.4.0", version("b/c"));
+    assertEquals("9.9.9", version("a/target"));
+    assertEquals("not-a-semver", version("broken"));
+    assertEquals("3.0.0", version("multi"));
+    assertEquals("3.0.0", version("multi/m"));
+    assertTrue(Files.exists(root.resolve("a/.semver/history")));
+  }
+
+  @Test
+  void boundsProjectsInFlight() throws IOException, MojoExecutionException, MojoFailureException {
+    for (int i = 0; i < 20; i++) {
+      project("p" + i, "1.0." + i);
+    }
+
+    batch("increment-patch", 4, 1, "none").execute();
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals("1.0." + (i + 1), version("p" + i));
+    }
+    assertTrue(debugMessages.contains("At most 1 project(s) were in flight at a time"));
+  }
+
+  @Test
+  void rejectsParametersRequiringProjectBeforeWalking() throws IOException {
+    project("a", "1.0.0");
+    userProperties.setProperty(Updaters.SET, "@seq:build");
+
+    MojoFailureException seq = assertThrows(
+        MojoFailureException.class, batch("update-build-metadata", 1, 1, "none")::execute);
+    userProperties.setProperty(Updaters.SET, UpdateBuildMetadata.CONTENT_HASH);
+    MojoFailureException hash = assertThrows(
+        MojoFailureException.class, batch("update-build-metadata", 1, 1, "none")::execute);
+    userProperties.setProperty(Updaters.HISTORY_AWARE, "true");
+    MojoFailureException history = assertThrows(
+        MojoFailureException.class, batch("update-pre-release", 1, 1, "none")::execute);
+
+    assertEquals(
+        "Parameter set=@seq:build requires a Maven project, and is not supported here",
+        seq.getMessage());
+    assertEquals(
+        "Parameter set=@contentHash requires a Maven project, and is not supported here",
+        hash.getMessage());
+    assertEquals(
+        "Parameter historyAware requires a Maven project, and is not supported here",
+        history.getMessage());
+    assertEquals("1.0.0", version("a"));
+    assertTrue(debugMessages.isEmpty());
+  }
+}
@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.github.zafarkhaja.semver.Version;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
@@ -77,4 +78,12 @@ class CalendarMajorTest {
 
     assertEquals(Version.parse(expectedMajor + ".0.0"), result);
   }
+
+  @Test
+  void testShouldIncrementToInstantOfGivenClock() throws MojoFailureException {
+    instance.setClock(Clock.fixed(Instant.parse("2024-02-29T12:34:56Z"), ZoneOffset.UTC));
+
+    assertEquals(Version.parse("2024.0.0"), instance.update(Version.parse("1.2.3")));
+    assertEquals(Version.parse("2024022912.0.0"), instance.update(Version.parse("20240229.2.3")));
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.JsonObject;
+import q3769.maven.plugins.semver.SemverMojo;
+
+class IncrementByApiTest {
+  private static final String JSON_OBJECT = "q3769/maven/plugins/semver/JsonObject.class";
+
+  @TempDir
+  Path project;
+
+  @TempDir
+  Path repository;
+
+  private IncrementByApi instance;
+
+  private static byte[] classFile() throws IOException {
+    try (InputStream in = JsonObject.class.getResourceAsStream("JsonObject.class")) {
+      return in.readAllBytes();
+    }
+  }
+
+  private void installJar(String version, boolean withClass) throws IOException {
+    Path jar = repository.resolve("com/acme/app/" + version + "/app-" + version + ".jar");
+    Files.createDirectories(jar.getParent());
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      zip.putNextEntry(new ZipEntry(withClass ? JSON_OBJECT : "META-INF/"));
+      if (withClass) {
+        zip.write(classFile());
+      }
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws IOException, NoLocalRepositoryManagerException {
+    Path classes = project.resolve("target/classes");
+    Files.createDirectories(classes.resolve(JSON_OBJECT).getParent());
+    Files.write(classes.resolve(JSON_OBJECT), classFile());
+    installJar("1.2.0", true);
+    installJar("1.3.0-SNAPSHOT", false);
+    Files.write(
+        repository.resolve("com/acme/app/maven-metadata-local.xml"),
+        ("<metadata><groupId>com.acme</groupId><artifactId>app</artifactId><versioning>"
+                + "<versions><version>1.0.0</version><version>1.2.0</version>"
+                + "<version>1.3.0-SNAPSHOT</version></versions></versioning></metadata>")
+            .getBytes(StandardCharsets.UTF_8));
+
+    Model model = new Model();
+    model.setGroupId("com.acme");
+    model.setArtifactId("app");
+    model.setVersion("1.3.0-SNAPSHOT");
+    model.setBuild(new Build());
+    model.getBuild().setOutputDirectory(classes.toString());
+    MavenProject mavenProject = new MavenProject(model);
+    mavenProject.setFile(project.resolve("pom.xml").toFile());
+    DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession();
+    repositorySession.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+        .newInstance(repositorySession, new LocalRepository(repository.toFile())));
+    instance = new IncrementByApi();
+    instance.setExecutionContext(
+        mavenProject,
+        new MavenSession(
+            null,
+            repositorySession,
+            new DefaultMavenExecutionRequest(),
+            new DefaultMavenExecutionResult()));
+  }
+
+  @Test
+  void comparesAgainstHighestLocalReleaseByDefault() throws MojoFailureException {
+    assertEquals(SemverMojo.LOCAL_RELEASE, instance.baselineVersion);
+
+    assertEquals(Version.parse("1.3.1"), instance.update(Version.parse("1.3.0")));
+  }
+
+  @Test
+  void comparesAgainstExplicitBaselineVersion() throws MojoFailureException {
+    instance.baselineVersion = "1.3.0-SNAPSHOT";
+
+    assertEquals(Version.parse("1.4.0"), instance.update(Version.parse("1.3.0")));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.state.StateDirectory;
+
+class OutcomesTest {
+  private static final String POM =
+      "<project><artifactId>a</artifactId><version>1.3.0-rc.1</version></project>";
+
+  @TempDir
+  Path projectDirectory;
+
+  private Outcomes outcomes(String... parameters) throws IOException {
+    Path pom = projectDirectory.resolve("pom.xml");
+    Files.write(pom, POM.getBytes(StandardCharsets.UTF_8));
+    Model model = new Model();
+    model.setArtifactId("a");
+    model.setVersion("1.3.0-rc.1");
+    MavenProject project = new MavenProject(model);
+    project.setFile(pom.toFile());
+    Properties userProperties = new Properties();
+    for (int i = 0; i < parameters.length; i += 2) {
+      userProperties.setProperty(parameters[i], parameters[i + 1]);
+    }
+    DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+    request.setUserProperties(userProperties);
+    request.setMultiModuleProjectDirectory(projectDirectory.toFile());
+    Outcomes outcomes = new Outcomes();
+    outcomes.setExecutionContext(
+        project, new MavenSession(null, null, request, new DefaultMavenExecutionResult()));
+    outcomes.setLog(new SystemStreamLog() {
+      @Override
+      public void debug(CharSequence content) {}
+
+      @Override
+      public void info(CharSequence content) {}
+
+      @Override
+      public void error(CharSequence content, Throwable error) {}
+    });
+    return outcomes;
+  }
+
+  private static String stdout(Outcomes outcomes) throws MojoFailureException {
+    PrintStream stdout = System.out;
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(captured, true));
+    try {
+      outcomes.doExecute();
+    } finally {
+      System.setOut(stdout);
+    }
+    return new String(captured.toByteArray(), StandardCharsets.UTF_8).trim();
+  }
+
+  @Test
+  void printsEveryOutcomeWithoutChangingAnything() throws IOException, MojoFailureException {
+    Outcomes outcomes = outcomes(Updaters.SEMVER, "1.4.0", Updaters.SET, "@seq:build");
+
+    String json = stdout(outcomes);
+    String again = stdout(outcomes);
+
+    assertTrue(json.startsWith("{\"version\":\"1.3.0-rc.1\",\"clock\":\""), json);
+    assertTrue(json.contains("\"increment-minor\":{\"version\":\"1.4.0\"}"), json);
+    assertTrue(json.contains("\"set-current\":{\"version\":\"1.4.0\"}"), json);
+    assertTrue(
+        json.contains("\"update-build-metadata\":{\"version\":\"1.3.0-rc.1+build.1\"}"), json);
+    assertTrue(json.contains("\"update-pre-release\":{\"error\":"), json);
+    assertTrue(
+        again.contains("\"update-build-metadata\":{\"version\":\"1.3.0-rc.1+build.1\"}"), again);
+    assertArrayEquals(
+        POM.getBytes(StandardCharsets.UTF_8),
+        Files.readAllBytes(projectDirectory.resolve("pom.xml")));
+    assertFalse(Files.exists(StateDirectory.resolve(projectDirectory, "sequences/build")));
+    assertFalse(Files.exists(StateDirectory.resolve(projectDirectory, "history")));
+  }
+
+  @Test
+  void leavesOutSemverGoalsWithoutSemver() throws IOException, MojoFailureException {
+    String json = stdout(outcomes());
+
+    assertTrue(json.contains("\"increment-patch\":{\"version\":\"1.3.1\"}"), json);
+    assertFalse(json.contains("\"merge\""), json);
+  }
+
+  @Test
+  void rejectsParametersOfRegularGoalExecutions() throws IOException {
+    Outcomes outcomes = outcomes("propagate", "true");
+
+    MojoFailureException failure = assertThrows(MojoFailureException.class, outcomes::doExecute);
+    assertTrue(failure.getMessage().contains("propagate"), failure.getMessage());
+  }
+}
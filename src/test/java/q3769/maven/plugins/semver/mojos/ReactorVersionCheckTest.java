@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+class ReactorVersionCheckTest {
+
+  private static MavenProject project(String artifactId, String version) {
+    Model model = new Model();
+    model.setGroupId("g");
+    model.setArtifactId(artifactId);
+    model.setVersion(version);
+    return new MavenProject(model);
+  }
+
+  private static void setParent(MavenProject project, String parentArtifactId, String version) {
+    Parent parent = new Parent();
+    parent.setGroupId("g");
+    parent.setArtifactId(parentArtifactId);
+    parent.setVersion(version);
+    project.getModel().setParent(parent);
+  }
+
+  private static void addDependency(MavenProject project, String artifactId, String version) {
+    Dependency dependency = new Dependency();
+    dependency.setGroupId("g");
+    dependency.setArtifactId(artifactId);
+    dependency.setVersion(version);
+    project.getModel().addDependency(dependency);
+  }
+
+  @Test
+  void consistentReactorHasNoIssues() {
+    MavenProject root = project("root", "1.2.0");
+    MavenProject a = project("a", "1.2.0");
+    setParent(a, "root", "1.2.0");
+    MavenProject b = project("b", "1.3.0");
+    setParent(b, "root", "1.2.0");
+    addDependency(b, "a", "1.2.0");
+    ReactorVersionCheck check = new ReactorVersionCheck(Arrays.asList(root, a, b));
+
+    assertFalse(check.check(root).hasIssues());
+    assertFalse(check.check(a).hasIssues());
+    assertFalse(check.check(b).hasIssues());
+  }
+
+  @Test
+  void reportsInvalidVersion() {
+    MavenProject root = project("root", "1.2");
+
+    ReactorVersionCheck.Result result =
+        new ReactorVersionCheck(Collections.singletonList(root)).check(root);
+
+    assertEquals(
+        Collections.singletonList(ReactorVersionCheck.IssueType.INVALID_VERSION),
+        result.getIssueTypes());
+    assertTrue(result.toJson().contains("\"valid\":false"));
+  }
+
+  @Test
+  void reportsModuleLaggingParent() {
+    MavenProject root = project("root", "2.0.0");
+    MavenProject a = project("a", "1.9.0");
+    setParent(a, "root", "2.0.0");
+
+    ReactorVersionCheck.Result result = new ReactorVersionCheck(Arrays.asList(root, a)).check(a);
+
+    assertEquals(
+        Collections.singletonList(ReactorVersionCheck.IssueType.LAGS_PARENT),
+        result.getIssueTypes());
+  }
+
+  @Test
+  void reportsMismatchedParentAndSiblingReferences() {
+    MavenProject root = project("root", "2.0.0");
+    MavenProject a = project("a", "2.0.0");
+    MavenProject b = project("b", "2.0.0");
+    setParent(b, "root", "1.0.0");
+    addDependency(b, "a", "1.0.0");
+
+    ReactorVersionCheck.Result result = new ReactorVersionCheck(Arrays.asList(root, a, b)).check(b);
+
+    assertEquals(
+        Arrays.asList(
+            ReactorVersionCheck.IssueType.PARENT_MISMATCH,
+            ReactorVersionCheck.IssueType.SIBLING_MISMATCH),
+        result.getIssueTypes());
+  }
+}
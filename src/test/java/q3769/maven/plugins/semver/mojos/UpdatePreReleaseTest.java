@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.state.VersionHistory;
+
+class UpdatePreReleaseTest {
+  @TempDir
+  Path projectDirectory;
+
+  private UpdatePreRelease instance;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    MavenProject mavenProject = new MavenProject();
+    mavenProject.setFile(projectDirectory.resolve("pom.xml").toFile());
+    instance = new UpdatePreRelease() {
+      {
+        project = mavenProject;
+      }
+    };
+    VersionHistory.append(
+        projectDirectory,
+        new VersionHistory.Record(Instant.now(), "update-pre-release", "1.1.0-rc.2", "1.1.0-rc.3"));
+    VersionHistory.append(
+        projectDirectory,
+        new VersionHistory.Record(Instant.now(), "finalize-current", "1.1.0-rc.3", "1.1.0"));
+  }
+
+  @Test
+  void incrementsFromCurrentLabelOnly() throws MojoFailureException {
+    assertEquals(Version.parse("1.1.0-rc.2"), instance.incrementLabel(Version.parse("1.1.0-rc.1")));
+  }
+
+  @Test
+  void historyAwareIncrementSkipsRecordedCounters() throws MojoFailureException {
+    instance.historyAware = true;
+    assertEquals(Version.parse("1.1.0-rc.4"), instance.incrementLabel(Version.parse("1.1.0-rc.1")));
+    assertEquals(
+        Version.parse("1.1.0-beta.2"), instance.incrementLabel(Version.parse("1.1.0-beta.1")));
+    assertEquals(Version.parse("1.2.0-rc.2"), instance.incrementLabel(Version.parse("1.2.0-rc.1")));
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.Properties;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.jupiter.api.Test;
+
+class UpdatersTest {
+
+  @Test
+  void createsConfiguredUpdaters() throws MojoFailureException {
+    Properties properties = new Properties();
+    properties.setProperty(Updaters.SEMVER, "1.3.4");
+    properties.setProperty(Updaters.SET, "rc");
+    Version original = Version.parse("1.2.0");
+
+    assertEquals(
+        Version.parse("1.4.0"), Updaters.create("merge", properties).getUpdatedVersion(original));
+    assertEquals(
+        Version.parse("1.2.0+rc"),
+        Updaters.create("update-build-metadata", properties).getUpdatedVersion(original));
+  }
+
+  @Test
+  void appliesSnapshotLabel() throws MojoFailureException {
+    Properties properties = new Properties();
+    properties.setProperty(Updaters.SNAPSHOT, "true");
+
+    assertEquals(
+        Version.parse("2.0.0-SNAPSHOT"),
+        Updaters.create("increment-major", properties).getUpdatedVersion(Version.parse("1.2.3")));
+  }
+
+  @Test
+  void copiesGoalSpecificParameters() {
+    Properties properties = new Properties();
+    properties.setProperty(Updaters.HISTORY_AWARE, "true");
+    properties.setProperty(Updaters.SEQ_BLOCK_SIZE, "50");
+    properties.setProperty(Updaters.CONTENT_HASH_LENGTH, "8");
+
+    assertTrue(((UpdatePreRelease) Updaters.create("update-pre-release", properties)).historyAware);
+    UpdateBuildMetadata updateBuildMetadata =
+        (UpdateBuildMetadata) Updaters.create("update-build-metadata", properties);
+    assertEquals(50, updateBuildMetadata.seqBlockSize);
+    assertEquals(8, updateBuildMetadata.contentHashLength);
+  }
+
+  @Test
+  void rejectsInvalidAndUnsupportedParameters() {
+    Properties invalid = new Properties();
+    invalid.setProperty(Updaters.SEQ_BLOCK_SIZE, "many");
+    assertThrows(
+        IllegalArgumentException.class, () -> Updaters.create("update-build-metadata", invalid));
+    for (String parameter : new String[] {"cas", "propagate", "changedOnly", "memoize"}) {
+      Properties unsupported = new Properties();
+      unsupported.setProperty(parameter, "true");
+      assertThrows(
+          IllegalArgumentException.class, () -> Updaters.create("increment-minor", unsupported));
+    }
+  }
+
+  @Test
+  void rejectsUnknownGoal() {
+    assertThrows(
+        IllegalArgumentException.class, () -> Updaters.create("verify-current", new Properties()));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionOutputsTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void writesOnlyOutputsWhoseContentChanges() throws IOException {
+    Path properties = directory.resolve("res/version.properties");
+    Path sources = directory.resolve("src");
+    Path javaFile = sources.resolve("com/example/BuildVersion.java");
+    VersionOutputs outputs = new VersionOutputs(properties, sources, "com.example.BuildVersion");
+
+    assertEquals(
+        Arrays.asList(properties, javaFile), outputs.sync(Version.parse("1.2.3-rc.1+b.7")));
+    String written = new String(Files.readAllBytes(properties), StandardCharsets.UTF_8);
+    assertTrue(written.contains("version=1.2.3-rc.1+b.7\n"));
+    assertTrue(written.contains("buildMetadata=b.7\n"));
+    String source = new String(Files.readAllBytes(javaFile), StandardCharsets.UTF_8);
+    assertTrue(source.startsWith("package com.example;"));
+    assertTrue(source.contains("VERSION = \"1.2.3-rc.1+b.7\";"));
+
+    FileTime modified = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(properties, modified);
+    assertEquals(Collections.emptyList(), outputs.sync(Version.parse("1.2.3-rc.1+b.7")));
+    assertEquals(modified, Files.getLastModifiedTime(properties));
+
+    assertEquals(
+        Arrays.asList(properties, javaFile), outputs.sync(Version.parse("1.2.3-rc.1+b.8")));
+  }
+
+  @Test
+  void generatesNoJavaClassUnlessNamed() throws IOException {
+    Path properties = directory.resolve("version.properties");
+    VersionOutputs outputs = new VersionOutputs(properties, directory.resolve("src"), null);
+
+    assertEquals(Collections.singletonList(properties), outputs.sync(Version.parse("2.0.0")));
+    assertFalse(Files.exists(directory.resolve("src")));
+  }
+}
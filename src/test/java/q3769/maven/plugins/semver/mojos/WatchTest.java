@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.mojos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WatchTest {
+  @TempDir
+  Path module;
+
+  @Test
+  void syncsInheritedVersionOnceAndRegistersOutputs()
+      throws IOException, MojoExecutionException, MojoFailureException {
+    Path pom = module.resolve("pom.xml");
+    Files.write(
+        pom,
+        ("<project><parent><groupId>g</groupId><artifactId>root</artifactId>"
+                + "<version>1.2.0-rc.1</version></parent><artifactId>m</artifactId></project>")
+            .getBytes(StandardCharsets.UTF_8));
+    MavenProject project = new MavenProject();
+    project.setFile(pom.toFile());
+    Watch watch = new Watch();
+    watch.setExecutionContext(project, null);
+    watch.versionProperties = module.resolve("target/res/version.properties").toFile();
+    watch.versionClassDirectory = module.resolve("target/src").toFile();
+    watch.versionClass = "com.example.BuildVersion";
+    watch.watchOnce = true;
+
+    watch.doExecute();
+    watch.doExecute();
+
+    String properties =
+        new String(Files.readAllBytes(watch.versionProperties.toPath()), StandardCharsets.UTF_8);
+    assertTrue(properties.contains("version=1.2.0-rc.1\n"), properties);
+    assertTrue(Files.exists(module.resolve("target/src/com/example/BuildVersion.java")));
+    assertEquals(
+        Collections.singletonList(watch.versionClassDirectory.getAbsolutePath()),
+        project.getCompileSourceRoots());
+    assertEquals(1, project.getResources().size());
+    Resource resource = project.getResources().get(0);
+    assertEquals(module.resolve("target/res").toString(), resource.getDirectory());
+    assertEquals(Collections.singletonList("version.properties"), resource.getIncludes());
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.VersionCache;
+
+class PomDocumentTest {
+  static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<!-- <version>0.0.0</version> -->\n"
+      + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+      + "  <parent>\n"
+      + "    <groupId>g</groupId>\n"
+      + "    <artifactId>parent</artifactId>\n"
+      + "    <version>1.0.0</version>\n"
+      + "    <relativePath/>\n"
+      + "  </parent>\n"
+      + "  <artifactId>a</artifactId>\n"
+      + "  <version>\n"
+      + "    1.2.3-SNAPSHOT\n"
+      + "  </version>\n"
+      + "  <properties>\n"
+      + "    <revision>4.5.6</revision>\n"
+      + "    <attr a=\"x>y\">v</attr>\n"
+      + "  </properties>\n"
+      + "</project>\n";
+
+  @Test
+  void findsLeafValuesByPath() {
+    PomDocument pom = PomDocument.parse(POM);
+
+    assertEquals("1.2.3-SNAPSHOT", pom.value(PomDocument.PROJECT_VERSION).orElseThrow());
+    assertEquals("1.0.0", pom.value(PomDocument.PARENT_VERSION).orElseThrow());
+    assertEquals("4.5.6", pom.findProperty("revision").map(pom::valueOf).orElseThrow());
+    assertEquals("v", pom.findProperty("attr").map(pom::valueOf).orElseThrow());
+    assertFalse(pom.find("project/parent").isPresent());
+  }
+
+  @Test
+  void replacesOnlyTheValue() {
+    PomDocument pom = PomDocument.parse(POM);
+
+    String edited = pom.withValue(pom.findProjectVersion().orElseThrow(), "2.0.0");
+
+    assertEquals(POM.replace("1.2.3-SNAPSHOT", "2.0.0"), edited);
+  }
+
+  @Test
+  void rejectsMismatchedTags() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PomDocument.parse("<project><version>1</versions></project>"));
+  }
+
+  @Test
+  void readReusesScannedDocumentUntilContentChanges(@TempDir Path directory) throws IOException {
+    Path pom = directory.resolve("pom.xml");
+    Files.write(pom, POM.getBytes(StandardCharsets.UTF_8));
+    PomDocument first = PomDocument.read(pom);
+    assertSame(first, PomDocument.read(pom));
+
+    Files.write(pom, POM.replace("1.2.3-SNAPSHOT", "1.2.4").getBytes(StandardCharsets.UTF_8));
+    PomDocument changed = PomDocument.read(pom);
+    assertNotSame(first, changed);
+    assertEquals("1.2.4", changed.value(PomDocument.PROJECT_VERSION).orElseThrow());
+  }
+
+  /**
+   * Compares a cold invocation, with empty caches, to a warm second invocation in the same class
+   * loader; run with <code>mvn test -Dbenchmark=true</code>
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void benchmarkWarmSecondInvocation(@TempDir Path directory) throws IOException {
+    StringBuilder dependencies = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      dependencies.append(String.format(
+          "<dependency><groupId>g</groupId><artifactId>d%d</artifactId><version>1.%d.0</version></dependency>%n",
+          i, i));
+    }
+    List<Path> poms = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      Path pom = directory.resolve("p" + i + ".xml");
+      Files.write(
+          pom,
+          POM.replace("1.2.3-SNAPSHOT", "1." + i + ".0")
+              .replace("</project>", "<dependencies>" + dependencies + "</dependencies></project>")
+              .getBytes(StandardCharsets.UTF_8));
+      poms.add(pom);
+    }
+    for (int round = 0; round < 5; round++) {
+      PomDocument.clearCache();
+      long start = System.nanoTime();
+      invoke(poms);
+      long coldNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      invoke(poms);
+      long warmNanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: cold invocation %d ms, warm second invocation %d ms%n",
+          round, coldNanos / 1_000_000, warmNanos / 1_000_000);
+    }
+  }
+
+  private static void invoke(List<Path> poms) throws IOException {
+    for (Path pom : poms) {
+      PomDocument document = PomDocument.read(pom);
+      for (VersionReference reference : document.findVersionReferences(pom)) {
+        VersionCache.parse(reference.getVersion());
+      }
+      VersionCache.parse(document.value(PomDocument.PROJECT_VERSION).orElseThrow());
+    }
+  }
+}
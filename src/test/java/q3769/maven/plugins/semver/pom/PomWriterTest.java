@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomWriterTest {
+  @TempDir
+  Path directory;
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private long fileCount() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void batchWritesTakeEffectOnlyOnCommit() throws IOException {
+    Path a = directory.resolve("a.xml");
+    Path b = directory.resolve("b.xml");
+    Files.write(a, "old a".getBytes(StandardCharsets.UTF_8));
+    try (PomWriter.GroupCommit group = PomWriter.group(PomWriter.Durability.BATCH)) {
+      group.write(a, "new a");
+      group.write(b, "first b");
+      group.write(b, "new b");
+      assertEquals("old a", read(a));
+      assertFalse(Files.exists(b));
+
+      assertEquals(2, group.commit());
+    }
+    assertEquals("new a", read(a));
+    assertEquals("new b", read(b));
+    assertEquals(2, fileCount());
+  }
+
+  @Test
+  void closingUncommittedBatchDiscardsItsWrites() throws IOException {
+    Path a = directory.resolve("a.xml");
+    Files.write(a, "old a".getBytes(StandardCharsets.UTF_8));
+    try (PomWriter.GroupCommit group = PomWriter.group(PomWriter.Durability.BATCH)) {
+      group.write(a, "new a");
+    }
+    assertEquals("old a", read(a));
+    assertEquals(1, fileCount());
+  }
+
+  @Test
+  void noneAndStrictWritesTakeEffectImmediately() throws IOException {
+    for (PomWriter.Durability durability :
+        new PomWriter.Durability[] {PomWriter.Durability.NONE, PomWriter.Durability.STRICT}) {
+      Path file = directory.resolve(durability + ".xml");
+      try (PomWriter.GroupCommit group = PomWriter.group(durability)) {
+        group.write(file, durability.name());
+        assertEquals(durability.name(), read(file));
+        assertEquals(0, group.commit());
+      }
+    }
+    assertEquals(2, fileCount());
+  }
+
+  @Test
+  void rewritesKeepFilePermissions() throws IOException {
+    assumeTrue(Files.getFileAttributeView(directory, PosixFileAttributeView.class) != null);
+    Path pom = directory.resolve("pom.xml");
+    Files.write(pom, "old".getBytes(StandardCharsets.UTF_8));
+    Files.setPosixFilePermissions(pom, PosixFilePermissions.fromString("rw-rw-r--"));
+    Path created = directory.resolve("created.xml");
+
+    PomWriter.write(pom, "new");
+    PomWriter.write(created, "new");
+    try (PomWriter.GroupCommit group = PomWriter.group(PomWriter.Durability.BATCH)) {
+      group.write(pom, "newer");
+      group.commit();
+    }
+
+    assertEquals("newer", read(pom));
+    assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(pom)));
+    assertEquals(
+        "rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(created)));
+  }
+
+  @Test
+  void durabilityLevelsByName() {
+    assertEquals(PomWriter.Durability.BATCH, PomWriter.Durability.of("batch"));
+    assertEquals(PomWriter.Durability.STRICT, PomWriter.Durability.of(" Strict "));
+    assertThrows(IllegalArgumentException.class, () -> PomWriter.Durability.of("sometimes"));
+  }
+
+  /**
+   * Not a correctness test, but a rough comparison of the durability levels when writing many POM
+   * files; run with <code>mvn test -Dbenchmark=true</code>, and point <code>-Dbenchmark.dir</code>
+   * at a directory on the file system of interest, e.g. a network volume with slow syncs
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void benchmarkDurabilityLevels() throws IOException {
+    String benchmarkDirectory = System.getProperty("benchmark.dir");
+    Path base = benchmarkDirectory == null
+        ? directory
+        : Files.createTempDirectory(Paths.get(benchmarkDirectory), "pom-writer");
+    String pom = "<project><version>1.0.0</version></project>\n";
+    for (int round = 0; round < 3; round++) {
+      for (PomWriter.Durability durability : PomWriter.Durability.values()) {
+        long start = System.nanoTime();
+        try (PomWriter.GroupCommit group = PomWriter.group(durability)) {
+          for (int i = 0; i < 300; i++) {
+            Path module = Files.createDirectories(base.resolve("m" + i));
+            group.write(module.resolve("pom.xml"), pom.replace("1.0.0", "1." + round + ".0"));
+          }
+          group.commit();
+        }
+        System.out.printf(
+            "round %d: 300 POMs with durability %s in %d ms%n",
+            round, durability, (System.nanoTime() - start) / 1_000_000);
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReactorGraphTest {
+  @TempDir
+  Path root;
+
+  private Path write(String relativePath, String content) throws IOException {
+    Path file = root.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void rewritesProjectVersionAndAllLiteralReferences() throws IOException {
+    Path rootPom = write(
+        "pom.xml",
+        "<project><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version>"
+            + "<dependencyManagement><dependencies>"
+            + "<dependency><groupId>g</groupId><artifactId>a</artifactId><version>2.0.0</version></dependency>"
+            + "</dependencies></dependencyManagement></project>");
+    Path a = write(
+        "a/pom.xml",
+        "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></parent>"
+            + "<artifactId>a</artifactId><version>2.0.0</version></project>");
+    Path b = write(
+        "b/pom.xml",
+        "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></parent>"
+            + "<artifactId>b</artifactId><dependencies>"
+            + "<dependency><groupId>g</groupId><artifactId>a</artifactId><version>2.0.0</version></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>a</artifactId><version>${a.version}</version>"
+            + "<classifier>tests</classifier></dependency>"
+            + "</dependencies></project>");
+    ReactorGraph graph = ReactorGraph.scan(Arrays.asList(rootPom, a, b));
+
+    assertEquals(3, graph.referencesTo("g:a").size());
+    assertEquals(3, graph.updateVersion("g:a", "2.0.0", "2.1.0", true));
+
+    assertEquals(1, read(rootPom).split("2\\.1\\.0", -1).length - 1);
+    assertEquals(1, read(a).split("2\\.1\\.0", -1).length - 1);
+    assertEquals(1, read(b).split("2\\.1\\.0", -1).length - 1);
+    assertEquals(1, read(b).split("\\$\\{a.version}", -1).length - 1);
+  }
+
+  @Test
+  void followsConcurrentChangesToScannedFiles() throws IOException {
+    Path rootPom = write(
+        "pom.xml",
+        "<project><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></project>");
+    Path a = write(
+        "a/pom.xml",
+        "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></parent>"
+            + "<artifactId>a</artifactId></project>");
+    ReactorGraph graph = ReactorGraph.scan(Arrays.asList(rootPom, a));
+    write("a/pom.xml", "<!-- edited -->\n" + read(a));
+
+    assertEquals(2, graph.updateVersion("g:root", "1.0.0", "1.1.0", true));
+
+    assertEquals(
+        "<!-- edited -->\n"
+            + "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.1.0</version></parent>"
+            + "<artifactId>a</artifactId></project>",
+        read(a));
+  }
+
+  @Test
+  void resolvesGroupIdPlaceholdersToDeclaringProject() throws IOException {
+    Path rootPom = write(
+        "pom.xml",
+        "<project><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></project>");
+    Path a = write(
+        "a/pom.xml",
+        "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></parent>"
+            + "<artifactId>a</artifactId><version>2.0.0</version></project>");
+    Path b = write(
+        "b/pom.xml",
+        "<project><parent><groupId>g</groupId><artifactId>root</artifactId><version>1.0.0</version></parent>"
+            + "<artifactId>b</artifactId><dependencies>"
+            + "<dependency><groupId>${project.groupId}</groupId><artifactId>a</artifactId><version>2.0.0</version></dependency>"
+            + "<dependency><groupId>${project.parent.groupId}</groupId><artifactId>a</artifactId><version>2.0.0</version>"
+            + "<classifier>tests</classifier></dependency>"
+            + "</dependencies></project>");
+    Path c = write(
+        "c/pom.xml",
+        "<project><groupId>other</groupId><artifactId>c</artifactId><version>1.0.0</version><dependencies>"
+            + "<dependency><groupId>${pom.groupId}</groupId><artifactId>a</artifactId><version>2.0.0</version></dependency>"
+            + "</dependencies></project>");
+    ReactorGraph graph = ReactorGraph.scan(Arrays.asList(rootPom, a, b, c));
+
+    assertEquals(2, graph.referencesTo("g:a").size());
+    assertEquals(3, graph.updateVersion("g:a", "2.0.0", "2.1.0", true));
+
+    assertEquals(2, read(b).split("2\\.1\\.0", -1).length - 1);
+    assertEquals(2, read(b).split("\\$\\{project", -1).length - 1);
+    assertEquals(1, read(c).split("2\\.0\\.0", -1).length - 1);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.pom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RevisionPropertyTest {
+  @TempDir
+  Path root;
+
+  @Test
+  void mavenConfigTakesPrecedence() throws IOException {
+    Files.createDirectories(root.resolve(".mvn"));
+    Files.write(
+        root.resolve(".mvn/maven.config"),
+        "-T 4\n-Drevision=1.2.3 -Dchangelist=\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(root.resolve("pom.xml"), PomDocumentTest.POM.getBytes(StandardCharsets.UTF_8));
+    RevisionProperty revision = RevisionProperty.locate(root).orElseThrow();
+
+    revision.write("1.3.0");
+
+    assertEquals(root.resolve(".mvn/maven.config"), revision.getFile());
+    assertEquals("1.3.0", revision.read());
+    assertEquals(
+        "-T 4\n-Drevision=1.3.0 -Dchangelist=\n",
+        new String(Files.readAllBytes(revision.getFile()), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void fallsBackToRootPomProperty() throws IOException {
+    Files.write(root.resolve("pom.xml"), PomDocumentTest.POM.getBytes(StandardCharsets.UTF_8));
+    RevisionProperty revision = RevisionProperty.locate(root).orElseThrow();
+
+    revision.write("5.0.0");
+
+    assertEquals("5.0.0", revision.read());
+    assertEquals(
+        PomDocumentTest.POM.replace("4.5.6", "5.0.0"),
+        new String(Files.readAllBytes(root.resolve("pom.xml")), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void absentWhenNotDefined() throws IOException {
+    Files.write(
+        root.resolve("pom.xml"),
+        "<project><version>1.0.0</version></project>".getBytes(StandardCharsets.UTF_8));
+
+    assertFalse(RevisionProperty.locate(root).isPresent());
+  }
+}
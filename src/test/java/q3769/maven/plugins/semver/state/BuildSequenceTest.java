@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BuildSequenceTest {
+  @TempDir
+  Path project;
+
+  private long leased(String name) throws IOException {
+    return ByteBuffer.wrap(Files.readAllBytes(StateDirectory.resolve(project, "sequences/" + name)))
+        .getLong();
+  }
+
+  @Test
+  void drawsConsecutiveNumbersLeasingOneBlockAtATime() throws IOException {
+    BuildSequence sequence = BuildSequence.of(project, "build");
+    assertSame(sequence, BuildSequence.of(project, "build"));
+
+    assertEquals(1, sequence.next(10));
+    assertEquals(10, leased("build"));
+    for (long expected = 2; expected <= 10; expected++) {
+      assertEquals(expected, sequence.next(10));
+    }
+    assertEquals(10, leased("build"));
+    assertEquals(11, sequence.next(10));
+    assertEquals(20, leased("build"));
+  }
+
+  @Test
+  void processesDrawFromDisjointBlocks() throws IOException {
+    Path file = StateDirectory.prepare(project, "sequences/build");
+    BuildSequence one = new BuildSequence(file);
+    BuildSequence other = new BuildSequence(file);
+
+    assertEquals(1, one.next(3));
+    assertEquals(4, other.next(3));
+    assertEquals(2, one.next(3));
+    assertEquals(3, one.next(3));
+    assertEquals(7, one.next(3));
+    assertEquals(5, other.next(3));
+  }
+
+  @Test
+  void concurrentDrawsAreUnique() throws IOException {
+    BuildSequence sequence = BuildSequence.of(project, "build");
+
+    Set<Long> numbers = IntStream.range(0, 4000)
+        .parallel()
+        .mapToObj(i -> {
+          try {
+            return sequence.next(7);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        })
+        .collect(Collectors.toSet());
+
+    assertEquals(4000, numbers.size());
+    assertEquals(4004, leased("build"));
+  }
+
+  @Test
+  void peeksWithoutAdvancing() throws IOException {
+    Path file = StateDirectory.prepare(project, "sequences/build");
+    BuildSequence one = new BuildSequence(file);
+    BuildSequence other = new BuildSequence(file);
+    assertEquals(1, one.peek());
+
+    assertEquals(1, one.next(3));
+    assertEquals(2, one.peek());
+    assertEquals(2, one.peek());
+    assertEquals(4, other.peek());
+    assertEquals(3, leased("build"));
+    assertEquals(2, one.next(3));
+    assertEquals(4, other.next(3));
+  }
+
+  @Test
+  void rejectsInvalidNames() {
+    assertThrows(IllegalArgumentException.class, () -> BuildSequence.of(project, "../build"));
+    assertThrows(IllegalArgumentException.class, () -> BuildSequence.of(project, "build.1"));
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.Updater;
+import q3769.maven.plugins.semver.mojos.Updaters;
+import q3769.maven.plugins.semver.pom.VersionFile;
+
+/**
+ * Launches many JVMs that concurrently bump the versions of the same few POM files by
+ * compare-and-set, with a mix of increment, calendar and merge goals, then checks that no update
+ * was lost or POM corrupted: every POM is still well-formed XML, and the updates applied to each
+ * project form one unbroken chain of strictly increasing versions, from the initial version to the
+ * one in the POM. Reports throughput and latency percentiles of the bumps. Not run by default; run
+ * with <code>mvn test -Dstress=true</code>, and size it with <code>-Dstress.workers</code>, <code>
+ * -Dstress.bumps</code> (per worker) and <code>-Dstress.projects</code>.
+ */
+class CompareAndSetStressTest {
+  private static final String INITIAL_VERSION = "1.0.0";
+  private static final List<String> GOALS =
+      Arrays.asList("increment-patch", "increment-minor", "calendar-patch", "merge");
+  private static final String MERGED_SEMVER = "1.5.0";
+  private static final String APPLIED = "applied";
+  private static final String DECLINED = "declined";
+  private static final String GAVE_UP = "gave-up";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @EnabledIfSystemProperty(named = "stress", matches = "true")
+  void concurrentBumpsAcrossProcesses() throws Exception {
+    int workers = Integer.getInteger("stress.workers", 8);
+    int bumps = Integer.getInteger("stress.bumps", 50);
+    int projectCount = Integer.getInteger("stress.projects", 2);
+    List<Path> projects = new ArrayList<>();
+    for (int i = 0; i < projectCount; i++) {
+      Path project = Files.createDirectories(directory.resolve("project" + i));
+      Files.write(
+          project.resolve("pom.xml"),
+          ("<project>\n  <artifactId>project" + i + "</artifactId>\n  <version>" + INITIAL_VERSION
+                  + "</version>\n  <packaging>jar</packaging>\n</project>\n")
+              .getBytes(StandardCharsets.UTF_8));
+      projects.add(project);
+    }
+    Path go = directory.resolve("go");
+    List<Process> processes = new ArrayList<>();
+    List<Path> logs = new ArrayList<>();
+    for (int i = 0; i < workers; i++) {
+      Path log = directory.resolve("worker" + i + ".log");
+      List<String> command = new ArrayList<>(Arrays.asList(
+          Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+          "-cp",
+          System.getProperty("java.class.path"),
+          Worker.class.getName(),
+          GOALS.get(i % GOALS.size()),
+          String.valueOf(bumps),
+          go.toString(),
+          log.toString()));
+      projects.forEach(project -> command.add(project.toString()));
+      processes.add(new ProcessBuilder(command)
+          .redirectErrorStream(true)
+          .redirectOutput(directory.resolve("worker" + i + ".out").toFile())
+          .start());
+      logs.add(log);
+    }
+    long start = System.nanoTime();
+    Files.createFile(go);
+    for (Process process : processes) {
+      assertTrue(process.waitFor(10, TimeUnit.MINUTES), "Worker timed out");
+      assertEquals(0, process.exitValue(), "Worker failed, see its .out file in " + directory);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    Map<String, Map<Version, Version>> transitions = new HashMap<>();
+    Map<String, Integer> outcomes = new HashMap<>();
+    List<Long> latencies = new ArrayList<>();
+    int totalAttempts = 0;
+    for (Path log : logs) {
+      for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+        String[] fields = line.split(" ");
+        outcomes.merge(fields[1], 1, Integer::sum);
+        latencies.add(Long.parseLong(fields[4]));
+        totalAttempts += Integer.parseInt(fields[5]);
+        if (!APPLIED.equals(fields[1]) || fields[2].equals(fields[3])) {
+          continue;
+        }
+        Version original = Version.parse(fields[2]);
+        Version updated = Version.parse(fields[3]);
+        assertTrue(updated.isHigherThan(original), "Version not increased: " + line);
+        assertNull(
+            transitions.computeIfAbsent(fields[0], p -> new HashMap<>()).put(original, updated),
+            "Two updates applied to the same version, one was lost: " + line);
+      }
+    }
+    assertEquals(workers * bumps * projectCount, latencies.size());
+    for (Path project : projects) {
+      DocumentBuilderFactory.newInstance()
+          .newDocumentBuilder()
+          .parse(project.resolve("pom.xml").toFile());
+      Map<Version, Version> chain =
+          new HashMap<>(transitions.getOrDefault(project.toString(), Collections.emptyMap()));
+      Version version = Version.parse(INITIAL_VERSION);
+      while (chain.containsKey(version)) {
+        version = chain.remove(version);
+      }
+      assertTrue(chain.isEmpty(), "Updates off the version chain of " + project + ": " + chain);
+      assertEquals(version.toString(), VersionFile.of(project).read());
+      assertNotNull(VersionState.currentVersion(project));
+    }
+
+    Collections.sort(latencies);
+    System.out.printf(
+        "%d workers x %d bumps x %d projects in %d ms: %.0f bumps/s, %s, %.2f attempts per bump, latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+        workers,
+        bumps,
+        projectCount,
+        TimeUnit.NANOSECONDS.toMillis(elapsed),
+        latencies.size() * 1e9 / elapsed,
+        outcomes,
+        (double) totalAttempts / latencies.size(),
+        percentile(latencies, 50),
+        percentile(latencies, 90),
+        percentile(latencies, 99),
+        latencies.get(latencies.size() - 1) / 1e6);
+  }
+
+  private static double percentile(List<Long> sorted, int percent) {
+    return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percent / 100)) / 1e6;
+  }
+
+  /**
+   * Bumps the versions of the given projects in turn, logging one line per bump: project, outcome,
+   * original and updated version, latency in nanoseconds, and compare-and-set attempts.
+   */
+  static final class Worker {
+    private Worker() {}
+
+    /** @param args goal, bumps per project, start signal file, log file, project directories */
+    public static void main(String[] args) throws Exception {
+      Properties parameters = new Properties();
+      parameters.setProperty(Updaters.SEMVER, MERGED_SEMVER);
+      Updater updater = Updaters.create(args[0], parameters);
+      int bumps = Integer.parseInt(args[1]);
+      Path go = Paths.get(args[2]);
+      while (!Files.exists(go)) {
+        Thread.sleep(1);
+      }
+      try (BufferedWriter log = Files.newBufferedWriter(Paths.get(args[3]))) {
+        for (int bump = 0; bump < bumps; bump++) {
+          for (int i = 4; i < args.length; i++) {
+            Path project = Paths.get(args[i]);
+            long start = System.nanoTime();
+            Version current = Version.parse(VersionFile.of(project).read());
+            String outcome;
+            String original = current.toString();
+            String updated = original;
+            int attempts = 1;
+            try {
+              CompareAndSet.Result result =
+                  CompareAndSet.update(project, current, updater::getUpdatedVersion, 1000);
+              outcome = result.isApplied() ? APPLIED : GAVE_UP;
+              original = result.getOriginal().toString();
+              updated = result.isApplied() ? result.getUpdated().toString() : original;
+              attempts = result.getAttempts();
+            } catch (MojoFailureException e) {
+              outcome = DECLINED;
+            }
+            log.write(String.join(
+                " ",
+                project.toString(),
+                outcome,
+                original,
+                updated,
+                String.valueOf(System.nanoTime() - start),
+                String.valueOf(attempts)));
+            log.newLine();
+          }
+        }
+      }
+    }
+  }
+}
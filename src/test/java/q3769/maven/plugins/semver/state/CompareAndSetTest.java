@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import q3769.maven.plugins.semver.pom.VersionFile;
+
+class CompareAndSetTest {
+  @TempDir
+  Path project;
+
+  private void writePom(String version) throws IOException {
+    Files.write(
+        project.resolve("pom.xml"),
+        ("<project>\n  <version>" + version + "</version>\n</project>\n")
+            .getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void setsWhenUnchanged() throws Exception {
+    writePom("1.0.0");
+
+    CompareAndSet.Result result =
+        CompareAndSet.update(project, Version.parse("1.0.0"), Version::nextMinorVersion, 3);
+
+    assertTrue(result.isApplied());
+    assertEquals(1, result.getAttempts());
+    assertEquals("1.1.0", VersionFile.of(project).read());
+  }
+
+  @Test
+  void recomputesFromConcurrentlyChangedVersion() throws Exception {
+    writePom("1.0.0");
+    AtomicInteger computations = new AtomicInteger();
+
+    CompareAndSet.Result result = CompareAndSet.update(
+        project,
+        Version.parse("1.0.0"),
+        original -> {
+          if (computations.getAndIncrement() == 0) {
+            writePom("1.0.5");
+          }
+          return original.nextPatchVersion();
+        },
+        3);
+
+    assertTrue(result.isApplied());
+    assertEquals(2, result.getAttempts());
+    assertEquals(Version.parse("1.0.5"), result.getOriginal());
+    assertEquals("1.0.6", VersionFile.of(project).read());
+  }
+
+  @Test
+  void givesUpAfterMaxAttempts() throws Exception {
+    writePom("1.0.0");
+    AtomicInteger patch = new AtomicInteger();
+
+    CompareAndSet.Result result = CompareAndSet.update(
+        project,
+        Version.parse("1.0.0"),
+        original -> {
+          writePom("1.0." + patch.incrementAndGet());
+          return original.nextMajorVersion();
+        },
+        2);
+
+    assertFalse(result.isApplied());
+    assertEquals("1.0.2", VersionFile.of(project).read());
+  }
+}
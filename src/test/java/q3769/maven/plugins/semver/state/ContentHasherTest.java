@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContentHasherTest {
+  @TempDir
+  Path project;
+
+  private void write(String relativePath, byte[] content) throws IOException {
+    Path file = project.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content);
+  }
+
+  private void write(String relativePath, String content) throws IOException {
+    write(relativePath, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<Path> roots() {
+    return Arrays.asList(project.resolve("src/main/java"), project.resolve("src/main/resources"));
+  }
+
+  @Test
+  void hashIsDeterministicAndFollowsContentAndNames() throws IOException {
+    write("src/main/java/a/A.java", "class A {}");
+    write("src/main/java/b/B.java", "class B {}");
+    write("src/main/resources/b.properties", "b=1");
+    String initial = ContentHasher.hashTree(project, roots());
+    assertEquals(initial, ContentHasher.hashTree(project, roots(), new ForkJoinPool(1)));
+
+    write("src/main/java/b/B.java", "class B { }");
+    String changed = ContentHasher.hashTree(project, roots());
+    assertNotEquals(initial, changed);
+
+    write("src/main/java/b/B.java", "class B {}");
+    assertEquals(initial, ContentHasher.hashTree(project, roots()));
+
+    Files.move(project.resolve("src/main/java/b"), project.resolve("src/main/java/c"));
+    assertNotEquals(initial, ContentHasher.hashTree(project, roots()));
+  }
+
+  @Test
+  void hashDoesNotDependOnCheckoutLocation(@TempDir Path other) throws IOException {
+    write("src/main/java/A.java", "class A {}");
+    Files.createDirectories(other.resolve("src/main/java"));
+    Files.copy(project.resolve("src/main/java/A.java"), other.resolve("src/main/java/A.java"));
+    assertEquals(
+        ContentHasher.hashTree(
+            project, Collections.singletonList(project.resolve("src/main/java"))),
+        ContentHasher.hashTree(other, Collections.singletonList(other.resolve("src/main/java"))));
+  }
+
+  @Test
+  void entriesAreOrderedByNameString() throws IOException {
+    String supplementary = "\uD83D\uDE00";
+    String fullwidth = "\uFF21";
+    assumeTrue(
+        Charset.forName(System.getProperty("sun.jnu.encoding", "UTF-8"))
+            .newEncoder()
+            .canEncode(supplementary + fullwidth),
+        "File names cannot hold non-ASCII characters");
+    write("src/main/java/" + fullwidth, "f");
+    write("src/main/java/" + supplementary, "s");
+    MessageDigest directory = Hashes.sha256();
+    for (String name : Arrays.asList(supplementary, fullwidth)) {
+      directory.update((byte) 'f');
+      directory.update(name.getBytes(StandardCharsets.UTF_8));
+      directory.update((byte) 0);
+      directory.update(ContentHasher.hashFile(project.resolve("src/main/java").resolve(name)));
+    }
+    MessageDigest tree = Hashes.sha256();
+    tree.update("src/main/java".getBytes(StandardCharsets.UTF_8));
+    tree.update((byte) 0);
+    tree.update(directory.digest());
+
+    assertEquals(
+        Hashes.hex(tree.digest()),
+        ContentHasher.hashTree(
+            project, Collections.singletonList(project.resolve("src/main/java"))));
+  }
+
+  @Test
+  void mappedFileHashEqualsPlainHash() throws Exception {
+    byte[] content = new byte[3 << 20];
+    new Random(42).nextBytes(content);
+    write("big.bin", content);
+    assertArrayEquals(
+        MessageDigest.getInstance("SHA-256").digest(content),
+        ContentHasher.hashFile(project.resolve("big.bin")));
+  }
+
+  /** Compares against naive sequential hashing; run with <code>mvn test -Dbenchmark=true</code> */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void benchmarkAgainstSequentialReadAllBytes() throws IOException {
+    Random random = new Random(42);
+    for (int i = 0; i < 4000; i++) {
+      byte[] content = new byte[1024 + random.nextInt(16 * 1024)];
+      random.nextBytes(content);
+      write(String.format("src/main/java/p%02d/F%04d.java", i % 50, i), content);
+    }
+    for (int i = 0; i < 8; i++) {
+      byte[] content = new byte[16 << 20];
+      random.nextBytes(content);
+      write(String.format("src/main/resources/blob%d.bin", i), content);
+    }
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      String naive = naiveHash(roots());
+      long naiveNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      ContentHasher.hashTree(project, roots());
+      long parallelNanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: naive sequential %d ms, parallel Merkle %d ms (naive hash %s)%n",
+          round, naiveNanos / 1_000_000, parallelNanos / 1_000_000, naive.substring(0, 12));
+    }
+  }
+
+  private static String naiveHash(List<Path> roots) throws IOException {
+    MessageDigest digest = Hashes.sha256();
+    for (Path root : roots) {
+      List<Path> files;
+      try (Stream<Path> walk = Files.walk(root)) {
+        files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+      for (Path file : files) {
+        digest.update(Files.readAllBytes(file));
+      }
+    }
+    return Hashes.hex(digest.digest());
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.github.zafarkhaja.semver.Version;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalRepositoryIndexTest {
+  @TempDir
+  Path project;
+
+  @TempDir
+  Path repository;
+
+  private void writeMetadata(String fileName, long modified, String... versions)
+      throws IOException {
+    StringBuilder xml = new StringBuilder("<metadata><groupId>com.acme</groupId>")
+        .append("<artifactId>app</artifactId><versioning><versions>");
+    for (String version : versions) {
+      xml.append("<version>").append(version).append("</version>");
+    }
+    xml.append("</versions></versioning></metadata>");
+    Path file = repository.resolve("com/acme/app").resolve(fileName);
+    Files.createDirectories(file.getParent());
+    Files.write(file, xml.toString().getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+  }
+
+  @Test
+  void resolvesLatestReleaseAndRefreshesOnlyChangedMetadata() throws IOException {
+    writeMetadata("maven-metadata-local.xml", 1000, "1.0.0", "1.10.0", "1.2.0", "2.0.0-SNAPSHOT");
+    writeMetadata("maven-metadata-central.xml", 1000, "1.9.0", "not-semver");
+    LocalRepositoryIndex index = LocalRepositoryIndex.load(project, repository);
+    assertEquals(
+        Arrays.asList(
+            Version.parse("1.0.0"),
+            Version.parse("1.2.0"),
+            Version.parse("1.9.0"),
+            Version.parse("1.10.0"),
+            Version.parse("2.0.0-SNAPSHOT")),
+        index.versions("com.acme", "app"));
+    assertEquals(Version.parse("1.10.0"), index.latestRelease("com.acme", "app").orElseThrow());
+    index.save();
+
+    writeMetadata("maven-metadata-local.xml", 1000, "9.9.9");
+    assertEquals(
+        Version.parse("1.10.0"),
+        LocalRepositoryIndex.load(project, repository)
+            .latestRelease("com.acme", "app")
+            .orElseThrow());
+
+    writeMetadata("maven-metadata-local.xml", 2000, "9.9.9");
+    assertEquals(
+        Version.parse("9.9.9"),
+        LocalRepositoryIndex.load(project, repository)
+            .latestRelease("com.acme", "app")
+            .orElseThrow());
+    assertFalse(LocalRepositoryIndex.load(project, repository)
+        .latestRelease("com.acme", "absent")
+        .isPresent());
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReferenceIndexTest {
+  private static final Set<String> EXCLUDES = new HashSet<>(Arrays.asList("target", ".semver"));
+  private static final String PARENT = "<project>\n"
+      + "  <groupId>g</groupId>\n"
+      + "  <artifactId>parent</artifactId>\n"
+      + "  <version>1.0.0</version>\n"
+      + "  <description>Größe – ✓ 𝄞</description>\n"
+      + "  <properties>\n"
+      + "    <lib.version>2.1.0</lib.version>\n"
+      + "    <encoding>UTF-8</encoding>\n"
+      + "  </properties>\n"
+      + "  <dependencyManagement><dependencies><dependency>\n"
+      + "    <groupId>x</groupId><artifactId>lib</artifactId><version>${lib.version}</version>\n"
+      + "  </dependency></dependencies></dependencyManagement>\n"
+      + "  <build><plugins><plugin>\n"
+      + "    <artifactId>maven-jar-plugin</artifactId><version>3.3.0</version>\n"
+      + "  </plugin></plugins></build>\n"
+      + "</project>\n";
+  private static final String MODULE = "<project>\n"
+      + "  <parent><groupId>g</groupId><artifactId>parent</artifactId>"
+      + "<version>1.0.0</version></parent>\n"
+      + "  <artifactId>module</artifactId>\n"
+      + "  <dependencies><dependency>\n"
+      + "    <groupId>g</groupId><artifactId>core</artifactId><version>1.0.0</version>\n"
+      + "  </dependency></dependencies>\n"
+      + "</project>\n";
+
+  @TempDir
+  Path root;
+
+  private void write(String file, String content) throws IOException {
+    Path pom = root.resolve(file);
+    Files.createDirectories(pom.getParent());
+    Files.write(pom, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String bytesOf(ReferenceIndex.Reference reference) throws IOException {
+    byte[] content = Files.readAllBytes(root.resolve(reference.getFile()));
+    return new String(
+        Arrays.copyOfRange(content, reference.getStart(), reference.getEnd()),
+        StandardCharsets.UTF_8);
+  }
+
+  private ReferenceIndex refreshed() throws IOException {
+    ReferenceIndex index = ReferenceIndex.load(root);
+    assertEquals(Collections.emptyList(), index.refresh(EXCLUDES));
+    return index;
+  }
+
+  @Test
+  void indexesAllKindsOfReferencesByByteOffset() throws IOException {
+    write("pom.xml", PARENT);
+    write("module/pom.xml", MODULE);
+    write("module/target/pom.xml", MODULE);
+
+    ReferenceIndex index = refreshed();
+
+    assertEquals(2, index.size());
+    List<ReferenceIndex.Reference> all = index.find(null, null);
+    assertEquals(6, all.size());
+    for (ReferenceIndex.Reference reference : all) {
+      assertEquals(reference.getVersion(), bytesOf(reference));
+    }
+    List<ReferenceIndex.Reference> v100 = index.find("1.0.0", null);
+    assertEquals(
+        Arrays.asList("module/pom.xml", "module/pom.xml", "pom.xml"),
+        Arrays.asList(v100.get(0).getFile(), v100.get(1).getFile(), v100.get(2).getFile()));
+    assertEquals("PARENT", v100.get(0).getKind());
+    assertEquals(2, v100.get(0).getLine());
+    assertEquals("DEPENDENCY", v100.get(1).getKind());
+    assertEquals("g:core", v100.get(1).getCoordinates());
+    assertEquals(ReferenceIndex.PROJECT, v100.get(2).getKind());
+    assertEquals("g:parent", v100.get(2).getCoordinates());
+    ReferenceIndex.Reference property = index.find(null, "lib.version").get(0);
+    assertEquals(ReferenceIndex.PROPERTY, property.getKind());
+    assertEquals("2.1.0", property.getVersion());
+    assertEquals(7, property.getLine());
+    assertEquals(
+        "DEPENDENCY_MANAGEMENT", index.find("${lib.version}", "x:lib").get(0).getKind());
+    assertEquals(
+        "org.apache.maven.plugins:maven-jar-plugin",
+        index.find(null, "maven-jar-plugin").get(0).getCoordinates());
+  }
+
+  @Test
+  void persistsAndRescansChangedFilesOnly() throws IOException {
+    write("pom.xml", PARENT);
+    write("module/pom.xml", MODULE);
+    ReferenceIndex index = refreshed();
+    index.save();
+
+    ReferenceIndex loaded = ReferenceIndex.load(root);
+    assertEquals(index.find(null, null), loaded.find(null, null));
+    write("module/pom.xml", MODULE.replace("core", "api"));
+    Files.setLastModifiedTime(root.resolve("module/pom.xml"), FileTime.fromMillis(1000));
+    Files.delete(root.resolve("pom.xml"));
+    write("other/pom.xml", "<project><version>3.0.0</version></project>");
+    assertEquals(Collections.emptyList(), loaded.refresh(EXCLUDES));
+
+    assertEquals(2, loaded.size());
+    assertEquals("g:api", loaded.find(null, "api").get(0).getCoordinates());
+    assertTrue(loaded.find(null, "core").isEmpty());
+    assertTrue(loaded.find("2.1.0", null).isEmpty());
+    assertEquals("other/pom.xml", loaded.find("3.0.0", null).get(0).getFile());
+  }
+
+  @Test
+  void reusesUnchangedEntries() throws IOException {
+    write("pom.xml", PARENT);
+    Files.setLastModifiedTime(root.resolve("pom.xml"), FileTime.fromMillis(1000));
+    ReferenceIndex index = refreshed();
+    ReferenceIndex.Reference before = index.find("3.3.0", null).get(0);
+
+    index.refresh(EXCLUDES);
+
+    assertSame(before, index.find("3.3.0", null).get(0));
+  }
+
+  @Test
+  void rescansRacilyCleanFiles() throws IOException {
+    write("pom.xml", PARENT);
+    FileTime modified = Files.getLastModifiedTime(root.resolve("pom.xml"));
+    refreshed().save();
+
+    write("pom.xml", PARENT.replace("3.3.0", "3.4.0"));
+    Files.setLastModifiedTime(root.resolve("pom.xml"), modified);
+
+    ReferenceIndex index = refreshed();
+    assertTrue(index.find("3.3.0", null).isEmpty());
+    assertEquals(1, index.find("3.4.0", null).size());
+  }
+
+  @Test
+  void rescansRewrittenFiles() throws IOException {
+    write("pom.xml", PARENT);
+    ReferenceIndex index = refreshed();
+    index.rewrite(index.find("3.3.0", null), "3.4.0");
+    FileTime modified = Files.getLastModifiedTime(root.resolve("pom.xml"));
+
+    write("pom.xml", PARENT.replace("3.3.0", "3.5.0"));
+    Files.setLastModifiedTime(root.resolve("pom.xml"), modified);
+
+    index.refresh(EXCLUDES);
+    assertTrue(index.find("3.4.0", null).isEmpty());
+    assertEquals(1, index.find("3.5.0", null).size());
+  }
+
+  @Test
+  void reportsMalformedFiles() throws IOException {
+    write("pom.xml", PARENT);
+    write("broken/pom.xml", "<project><version>1.0.0</project>");
+
+    ReferenceIndex index = ReferenceIndex.load(root);
+
+    assertEquals(Collections.singletonList("broken/pom.xml"), index.refresh(EXCLUDES));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void rewritesReferencesInPlaceByOffset() throws IOException {
+    write("pom.xml", PARENT);
+    write("module/pom.xml", MODULE);
+    ReferenceIndex index = refreshed();
+
+    assertEquals(2, index.rewrite(index.find("1.0.0", null), "1.1.0-SNAPSHOT"));
+
+    assertEquals(
+        PARENT.replace("<version>1.0.0<", "<version>1.1.0-SNAPSHOT<"),
+        new String(Files.readAllBytes(root.resolve("pom.xml")), StandardCharsets.UTF_8));
+    assertEquals(
+        MODULE.replace("1.0.0", "1.1.0-SNAPSHOT"),
+        new String(Files.readAllBytes(root.resolve("module/pom.xml")), StandardCharsets.UTF_8));
+    assertTrue(index.find("1.0.0", null).isEmpty());
+    assertEquals(3, index.find("1.1.0-SNAPSHOT", null).size());
+    for (ReferenceIndex.Reference reference : index.find(null, null)) {
+      assertEquals(reference.getVersion(), bytesOf(reference));
+    }
+  }
+
+  @Test
+  void refusesToRewriteStaleOffsets() throws IOException {
+    write("pom.xml", PARENT);
+    ReferenceIndex index = refreshed();
+    List<ReferenceIndex.Reference> plugin = index.find("3.3.0", null);
+    write("pom.xml", PARENT.replace("Größe", "Size"));
+
+    assertThrows(IOException.class, () -> index.rewrite(plugin, "3.4.0"));
+    assertEquals(
+        PARENT.replace("Größe", "Size"),
+        new String(Files.readAllBytes(root.resolve("pom.xml")), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultCacheTest {
+  private static final String PLUGIN = "g:semver-maven-plugin:1";
+  private static final byte[] POM =
+      "<project><version>1.0.0</version></project>".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] RESULT =
+      "<project><version>1.1.0</version></project>".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  private Path entry(String key) {
+    return directory.resolve(Hashes.sha256Hex(key.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private Path onlyEntry() throws IOException {
+    try (Stream<Path> entries = Files.list(directory)) {
+      return entries
+          .reduce((a, b) -> {
+            throw new AssertionError("More than one entry");
+          })
+          .orElseThrow(AssertionError::new);
+    }
+  }
+
+  @Test
+  void returnsResultOfIdenticalInputsOnly() throws IOException {
+    ResultCache cache = ResultCache.open(directory, 1 << 20);
+    String key = ResultCache.key(PLUGIN, "set-current", "semver=1.1.0", POM);
+    cache.put(key, RESULT);
+
+    assertArrayEquals(RESULT, cache.get(key).orElseThrow(AssertionError::new));
+    assertEquals(key, ResultCache.key(PLUGIN, "set-current", "semver=1.1.0", POM.clone()));
+    assertFalse(
+        cache.get(ResultCache.key(PLUGIN, "set-current", "semver=1.2.0", POM)).isPresent());
+    assertFalse(cache
+        .get(ResultCache.key(PLUGIN, "set-current", "semver=1.1.0", RESULT))
+        .isPresent());
+    assertFalse(cache
+        .get(ResultCache.key("g:semver-maven-plugin:2", "set-current", "semver=1.1.0", POM))
+        .isPresent());
+  }
+
+  @Test
+  void dropsEntriesFailingIntegrityCheck() throws IOException {
+    ResultCache cache = ResultCache.open(directory, 1 << 20);
+    String key = ResultCache.key(PLUGIN, "finalize-current", "", POM);
+    cache.put(key, RESULT);
+    Path entry = onlyEntry();
+    byte[] corrupt = Files.readAllBytes(entry);
+    corrupt[corrupt.length / 2] ^= 1;
+    Files.write(entry, corrupt);
+
+    assertEquals(Optional.empty(), cache.get(key));
+    assertFalse(Files.exists(entry));
+
+    cache.put(key, RESULT);
+    Files.write(entry, new byte[] {1, 2, 3});
+    assertEquals(Optional.empty(), cache.get(key));
+  }
+
+  @Test
+  void ignoresEntryStoredUnderAnotherKey() throws IOException {
+    ResultCache cache = ResultCache.open(directory, 1 << 20);
+    String key = ResultCache.key(PLUGIN, "merge", "semver=2.0.0", POM);
+    String other = ResultCache.key(PLUGIN, "merge", "semver=3.0.0", POM);
+    cache.put(key, RESULT);
+    cache.put(other, RESULT);
+    Files.copy(entry(key), entry(other), StandardCopyOption.REPLACE_EXISTING);
+
+    assertEquals(Optional.empty(), cache.get(other));
+    assertTrue(cache.get(key).isPresent());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedEntriesBeyondSizeLimit() throws IOException {
+    ResultCache cache = ResultCache.open(directory, 1 << 20);
+    String first = ResultCache.key(PLUGIN, "pick-newer", "semver=1.0.1", POM);
+    cache.put(first, RESULT);
+    long entrySize = Files.size(entry(first));
+    cache = ResultCache.open(directory, 2 * entrySize);
+    String second = ResultCache.key(PLUGIN, "pick-newer", "semver=1.0.2", POM);
+    cache.put(second, RESULT);
+    Files.setLastModifiedTime(entry(first), FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(entry(second), FileTime.fromMillis(2000));
+    assertTrue(cache.get(first).isPresent());
+
+    String third = ResultCache.key(PLUGIN, "pick-newer", "semver=1.0.3", POM);
+    cache.put(third, RESULT);
+
+    assertTrue(cache.get(first).isPresent());
+    assertFalse(cache.get(second).isPresent());
+    assertTrue(cache.get(third).isPresent());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceIndexTest {
+  @TempDir
+  Path project;
+
+  private void write(String relativePath, String content) throws IOException {
+    Path file = project.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void contentHashFollowsContentAcrossSavedIndexes() throws IOException {
+    List<Path> roots = Collections.singletonList(project.resolve("src/main"));
+    write("src/main/java/A.java", "class A {}");
+    write("src/main/resources/a.properties", "a=1");
+    SourceIndex index = SourceIndex.load(project);
+    assertFalse(index.getBaseline().isPresent());
+    String initial = index.refresh(roots);
+    index.setBaseline(initial);
+    index.save();
+
+    SourceIndex reloaded = SourceIndex.load(project);
+    assertEquals(2, reloaded.size());
+    assertEquals(initial, reloaded.getBaseline().orElseThrow());
+    assertEquals(initial, reloaded.refresh(roots));
+
+    write("src/main/java/A.java", "class A { }");
+    String changed = reloaded.refresh(roots);
+    assertNotEquals(initial, changed);
+
+    write("src/main/java/A.java", "class A {}");
+    assertEquals(initial, reloaded.refresh(roots));
+  }
+
+  @Test
+  void rehashesRacilyCleanFile() throws IOException {
+    List<Path> roots = Collections.singletonList(project.resolve("src/main"));
+    write("src/main/java/A.java", "class A {}");
+    Path file = project.resolve("src/main/java/A.java");
+    FileTime modified = Files.getLastModifiedTime(file);
+    SourceIndex index = SourceIndex.load(project);
+    String initial = index.refresh(roots);
+    index.save();
+
+    write("src/main/java/A.java", "class B {}");
+    Files.setLastModifiedTime(file, modified);
+
+    assertNotEquals(initial, SourceIndex.load(project).refresh(roots));
+  }
+
+  @Test
+  void trustsStatOutsideRacyWindow() throws IOException {
+    List<Path> roots = Collections.singletonList(project.resolve("src/main"));
+    write("src/main/java/A.java", "class A {}");
+    Path file = project.resolve("src/main/java/A.java");
+    FileTime modified =
+        FileTime.fromMillis(System.currentTimeMillis() - 10 * VersionState.RACY_WINDOW_MILLIS);
+    Files.setLastModifiedTime(file, modified);
+    SourceIndex index = SourceIndex.load(project);
+    String initial = index.refresh(roots);
+    index.save();
+
+    write("src/main/java/A.java", "class B {}");
+    Files.setLastModifiedTime(file, modified);
+
+    assertEquals(initial, SourceIndex.load(project).refresh(roots));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionHistoryTest {
+  private static final int RECORDS = VersionHistory.BLOCK_SIZE * 3 + 17;
+
+  @TempDir
+  Path project;
+
+  private static VersionHistory.Record record(int i) {
+    return new VersionHistory.Record(
+        Instant.ofEpochMilli(1_000_000L + i * 1000L),
+        "update-pre-release",
+        "1.0.0-rc." + i,
+        "1.0.0-rc." + (i + 1));
+  }
+
+  @Test
+  void answersQueriesFromSparseIndex() throws IOException {
+    for (int i = 0; i < RECORDS; i++) {
+      VersionHistory.append(project, record(i));
+    }
+    VersionHistory history = VersionHistory.open(project);
+    assertEquals(RECORDS, history.size());
+
+    List<VersionHistory.Record> last = history.last(3);
+    assertEquals(3, last.size());
+    assertEquals("1.0.0-rc." + RECORDS, last.get(2).getNewVersion());
+    assertEquals("1.0.0-rc." + (RECORDS - 3), last.get(0).getOldVersion());
+    assertEquals(RECORDS, history.last(RECORDS * 2).size());
+
+    List<VersionHistory.Record> since =
+        history.since(Instant.ofEpochMilli(1_000_000L + (RECORDS - 300) * 1000L));
+    assertEquals(300, since.size());
+    assertEquals(record(RECORDS - 300).getTimestamp(), since.get(0).getTimestamp());
+
+    assertEquals(RECORDS, history.highestPreReleaseCounter("rc").getAsLong());
+    assertFalse(history.highestPreReleaseCounter("beta").isPresent());
+    assertEquals(RECORDS, history.highestPreReleaseCounter("1.0.0", "rc").getAsLong());
+    assertFalse(history.highestPreReleaseCounter("1.0.1", "rc").isPresent());
+  }
+
+  @Test
+  void rebuildsLostIndexFromLog() throws IOException {
+    for (int i = 0; i < VersionHistory.BLOCK_SIZE + 1; i++) {
+      VersionHistory.append(project, record(i));
+    }
+    Files.delete(StateDirectory.resolve(project, "history.idx"));
+    VersionHistory.append(project, record(VersionHistory.BLOCK_SIZE + 1));
+    VersionHistory history = VersionHistory.open(project);
+    assertEquals(VersionHistory.BLOCK_SIZE + 2, history.size());
+    assertEquals(
+        "1.0.0-rc." + (VersionHistory.BLOCK_SIZE + 1), history.last(1).get(0).getOldVersion());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Qingtian Wang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package q3769.maven.plugins.semver.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionStateTest {
+  @TempDir
+  Path project;
+
+  private void writePom(String version) throws IOException {
+    Files.write(
+        project.resolve("pom.xml"),
+        ("<project><version>" + version + "</version></project>").getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void answersFromStateFileAndDetectsStalePom() throws IOException {
+    writePom("1.0.0");
+
+    assertEquals("1.0.0", VersionState.currentVersion(project));
+    assertTrue(Files.isRegularFile(project.resolve(".semver/state")));
+
+    writePom("1.0.1");
+    Files.setLastModifiedTime(project.resolve("pom.xml"), FileTime.fromMillis(0));
+
+    assertEquals("1.0.1", VersionState.currentVersion(project));
+  }
+
+  @Test
+  void rehashesRacilyCleanPom() throws IOException {
+    writePom("1.0.0");
+    Path pom = project.resolve("pom.xml");
+    FileTime modified = Files.getLastModifiedTime(pom);
+    assertEquals("1.0.0", VersionState.currentVersion(project));
+
+    writePom("1.0.1");
+    Files.setLastModifiedTime(pom, modified);
+
+    assertEquals("1.0.1", VersionState.currentVersion(project));
+  }
+
+  @Test
+  void trustsStatOutsideRacyWindow() throws IOException {
+    writePom("1.0.0");
+    Path pom = project.resolve("pom.xml");
+    FileTime modified =
+        FileTime.fromMillis(System.currentTimeMillis() - 10 * VersionState.RACY_WINDOW_MILLIS);
+    Files.setLastModifiedTime(pom, modified);
+    assertEquals("1.0.0", VersionState.currentVersion(project));
+
+    writePom("1.0.1");
+    Files.setLastModifiedTime(pom, modified);
+
+    assertEquals("1.0.0", VersionState.currentVersion(project));
+  }
+
+  @Test
+  void resolvesCiFriendlyRevision() throws IOException {
+    Files.write(
+        project.resolve("pom.xml"),
+        "<project><version>${revision}</version><properties><revision>3.1.0</revision></properties></project>"
+            .getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("3.1.0", VersionState.record(project).getVersion());
+    assertEquals("3.1.0", VersionState.currentVersion(project));
+  }
+
+  @Test
+  void resolvesRevisionOfModuleFromMultiModuleRoot() throws IOException {
+    Files.createDirectories(project.resolve(".mvn"));
+    Files.write(
+        project.resolve("pom.xml"),
+        "<project><version>${revision}</version><properties><revision>3.1.0</revision></properties></project>"
+            .getBytes(StandardCharsets.UTF_8));
+    Path module = Files.createDirectories(project.resolve("modules/m"));
+    Files.write(
+        module.resolve("pom.xml"),
+        "<project><parent><version>${revision}</version></parent><version>${revision}</version></project>"
+            .getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("3.1.0", VersionState.currentVersion(module));
+
+    Files.write(
+        project.resolve("pom.xml"),
+        "<project><version>${revision}</version><properties><revision>3.2.0</revision></properties></project>"
+            .getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(project.resolve("pom.xml"), FileTime.fromMillis(0));
+
+    assertEquals("3.2.0", VersionState.currentVersion(module));
+  }
+}